@@ -0,0 +1,178 @@
+package com.inventory.apigateway.admission;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Admits routed requests by priority class. Every class has its own concurrency limit and bounded
+ * queue, so a flood of dashboard polling can only fill its own slots, never those of checkout
+ * traffic. When a route degrades, whole classes are shed from the lowest up: one class for every
+ * multiple of the latency threshold its average latency reaches, all but the highest while its
+ * circuit breaker is open, and at least the lowest while it is half open. Outcomes of every
+ * admitted request are recorded in a circuit breaker named after the route, configured by
+ * {@link com.inventory.apigateway.config.CircuitBreakerConfig}'s registry defaults.
+ *
+ * <p>Rejected requests get 503 Service Unavailable with Retry-After. Runs after the rate limiter,
+ * so requests over their rate never take a slot.</p>
+ */
+@Component
+public class AdmissionControlFilter implements GlobalFilter, Ordered {
+
+    private static final byte[] REJECTED_BODY = "{\"message\":\"Service busy, retry later\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final AdmissionProperties properties;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final List<ClassAdmission> classes;
+    private final boolean matchesRoles;
+    private final Map<String, RouteHealth> routes = new ConcurrentHashMap<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public AdmissionControlFilter(AdmissionProperties properties,
+                                  CircuitBreakerRegistry circuitBreakerRegistry,
+                                  MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.meterRegistry = meterRegistry;
+        this.classes = properties.getClasses().stream()
+                .map(requestClass -> new ClassAdmission(requestClass, meterRegistry))
+                .toList();
+        this.matchesRoles = properties.getClasses().stream().anyMatch(requestClass -> !requestClass.getRoles().isEmpty());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!properties.isEnabled() || classes.isEmpty() || route == null) {
+            return chain.filter(exchange);
+        }
+        return callerRoles(exchange).flatMap(roles -> {
+            int priority = classify(route.getId(), exchange.getRequest(), roles);
+            ClassAdmission admission = classes.get(priority);
+            RouteHealth health = health(route.getId());
+            if (priority >= classes.size() - shedClasses(health)) {
+                admission.shed("degraded");
+                return reject(exchange);
+            }
+            return admission.acquire()
+                    .map(permit -> forward(exchange, chain, health).doFinally(signal -> permit.release()))
+                    .defaultIfEmpty(Mono.defer(() -> reject(exchange)))
+                    .flatMap(Function.identity());
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return 10; // After the route filters, among them the rate limiter
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, RouteHealth health) {
+        // Classes still admitted while the breaker is open go through without counting towards it
+        boolean counted = health.tryAcquirePermission();
+        long started = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnSuccess(ignored -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    health.record(System.nanoTime() - started,
+                            status != null && status.is5xxServerError() ? new ResponseStatusException(status) : null, counted);
+                })
+                .doOnError(ex -> health.record(System.nanoTime() - started, ex, counted))
+                .doOnCancel(() -> {
+                    if (counted) {
+                        health.releasePermission();
+                    }
+                });
+    }
+
+    /**
+     * @return How many of the lowest classes the route does not admit at the moment
+     */
+    private int shedClasses(RouteHealth health) {
+        int lowestShedable = classes.size() - 1;
+        int shed = (int) (health.latencyMillis() / properties.getLatencyThresholdMs());
+        switch (health.circuitBreakerState()) {
+            case OPEN, FORCED_OPEN -> shed = lowestShedable;
+            case HALF_OPEN -> shed = Math.max(shed, 1);
+            default -> {
+            }
+        }
+        return Math.min(shed, lowestShedable);
+    }
+
+    private int classify(String routeId, ServerHttpRequest request, List<String> roles) {
+        String method = request.getMethod().name();
+        String path = request.getPath().value();
+        for (int i = 0; i < classes.size() - 1; i++) {
+            AdmissionProperties.RequestClass requestClass = classes.get(i).getConfig();
+            if ((requestClass.getRoutes().isEmpty() || requestClass.getRoutes().contains(routeId))
+                    && (requestClass.getMethods().isEmpty() || requestClass.getMethods().stream().anyMatch(method::equalsIgnoreCase))
+                    && (requestClass.getPaths().isEmpty() || requestClass.getPaths().stream().anyMatch(pattern -> pathMatcher.match(pattern, path)))
+                    && (requestClass.getRoles().isEmpty() || requestClass.getRoles().stream().anyMatch(roles::contains))) {
+                return i;
+            }
+        }
+        return classes.size() - 1;
+    }
+
+    private Mono<List<String>> callerRoles(ServerWebExchange exchange) {
+        if (!matchesRoles) {
+            return Mono.just(List.of());
+        }
+        return exchange.getPrincipal()
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .map(principal -> {
+                    Jwt jwt = ((JwtAuthenticationToken) principal).getToken();
+                    List<String> roles = jwt.getClaimAsStringList(properties.getRoleClaim());
+                    return roles != null ? roles : List.<String>of();
+                })
+                .defaultIfEmpty(List.of());
+    }
+
+    private RouteHealth health(String routeId) {
+        return routes.computeIfAbsent(routeId, id -> {
+            RouteHealth health = new RouteHealth(circuitBreakerRegistry.circuitBreaker(id), properties.getLatencyDecayMs());
+            Gauge.builder("gateway.admission.route.latency", health, RouteHealth::latencyMillis)
+                    .description("Average downstream latency of the route in milliseconds, as used to shed classes")
+                    .tag("route", id)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.admission.route.shed.classes", health, this::shedClasses)
+                    .description("Lowest request classes the route does not admit at the moment")
+                    .tag("route", id)
+                    .register(meterRegistry);
+            return health;
+        });
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Integer.toString(properties.getRetryAfterSeconds()));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(REJECTED_BODY)));
+    }
+}
@@ -0,0 +1,175 @@
+package com.inventory.apigateway.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request classes for priority-aware admission control, listed from the highest priority to the lowest.
+ * A request belongs to the first class it matches; requests matching none belong to the last class.
+ */
+@ConfigurationProperties(prefix = "app.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * JWT claim holding the caller's roles.
+     */
+    private String roleClaim = "roles";
+
+    /**
+     * A route whose average latency passes this sheds its lowest class, twice this its two lowest, and so on.
+     */
+    private long latencyThresholdMs = 500;
+
+    /**
+     * Time constant of the route latency average; it also fades out at this rate while a route gets no traffic.
+     */
+    private long latencyDecayMs = 2000;
+
+    private int retryAfterSeconds = 1;
+
+    private List<RequestClass> classes = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getRoleClaim() {
+        return roleClaim;
+    }
+
+    public void setRoleClaim(String roleClaim) {
+        this.roleClaim = roleClaim;
+    }
+
+    public long getLatencyThresholdMs() {
+        return latencyThresholdMs;
+    }
+
+    public void setLatencyThresholdMs(long latencyThresholdMs) {
+        this.latencyThresholdMs = latencyThresholdMs;
+    }
+
+    public long getLatencyDecayMs() {
+        return latencyDecayMs;
+    }
+
+    public void setLatencyDecayMs(long latencyDecayMs) {
+        this.latencyDecayMs = latencyDecayMs;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public List<RequestClass> getClasses() {
+        return classes;
+    }
+
+    public void setClasses(List<RequestClass> classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * A class of requests with its own concurrency limit and queue. Empty criteria match any request.
+     */
+    public static class RequestClass {
+
+        private String name;
+
+        private List<String> routes = new ArrayList<>();
+
+        private List<String> methods = new ArrayList<>();
+
+        /**
+         * Ant-style patterns of request paths.
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * Matches callers holding any of these roles.
+         */
+        private List<String> roles = new ArrayList<>();
+
+        private int maxConcurrent = 100;
+
+        private int maxQueued = 100;
+
+        private long maxQueueWaitMs = 1000;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public List<String> getRoutes() {
+            return routes;
+        }
+
+        public void setRoutes(List<String> routes) {
+            this.routes = routes;
+        }
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public List<String> getRoles() {
+            return roles;
+        }
+
+        public void setRoles(List<String> roles) {
+            this.roles = roles;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        public void setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+        }
+
+        public long getMaxQueueWaitMs() {
+            return maxQueueWaitMs;
+        }
+
+        public void setMaxQueueWaitMs(long maxQueueWaitMs) {
+            this.maxQueueWaitMs = maxQueueWaitMs;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.inventory.apigateway.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded concurrency for one request class, with a bounded FIFO queue in front of it.
+ * A released slot is handed straight to the oldest waiter, so a queued request never loses it to a newcomer.
+ */
+final class ClassAdmission {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int ABANDONED = 2;
+
+    private final AdmissionProperties.RequestClass config;
+    private final MeterRegistry registry;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private int inFlight;
+
+    ClassAdmission(AdmissionProperties.RequestClass config, MeterRegistry registry) {
+        this.config = config;
+        this.registry = registry;
+        Gauge.builder("gateway.admission.in.flight", this, ClassAdmission::getInFlight)
+                .description("Requests of the class being served downstream")
+                .tag("class", config.getName())
+                .register(registry);
+        Gauge.builder("gateway.admission.queued", this, ClassAdmission::getQueued)
+                .description("Requests of the class waiting for a slot")
+                .tag("class", config.getName())
+                .register(registry);
+    }
+
+    AdmissionProperties.RequestClass getConfig() {
+        return config;
+    }
+
+    /**
+     * Take a slot, waiting in the queue if all are in use
+     * @return The slot, to be released when the request completes, or empty if the request is rejected
+     */
+    Mono<Permit> acquire() {
+        return Mono.create(sink -> {
+            Permit granted = null;
+            Waiter waiter = null;
+            synchronized (this) {
+                if (inFlight < config.getMaxConcurrent()) {
+                    inFlight++;
+                    granted = new Permit();
+                } else if (waiters.size() < config.getMaxQueued()) {
+                    waiter = new Waiter(sink);
+                    waiters.addLast(waiter);
+                }
+            }
+            if (granted != null) {
+                sink.success(granted);
+            } else if (waiter == null) {
+                shed("queue_full");
+                sink.success();
+            } else {
+                sink.onCancel(waiter::cancel);
+                waiter.timeout = Schedulers.parallel().schedule(waiter::expire, config.getMaxQueueWaitMs(), TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /**
+     * Count a request of the class that was rejected
+     * @param reason Why it was rejected
+     */
+    void shed(String reason) {
+        Counter.builder("gateway.admission.shed")
+                .description("Requests rejected by admission control, by class and reason")
+                .tag("class", config.getName())
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    private void release() {
+        Waiter next;
+        synchronized (this) {
+            do {
+                next = waiters.pollFirst();
+            } while (next != null && !next.state.compareAndSet(WAITING, GRANTED));
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+        }
+        next.grant();
+    }
+
+    private synchronized void remove(Waiter waiter) {
+        waiters.remove(waiter);
+    }
+
+    private synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    /**
+     * A slot of the class; releasing it more than once has no effect
+     */
+    final class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                ClassAdmission.this.release();
+            }
+        }
+    }
+
+    private final class Waiter {
+
+        private final MonoSink<Permit> sink;
+        private final Permit permit = new Permit();
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private volatile Disposable timeout;
+
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        void grant() {
+            Disposable scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.dispose();
+            }
+            sink.success(permit);
+        }
+
+        void expire() {
+            if (state.compareAndSet(WAITING, ABANDONED)) {
+                remove(this);
+                shed("queue_timeout");
+                sink.success();
+            }
+        }
+
+        void cancel() {
+            if (state.compareAndSet(WAITING, ABANDONED)) {
+                remove(this);
+            } else if (state.get() == GRANTED) {
+                // The slot may have been handed over after the client went away
+                permit.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.inventory.apigateway.admission;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downstream health of one route: a time-weighted average of its latency, and the circuit breaker
+ * that its outcomes are recorded in. Only calls the breaker permitted count towards it, so once open
+ * it moves to half-open after its wait and decides on its permitted trial calls alone.
+ */
+final class RouteHealth {
+
+    private final CircuitBreaker circuitBreaker;
+    private final double decayNanos;
+
+    private double latencyNanos;
+    private long lastSampleNanos;
+
+    RouteHealth(CircuitBreaker circuitBreaker, long decayMs) {
+        this.circuitBreaker = circuitBreaker;
+        this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayMs);
+    }
+
+    /**
+     * Ask the circuit breaker to count the next call
+     * @return Whether the call's outcome is to be passed to {@link #record(long, Throwable, boolean)} as counted
+     */
+    boolean tryAcquirePermission() {
+        return circuitBreaker.tryAcquirePermission();
+    }
+
+    /**
+     * Hand back the permission of a counted call that ended without an outcome, such as a cancelled one
+     */
+    void releasePermission() {
+        circuitBreaker.releasePermission();
+    }
+
+    void record(long durationNanos, Throwable failure, boolean counted) {
+        if (counted && failure != null) {
+            circuitBreaker.onError(durationNanos, TimeUnit.NANOSECONDS, failure);
+        } else if (counted) {
+            circuitBreaker.onSuccess(durationNanos, TimeUnit.NANOSECONDS);
+        }
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (lastSampleNanos == 0) {
+                latencyNanos = durationNanos;
+            } else {
+                double weight = 1 - Math.exp(-(now - lastSampleNanos) / decayNanos);
+                latencyNanos += (durationNanos - latencyNanos) * weight;
+            }
+            lastSampleNanos = now;
+        }
+    }
+
+    /**
+     * @return The average latency, faded towards zero for the time since the last sample, so a route
+     * that lower classes were shed from is tried again once it has been quiet for a while
+     */
+    synchronized double latencyMillis() {
+        if (lastSampleNanos == 0) {
+            return 0;
+        }
+        double idle = System.nanoTime() - lastSampleNanos;
+        return latencyNanos * Math.exp(-idle / decayNanos) / 1_000_000;
+    }
+
+    CircuitBreaker.State circuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+}
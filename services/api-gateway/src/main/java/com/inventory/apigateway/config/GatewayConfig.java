@@ -1,20 +1,63 @@
 package com.inventory.apigateway.config;
 
+import com.inventory.apigateway.admission.AdmissionProperties;
+import com.inventory.apigateway.ratelimit.LocalTokenBucketRateLimiter;
+import com.inventory.apigateway.ratelimit.RateLimitProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties({RateLimitProperties.class, AdmissionProperties.class})
 public class GatewayConfig {
-    
+
     @Bean
     public KeyResolver ipKeyResolver() {
         return exchange -> {
             var remoteAddress = exchange.getRequest().getRemoteAddress();
-            return remoteAddress != null 
+            return remoteAddress != null
                 ? Mono.just(remoteAddress.getHostString())
                 : Mono.just("unknown");
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Keys rate limits by JWT subject, prefixed with the role used to pick a per-role limit.
+     * Unauthenticated requests fall back to the client IP.
+     */
+    @Bean
+    @Primary
+    public KeyResolver userKeyResolver(RateLimitProperties rateLimitProperties) {
+        KeyResolver ipKeyResolver = ipKeyResolver();
+        return exchange -> exchange.getPrincipal()
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .map(principal -> {
+                    Jwt jwt = ((JwtAuthenticationToken) principal).getToken();
+                    return resolveRole(jwt, rateLimitProperties) + LocalTokenBucketRateLimiter.KEY_SEPARATOR + jwt.getSubject();
+                })
+                .switchIfEmpty(Mono.defer(() -> ipKeyResolver.resolve(exchange)
+                        .map(ip -> "anonymous" + LocalTokenBucketRateLimiter.KEY_SEPARATOR + ip)));
+    }
+
+    private static String resolveRole(Jwt jwt, RateLimitProperties rateLimitProperties) {
+        List<String> roles = jwt.getClaimAsStringList(rateLimitProperties.getRoleClaim());
+        if (roles == null || roles.isEmpty()) {
+            return "user";
+        }
+        for (String role : roles) {
+            if (rateLimitProperties.getRoles().containsKey(role)) {
+                return role;
+            }
+        }
+        return roles.get(0);
+    }
+}
@@ -0,0 +1,16 @@
+package com.inventory.apigateway.config;
+
+import com.inventory.apigateway.loadbalancer.LoadBalancingProperties;
+import com.inventory.apigateway.loadbalancer.PeakEwmaLoadBalancerConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Routes {@code lb://} requests of every service through the latency-aware load balancer instead of round-robin.
+ */
+@Configuration
+@EnableConfigurationProperties(LoadBalancingProperties.class)
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -2,6 +2,7 @@ package com.inventory.apigateway.filter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
@@ -10,40 +11,64 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Ensures every routed request carries a W3C {@code traceparent} header. A valid incoming header is
+ * forwarded untouched; otherwise a new one is generated and the request is mutated once.
+ * Access logging follows the sampled flag and is capped per second.
+ */
 @Component
 public class RequestTracingFilter implements GlobalFilter, Ordered {
 
     private static final Logger log = LoggerFactory.getLogger(RequestTracingFilter.class);
-    private static final String TRACE_ID_HEADER = "X-Trace-Id";
-    private static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    @Value("${app.tracing.sample-ratio:0.1}")
+    private double sampleRatio;
+
+    @Value("${app.tracing.access-log.max-per-second:50}")
+    private int maxAccessLogsPerSecond;
+
+    private final AtomicLong logWindowSecond = new AtomicLong();
+    private final AtomicInteger logsInWindow = new AtomicInteger();
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        String traceId = exchange.getRequest().getHeaders().getFirst(TRACE_ID_HEADER);
-        if (traceId == null) {
-            traceId = UUID.randomUUID().toString();
-        }
-
-        String requestId = UUID.randomUUID().toString();
+        ServerHttpRequest request = exchange.getRequest();
+        String traceparent = request.getHeaders().getFirst(TRACEPARENT_HEADER);
 
-        log.info("Incoming request: method={}, path={}, traceId={}, requestId={}",
-                exchange.getRequest().getMethod(),
-                exchange.getRequest().getPath(),
-                traceId,
-                requestId);
+        ServerWebExchange tracedExchange = exchange;
+        if (!TraceIds.isValid(traceparent)) {
+            boolean sampled = sampleRatio > 0 && ThreadLocalRandom.current().nextDouble() < sampleRatio;
+            traceparent = TraceIds.newTraceparent(sampled);
+            String header = traceparent;
+            tracedExchange = exchange.mutate()
+                    .request(request.mutate().headers(headers -> headers.set(TRACEPARENT_HEADER, header)).build())
+                    .build();
+        }
 
-        ServerHttpRequest request = exchange.getRequest().mutate()
-                .header(TRACE_ID_HEADER, traceId)
-                .header(REQUEST_ID_HEADER, requestId)
-                .build();
+        if (TraceIds.isSampled(traceparent) && tryAcquireLogPermit()) {
+            log.info("Incoming request: method={}, path={}, traceId={}",
+                    request.getMethod(), request.getPath(), TraceIds.traceId(traceparent));
+        }
 
-        return chain.filter(exchange.mutate().request(request).build());
+        return chain.filter(tracedExchange);
     }
 
     @Override
     public int getOrder() {
         return -100; // Run this filter before other filters
     }
-}
\ No newline at end of file
+
+    private boolean tryAcquireLogPermit() {
+        long second = System.currentTimeMillis() / 1000;
+        long window = logWindowSecond.get();
+        if (window != second && logWindowSecond.compareAndSet(window, second)) {
+            logsInWindow.set(0);
+        }
+        return logsInWindow.incrementAndGet() <= maxAccessLogsPerSecond;
+    }
+}
@@ -0,0 +1,90 @@
+package com.inventory.apigateway.filter;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds W3C {@code traceparent} values from {@link ThreadLocalRandom}, which needs no locking
+ * or entropy pool unlike {@code UUID.randomUUID()}.
+ */
+final class TraceIds {
+
+    private static final int TRACEPARENT_LENGTH = 55;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TraceIds() {
+    }
+
+    static String newTraceparent(boolean sampled) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] buf = new char[TRACEPARENT_LENGTH];
+        buf[0] = '0';
+        buf[1] = '0';
+        buf[2] = '-';
+        writeHex(buf, 3, nonZero(random));
+        writeHex(buf, 19, random.nextLong());
+        buf[35] = '-';
+        writeHex(buf, 36, nonZero(random));
+        buf[52] = '-';
+        buf[53] = '0';
+        buf[54] = sampled ? '1' : '0';
+        return new String(buf);
+    }
+
+    /**
+     * Checks the layout of a version 00 header: lowercase hex fields, no version ff, and neither an
+     * all-zero trace ID nor an all-zero parent ID, which the spec declares invalid.
+     */
+    static boolean isValid(String traceparent) {
+        return traceparent != null
+                && traceparent.length() == TRACEPARENT_LENGTH
+                && traceparent.charAt(2) == '-'
+                && traceparent.charAt(35) == '-'
+                && traceparent.charAt(52) == '-'
+                && isLowerHex(traceparent, 0, 2) && !traceparent.startsWith("ff")
+                && isLowerHex(traceparent, 3, 35) && !isZero(traceparent, 3, 35)
+                && isLowerHex(traceparent, 36, 52) && !isZero(traceparent, 36, 52)
+                && isLowerHex(traceparent, 53, 55);
+    }
+
+    static boolean isSampled(String traceparent) {
+        return (Character.digit(traceparent.charAt(54), 16) & 1) == 1;
+    }
+
+    static String traceId(String traceparent) {
+        return traceparent.substring(3, 35);
+    }
+
+    private static boolean isLowerHex(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long nonZero(ThreadLocalRandom random) {
+        long value;
+        do {
+            value = random.nextLong();
+        } while (value == 0);
+        return value;
+    }
+
+    private static void writeHex(char[] buf, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            buf[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
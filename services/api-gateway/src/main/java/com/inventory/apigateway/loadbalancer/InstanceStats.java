@@ -0,0 +1,111 @@
+package com.inventory.apigateway.loadbalancer;
+
+import io.micrometer.core.instrument.Meter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load of one service instance as seen from this gateway: a peak-sensitive moving average of its
+ * latency, its requests in flight, and its ejection state.
+ *
+ * <p>The latency average jumps to any slower sample at once and falls back gradually, so an instance
+ * that stalls, e.g. in a GC pause or a long lock wait, loses its share of traffic with the first slow
+ * response. A failed request counts as a multiple of the instance's latency, since failing fast,
+ * e.g. with a refused connection, must not make an instance look faster. While idle, the average
+ * fades towards zero, so a stalled instance is tried again after a while.</p>
+ */
+final class InstanceStats {
+
+    // Cost of an instance that has requests in flight but no latency sample yet, so it is not flooded
+    private static final double UNMEASURED_PENALTY = Long.MAX_VALUE >> 16;
+    // Multiple of the latency a failed request counts as, up to the decay time constant
+    private static final double FAILURE_PENALTY = 10;
+
+    private final double decayNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final List<Meter> meters = new ArrayList<>();
+
+    private double latencyNanos;
+    private long lastSampleNanos;
+    private int consecutiveFailures;
+    private int ejections;
+    private long ejectedUntilNanos;
+    private long returnedNanos;
+
+    InstanceStats(long decayMs) {
+        this.decayNanos = decayMs * 1_000_000.0;
+    }
+
+    void start() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Record a completed request
+     * @return True if the instance has failed often enough in a row to be ejected
+     */
+    synchronized boolean complete(long durationNanos, boolean failed, int ejectAfterFailures) {
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        double fade = lastSampleNanos == 0 ? 0 : Math.exp(-(now - lastSampleNanos) / decayNanos);
+        double sample = failed
+                ? Math.max(durationNanos, Math.min(Math.max(durationNanos, latencyNanos * fade) * FAILURE_PENALTY, decayNanos))
+                : durationNanos;
+        latencyNanos = sample > latencyNanos ? sample : latencyNanos * fade + sample * (1 - fade);
+        lastSampleNanos = now;
+
+        if (!failed) {
+            consecutiveFailures = 0;
+            if (ejections > 0 && now - returnedNanos > 0 && !isEjected(now)) {
+                ejections = 0;
+            }
+            return false;
+        }
+        return ++consecutiveFailures >= ejectAfterFailures && !isEjected(now);
+    }
+
+    /**
+     * Take the instance out of rotation, for longer each time it is ejected again soon after returning
+     */
+    synchronized void eject(long baseMs, long maxMs) {
+        ejections++;
+        long durationNanos = Math.min(baseMs * ejections, maxMs) * 1_000_000;
+        ejectedUntilNanos = System.nanoTime() + durationNanos;
+        // Serving well for another base ejection time after returning clears the record
+        returnedNanos = ejectedUntilNanos + baseMs * 1_000_000;
+        consecutiveFailures = 0;
+    }
+
+    synchronized boolean isEjected(long nowNanos) {
+        return ejections > 0 && nowNanos - ejectedUntilNanos < 0;
+    }
+
+    /**
+     * @return The expected cost of sending the instance one more request, lower is better
+     */
+    synchronized double score(long nowNanos) {
+        int pending = inFlight.get();
+        if (lastSampleNanos == 0) {
+            return pending == 0 ? 0 : UNMEASURED_PENALTY + pending;
+        }
+        return fadedLatency(nowNanos) * (pending + 1);
+    }
+
+    synchronized double latencyMillis() {
+        return fadedLatency(System.nanoTime()) / 1_000_000;
+    }
+
+    List<Meter> getMeters() {
+        return meters;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private double fadedLatency(long nowNanos) {
+        return latencyNanos * Math.exp(-Math.max(0, nowNanos - lastSampleNanos) / decayNanos);
+    }
+}
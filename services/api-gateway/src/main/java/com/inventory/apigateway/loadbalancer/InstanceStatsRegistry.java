@@ -0,0 +1,116 @@
+package com.inventory.apigateway.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Per-instance load statistics shared by the load balancers of all services and the filter that
+ * measures the requests they route. Instances that leave discovery are dropped along with their metrics.
+ */
+@Component
+public class InstanceStatsRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(InstanceStatsRegistry.class);
+
+    private final LoadBalancingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Map<String, InstanceStats>> services = new ConcurrentHashMap<>();
+
+    public InstanceStatsRegistry(LoadBalancingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    InstanceStats stats(ServiceInstance instance) {
+        return services.computeIfAbsent(instance.getServiceId(), serviceId -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key(instance), key -> register(instance.getServiceId(), key));
+    }
+
+    /**
+     * Drop the statistics of instances of the service that are no longer discovered
+     * @param serviceId The service
+     * @param instances The instances currently discovered
+     */
+    void retain(String serviceId, List<ServiceInstance> instances) {
+        Map<String, InstanceStats> known = services.get(serviceId);
+        if (known == null || known.size() <= instances.size()) {
+            return;
+        }
+        Set<String> current = instances.stream().map(InstanceStatsRegistry::key).collect(Collectors.toSet());
+        known.entrySet().removeIf(entry -> {
+            if (current.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().getMeters().forEach(meterRegistry::remove);
+            return true;
+        });
+    }
+
+    /**
+     * Record a completed request, ejecting the instance if it keeps failing and the service can spare it
+     * @param instance The instance that served the request
+     * @param stats The statistics of the instance taken when the request started
+     * @param durationNanos How long the request took
+     * @param failed Whether it ended in a server or connection error
+     */
+    void complete(ServiceInstance instance, InstanceStats stats, long durationNanos, boolean failed) {
+        if (!stats.complete(durationNanos, failed, properties.getConsecutiveFailures())) {
+            return;
+        }
+        Map<String, InstanceStats> siblings = services.get(instance.getServiceId());
+        if (siblings == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (siblings) {
+            long ejected = siblings.values().stream().filter(sibling -> sibling.isEjected(now)).count();
+            if ((ejected + 1) * 100 > (long) siblings.size() * properties.getMaxEjectionPercent()) {
+                return;
+            }
+            stats.eject(properties.getBaseEjectionMs(), properties.getMaxEjectionMs());
+        }
+        log.warn("Ejecting instance {} of {} after {} consecutive failures",
+                key(instance), instance.getServiceId(), properties.getConsecutiveFailures());
+        Counter.builder("gateway.loadbalancer.ejections")
+                .description("Instances taken out of rotation for failing repeatedly")
+                .tag("service", instance.getServiceId())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private InstanceStats register(String serviceId, String key) {
+        InstanceStats stats = new InstanceStats(properties.getDecayMs());
+        stats.getMeters().add(Gauge.builder("gateway.loadbalancer.instance.score", stats, s -> s.score(System.nanoTime()) / 1_000_000)
+                .description("Expected cost of routing one more request to the instance: latency average times requests in flight plus one")
+                .tags("service", serviceId, "instance", key)
+                .register(meterRegistry));
+        stats.getMeters().add(Gauge.builder("gateway.loadbalancer.instance.latency", stats, InstanceStats::latencyMillis)
+                .description("Peak-sensitive moving average of the instance's latency in milliseconds")
+                .tags("service", serviceId, "instance", key)
+                .register(meterRegistry));
+        stats.getMeters().add(Gauge.builder("gateway.loadbalancer.instance.in.flight", stats, InstanceStats::getInFlight)
+                .description("Requests routed to the instance and not yet completed")
+                .tags("service", serviceId, "instance", key)
+                .register(meterRegistry));
+        stats.getMeters().add(Gauge.builder("gateway.loadbalancer.instance.ejected", stats, s -> s.isEjected(System.nanoTime()) ? 1 : 0)
+                .description("Whether the instance is out of rotation for failing repeatedly")
+                .tags("service", serviceId, "instance", key)
+                .register(meterRegistry));
+        return stats;
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getInstanceId() != null ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+    }
+}
@@ -0,0 +1,72 @@
+package com.inventory.apigateway.loadbalancer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the latency-aware load balancer used for {@code lb://} routes.
+ */
+@ConfigurationProperties(prefix = "app.load-balancer")
+public class LoadBalancingProperties {
+
+    /**
+     * Time constant of the per-instance latency average; an instance's cost also fades at this rate while it is idle.
+     */
+    private long decayMs = 10000;
+
+    /**
+     * Consecutive failed requests, server errors or connection errors, after which an instance is ejected.
+     */
+    private int consecutiveFailures = 5;
+
+    /**
+     * How long an instance is ejected for, multiplied by the number of times in a row it has been ejected.
+     */
+    private long baseEjectionMs = 30000;
+
+    private long maxEjectionMs = 300000;
+
+    /**
+     * At most this share of a service's instances is ejected at a time.
+     */
+    private int maxEjectionPercent = 50;
+
+    public long getDecayMs() {
+        return decayMs;
+    }
+
+    public void setDecayMs(long decayMs) {
+        this.decayMs = decayMs;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public void setConsecutiveFailures(int consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+
+    public long getBaseEjectionMs() {
+        return baseEjectionMs;
+    }
+
+    public void setBaseEjectionMs(long baseEjectionMs) {
+        this.baseEjectionMs = baseEjectionMs;
+    }
+
+    public long getMaxEjectionMs() {
+        return maxEjectionMs;
+    }
+
+    public void setMaxEjectionMs(long maxEjectionMs) {
+        this.maxEjectionMs = maxEjectionMs;
+    }
+
+    public int getMaxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+
+    public void setMaxEjectionPercent(int maxEjectionPercent) {
+        this.maxEjectionPercent = maxEjectionPercent;
+    }
+}
@@ -0,0 +1,157 @@
+package com.inventory.apigateway.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rate limiter that decides every request against in-memory token buckets and only talks to Redis
+ * from a background sync, which pushes the tokens consumed on this instance in one batched script
+ * call and debits every local bucket with what the other instances consumed meanwhile. All instances
+ * together therefore admit about the configured rate, give or take one sync interval of traffic.
+ *
+ * <p>Keys produced by the key resolver have the form {@code <role>:<subject>}; the role selects a
+ * per-role limit, otherwise the per-route limit or the default applies.</p>
+ *
+ * <p>Primary, so {@code RequestRateLimiter} filters pick it over any other {@link RateLimiter} bean.</p>
+ */
+@Component
+@Primary
+@SuppressWarnings("rawtypes")
+public class LocalTokenBucketRateLimiter implements RateLimiter<RateLimitProperties.Limit> {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalTokenBucketRateLimiter.class);
+
+    public static final char KEY_SEPARATOR = ':';
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+
+    // Hash tag keeps every counter in one slot so the batch works against Redis Cluster
+    private static final String REDIS_KEY_PREFIX = "{rate_limit}.";
+
+    private final RateLimitProperties properties;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RedisScript<List> syncScript;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean syncInFlight = new AtomicBoolean();
+
+    public LocalTokenBucketRateLimiter(RateLimitProperties properties, ReactiveStringRedisTemplate redisTemplate) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.syncScript = RedisScript.of(new ClassPathResource("scripts/rate_limit_sync.lua"), List.class);
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(routeId + KEY_SEPARATOR + id,
+                key -> new TokenBucket(resolveLimit(routeId, id), now));
+
+        long remaining = bucket.tryConsume(now);
+        return Mono.just(new Response(remaining >= 0, headers(bucket.getLimit(), remaining)));
+    }
+
+    /**
+     * Pushes local consumption to Redis and pulls back the shared counters.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.sync-interval-ms:1000}")
+    public void syncWithRedis() {
+        long now = System.nanoTime();
+        evictIdleBuckets(now);
+
+        if (!properties.isGlobalSyncEnabled() || !syncInFlight.compareAndSet(false, true)) {
+            return;
+        }
+
+        // Buckets that consumed nothing here are synced too, to learn what the other instances consumed
+        List<TokenBucket> synced = new ArrayList<>();
+        List<Long> consumed = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        buckets.forEach((key, bucket) -> {
+            long localConsumed = bucket.drainConsumed();
+            synced.add(bucket);
+            consumed.add(localConsumed);
+            keys.add(REDIS_KEY_PREFIX + key);
+            args.add(Long.toString(localConsumed));
+        });
+
+        if (synced.isEmpty()) {
+            syncInFlight.set(false);
+            return;
+        }
+        // Refreshed on every sync, so a counter outlives the buckets of all instances that use it
+        args.add(Long.toString(Math.max(1, properties.getIdleTimeoutSeconds())));
+
+        redisTemplate.execute(syncScript, keys, args)
+                .next()
+                .timeout(Duration.ofMillis(Math.max(100, properties.getSyncIntervalMs())))
+                .doFinally(signal -> syncInFlight.set(false))
+                .subscribe(totals -> reconcile(synced, consumed, totals),
+                        ex -> log.warn("Rate limit sync with Redis failed, continuing with local limits: {}", ex.getMessage()));
+    }
+
+    @Override
+    public Map<String, RateLimitProperties.Limit> getConfig() {
+        return properties.getRoutes();
+    }
+
+    @Override
+    public Class<RateLimitProperties.Limit> getConfigClass() {
+        return RateLimitProperties.Limit.class;
+    }
+
+    @Override
+    public RateLimitProperties.Limit newConfig() {
+        return new RateLimitProperties.Limit();
+    }
+
+    private void reconcile(List<TokenBucket> synced, List<Long> consumed, List<?> totals) {
+        for (int i = 0; i < synced.size() && i < totals.size(); i++) {
+            synced.get(i).reconcile(((Number) totals.get(i)).longValue(), consumed.get(i));
+        }
+    }
+
+    private void evictIdleBuckets(long now) {
+        long idleNanos = TimeUnit.SECONDS.toNanos(properties.getIdleTimeoutSeconds());
+        buckets.values().removeIf(bucket -> now - bucket.getLastAccessNanos() > idleNanos);
+    }
+
+    private RateLimitProperties.Limit resolveLimit(String routeId, String id) {
+        int separator = id.indexOf(KEY_SEPARATOR);
+        if (separator > 0) {
+            RateLimitProperties.Limit roleLimit = properties.getRoles().get(id.substring(0, separator));
+            if (roleLimit != null) {
+                return roleLimit;
+            }
+        }
+        RateLimitProperties.Limit routeLimit = properties.getRoutes().get(routeId);
+        return routeLimit != null ? routeLimit : properties.getDefaultLimit();
+    }
+
+    private Map<String, String> headers(RateLimitProperties.Limit limit, long remaining) {
+        Map<String, String> headers = new HashMap<>(4);
+        headers.put(REMAINING_HEADER, Long.toString(Math.max(remaining, 0)));
+        headers.put(REPLENISH_RATE_HEADER, Integer.toString(limit.getReplenishRate()));
+        headers.put(BURST_CAPACITY_HEADER, Integer.toString(limit.getBurstCapacity()));
+        return headers;
+    }
+}
@@ -0,0 +1,134 @@
+package com.inventory.apigateway.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Limits for the local token-bucket rate limiter.
+ * A role limit takes precedence over a route limit, which takes precedence over the default.
+ */
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private Limit defaultLimit = new Limit(10, 20);
+
+    private Map<String, Limit> routes = new HashMap<>();
+
+    private Map<String, Limit> roles = new HashMap<>();
+
+    /**
+     * JWT claim holding the caller's roles.
+     */
+    private String roleClaim = "roles";
+
+    /**
+     * Whether local consumption is reconciled with Redis so limits hold across gateway instances.
+     */
+    private boolean globalSyncEnabled = true;
+
+    private long syncIntervalMs = 1000;
+
+    /**
+     * Buckets untouched for this long are dropped on the next sync.
+     */
+    private long idleTimeoutSeconds = 300;
+
+    public Limit getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public void setDefaultLimit(Limit defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public Map<String, Limit> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Limit> routes) {
+        this.routes = routes;
+    }
+
+    public Map<String, Limit> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(Map<String, Limit> roles) {
+        this.roles = roles;
+    }
+
+    public String getRoleClaim() {
+        return roleClaim;
+    }
+
+    public void setRoleClaim(String roleClaim) {
+        this.roleClaim = roleClaim;
+    }
+
+    public boolean isGlobalSyncEnabled() {
+        return globalSyncEnabled;
+    }
+
+    public void setGlobalSyncEnabled(boolean globalSyncEnabled) {
+        this.globalSyncEnabled = globalSyncEnabled;
+    }
+
+    public long getSyncIntervalMs() {
+        return syncIntervalMs;
+    }
+
+    public void setSyncIntervalMs(long syncIntervalMs) {
+        this.syncIntervalMs = syncIntervalMs;
+    }
+
+    public long getIdleTimeoutSeconds() {
+        return idleTimeoutSeconds;
+    }
+
+    public void setIdleTimeoutSeconds(long idleTimeoutSeconds) {
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
+    }
+
+    public static class Limit {
+
+        private int replenishRate;
+
+        private int burstCapacity;
+
+        private int requestedTokens = 1;
+
+        public Limit() {
+        }
+
+        public Limit(int replenishRate, int burstCapacity) {
+            this.replenishRate = replenishRate;
+            this.burstCapacity = burstCapacity;
+        }
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public void setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+        }
+    }
+}
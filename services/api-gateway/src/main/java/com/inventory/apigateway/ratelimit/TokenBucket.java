@@ -0,0 +1,98 @@
+package com.inventory.apigateway.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory token bucket for a single rate-limit key.
+ * Each key has its own monitor, so callers with different keys never contend.
+ *
+ * <p>Every gateway instance keeps a bucket for the key that models the one global bucket: it refills
+ * at the full rate, and tokens consumed on other instances are debited from it at each sync. Tokens
+ * may go negative by up to one burst and one second of refill, a debt that is paid off by refilling
+ * before requests are admitted again.</p>
+ */
+final class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimitProperties.Limit limit;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private long consumedSinceSync;
+    private long syncedGlobalConsumed = -1;
+    private volatile long lastAccessNanos;
+
+    TokenBucket(RateLimitProperties.Limit limit, long nowNanos) {
+        this.limit = limit;
+        this.tokens = limit.getBurstCapacity();
+        this.lastRefillNanos = nowNanos;
+        this.lastAccessNanos = nowNanos;
+    }
+
+    RateLimitProperties.Limit getLimit() {
+        return limit;
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    /**
+     * @return the tokens left after consuming, or -1 if the request is not allowed
+     */
+    synchronized long tryConsume(long nowNanos) {
+        lastAccessNanos = nowNanos;
+        refill(nowNanos);
+        int requested = limit.getRequestedTokens();
+        if (tokens < requested) {
+            return -1;
+        }
+        tokens -= requested;
+        consumedSinceSync += requested;
+        return (long) tokens;
+    }
+
+    /**
+     * Returns and resets the tokens consumed locally since the previous sync.
+     */
+    synchronized long drainConsumed() {
+        long consumed = consumedSinceSync;
+        consumedSinceSync = 0;
+        return consumed;
+    }
+
+    /**
+     * Debits the tokens other gateway instances consumed since the previous sync. The first sync
+     * only learns where the shared counter stands.
+     *
+     * @param globalConsumed The shared counter of tokens consumed on all instances, this one included
+     * @param localConsumed The tokens this instance added to the counter in this sync
+     */
+    synchronized void reconcile(long globalConsumed, long localConsumed) {
+        long previous = syncedGlobalConsumed;
+        syncedGlobalConsumed = globalConsumed;
+        if (previous < 0) {
+            return;
+        }
+        long othersTotal = globalConsumed - localConsumed;
+        // A counter below what was seen before expired while no instance held the bucket, and started over
+        long consumedElsewhere = othersTotal >= previous ? othersTotal - previous : othersTotal;
+        if (consumedElsewhere > 0) {
+            tokens = Math.max(-maxDebt(), tokens - consumedElsewhere);
+        }
+    }
+
+    private double maxDebt() {
+        return limit.getBurstCapacity() + limit.getReplenishRate();
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed <= 0) {
+            return;
+        }
+        tokens = Math.min(limit.getBurstCapacity(), tokens + elapsed * limit.getReplenishRate() / NANOS_PER_SECOND);
+        lastRefillNanos = nowNanos;
+    }
+}
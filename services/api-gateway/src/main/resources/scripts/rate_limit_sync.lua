@@ -0,0 +1,9 @@
+-- Batched rate limit sync: KEYS are per-bucket counters of the tokens consumed on all instances, ARGV
+-- holds the tokens consumed locally for each key followed by the counter TTL. Returns every counter.
+local ttl = tonumber(ARGV[#ARGV])
+local totals = {}
+for i, key in ipairs(KEYS) do
+    totals[i] = redis.call('INCRBY', key, tonumber(ARGV[i]))
+    redis.call('EXPIRE', key, ttl)
+end
+return totals
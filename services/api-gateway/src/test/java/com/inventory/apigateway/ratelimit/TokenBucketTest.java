@@ -0,0 +1,128 @@
+package com.inventory.apigateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long START = 1_000_000_000L;
+
+    private final RateLimitProperties.Limit limit = new RateLimitProperties.Limit(10, 5);
+
+    @Test
+    void startsFullAndRejectsOnceTheBurstIsUsed() {
+        TokenBucket bucket = new TokenBucket(limit, START);
+
+        for (int remaining = 4; remaining >= 0; remaining--) {
+            assertEquals(remaining, bucket.tryConsume(START));
+        }
+        assertEquals(-1, bucket.tryConsume(START));
+        assertEquals(5, bucket.drainConsumed());
+        assertEquals(0, bucket.drainConsumed());
+    }
+
+    @Test
+    void refillsAtTheReplenishRateUpToTheBurst() {
+        TokenBucket bucket = drained();
+
+        assertEquals(-1, bucket.tryConsume(START + millis(50)));
+        assertEquals(0, bucket.tryConsume(START + millis(100)));
+        assertEquals(-1, bucket.tryConsume(START + millis(100)));
+
+        assertEquals(4, bucket.tryConsume(START + millis(10_000)));
+    }
+
+    @Test
+    void debitsWhatOtherInstancesConsumedSinceThePreviousSync() {
+        TokenBucket bucket = new TokenBucket(limit, START);
+        bucket.reconcile(100, 0);
+
+        bucket.tryConsume(START);
+        // This instance consumed 1, the others 3
+        bucket.reconcile(104, bucket.drainConsumed());
+        assertEquals(0, bucket.tryConsume(START));
+        assertEquals(-1, bucket.tryConsume(START));
+
+        // Nothing consumed anywhere since, so nothing more is debited
+        bucket.reconcile(105, bucket.drainConsumed());
+        assertEquals(-1, bucket.tryConsume(START));
+        assertEquals(0, bucket.tryConsume(START + millis(100)));
+    }
+
+    @Test
+    void onlyLearnsTheCounterOnTheFirstSync() {
+        TokenBucket bucket = new TokenBucket(limit, START);
+
+        bucket.reconcile(1_000, 0);
+        assertEquals(4, bucket.tryConsume(START));
+    }
+
+    @Test
+    void carriesDebtOfAtMostOneBurstAndOneSecondOfRefill() {
+        TokenBucket bucket = drained();
+        bucket.reconcile(5, bucket.drainConsumed());
+
+        bucket.reconcile(1_000, 0);
+
+        // From -15 tokens it takes 1.6 s to earn the next one
+        assertEquals(-1, bucket.tryConsume(START + millis(1_590)));
+        assertEquals(0, bucket.tryConsume(START + millis(1_600)));
+    }
+
+    @Test
+    void countsEverythingAsConsumedElsewhereAfterTheCounterStartedOver() {
+        TokenBucket bucket = new TokenBucket(limit, START);
+        bucket.reconcile(100, 0);
+
+        bucket.reconcile(3, 0);
+        assertEquals(1, bucket.tryConsume(START));
+    }
+
+    @Test
+    void instancesSharingACounterAdmitAboutTheRateTogether() {
+        TokenBucket first = new TokenBucket(limit, START);
+        TokenBucket second = new TokenBucket(limit, START);
+        long counter = 0;
+        long admitted = 0;
+        int seconds = 20;
+
+        for (long ms = 0; ms < seconds * 1000L; ms += 10) {
+            long now = START + millis(ms);
+            admitted += first.tryConsume(now) >= 0 ? 1 : 0;
+            admitted += second.tryConsume(now) >= 0 ? 1 : 0;
+            // Each instance syncs once a second, at its own offset
+            if (ms % 1000 == 300) {
+                long consumed = first.drainConsumed();
+                counter += consumed;
+                first.reconcile(counter, consumed);
+            }
+            if (ms % 1000 == 700) {
+                long consumed = second.drainConsumed();
+                counter += consumed;
+                second.reconcile(counter, consumed);
+            }
+        }
+
+        // One sync interval of the rate and a burst per instance on top of the rate, rather than twice the rate
+        long rateLimited = (long) limit.getReplenishRate() * seconds;
+        assertTrue(admitted <= rateLimited + limit.getReplenishRate() + 2L * limit.getBurstCapacity(),
+                "admitted " + admitted + " requests");
+        assertTrue(admitted >= rateLimited / 2, "admitted only " + admitted + " requests");
+    }
+
+    private TokenBucket drained() {
+        TokenBucket bucket = new TokenBucket(limit, START);
+        while (bucket.tryConsume(START) >= 0) {
+            // Use up the burst
+        }
+        return bucket;
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
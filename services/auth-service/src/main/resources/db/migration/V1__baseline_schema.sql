@@ -0,0 +1,19 @@
+-- Schema as previously generated by Hibernate (ddl-auto: update).
+-- IF NOT EXISTS lets this run against databases created before migrations were introduced.
+-- findByUsername, existsByUsername and existsByEmail are served by the unique constraints,
+-- and loading a user's roles by the primary key of user_roles.
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(50)  NOT NULL,
+    password VARCHAR(100) NOT NULL,
+    email    VARCHAR(100) NOT NULL,
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id BIGINT       NOT NULL REFERENCES users (id),
+    roles   VARCHAR(255) NOT NULL CHECK (roles IN ('ROLE_USER', 'ROLE_ADMIN', 'ROLE_INVENTORY_MANAGER')),
+    PRIMARY KEY (user_id, roles)
+);
@@ -0,0 +1,51 @@
+package com.inventory.inventoryservice.cache;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Cached value stored together with its expiry and the time it took to compute,
+ * which {@link SingleFlightCache} needs to decide on probabilistic early refresh.
+ */
+public class CacheEntry implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Object value;
+    private long expiresAtMillis;
+    private long computeMillis;
+
+    // Default constructor for serialization
+    public CacheEntry() {
+    }
+
+    public CacheEntry(Object value, long expiresAtMillis, long computeMillis) {
+        this.value = value;
+        this.expiresAtMillis = expiresAtMillis;
+        this.computeMillis = computeMillis;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public void setValue(Object value) {
+        this.value = value;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public void setExpiresAtMillis(long expiresAtMillis) {
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public long getComputeMillis() {
+        return computeMillis;
+    }
+
+    public void setComputeMillis(long computeMillis) {
+        this.computeMillis = computeMillis;
+    }
+}
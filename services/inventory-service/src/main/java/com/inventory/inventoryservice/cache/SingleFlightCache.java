@@ -0,0 +1,190 @@
+package com.inventory.inventoryservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cache decorator used for {@code @Cacheable(sync = true)} reads.
+ *
+ * <p>Concurrent misses for the same key share a single load, and a hit may be refreshed before it
+ * expires with a probability that grows as expiry approaches (XFetch), so a popular entry is
+ * recomputed by one caller instead of stampeding the database when its TTL runs out.</p>
+ */
+public class SingleFlightCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlightCache.class);
+
+    private final Cache delegate;
+    private final long ttlMillis;
+    private final double beta;
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter earlyRefreshes;
+
+    public SingleFlightCache(Cache delegate, Duration ttl, double beta, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.ttlMillis = ttl.toMillis();
+        this.beta = beta;
+        this.hits = counter(registry, "inventory.cache.gets", "result", "hit");
+        this.misses = counter(registry, "inventory.cache.gets", "result", "miss");
+        this.coalesced = counter(registry, "inventory.cache.loads", "type", "coalesced");
+        this.earlyRefreshes = counter(registry, "inventory.cache.loads", "type", "early_refresh");
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        (wrapper != null ? hits : misses).increment();
+        return wrapper != null ? new SimpleValueWrapper(unwrap(wrapper.get())) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper == null) {
+            misses.increment();
+            return (T) load(key, valueLoader);
+        }
+        hits.increment();
+
+        Object stored = wrapper.get();
+        if (!(stored instanceof CacheEntry entry) || !shouldRefreshEarly(entry)) {
+            return (T) unwrap(stored);
+        }
+
+        logger.debug("Refreshing cache {} entry {} ahead of expiry", getName(), key);
+        earlyRefreshes.increment();
+        try {
+            return (T) load(key, valueLoader);
+        } catch (ValueRetrievalException e) {
+            // The entry is still valid, so a failed early refresh should not fail the read
+            logger.warn("Early refresh of cache {} entry {} failed: {}", getName(), key, e.getMessage());
+            return (T) entry.getValue();
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value != null ? new CacheEntry(value, System.currentTimeMillis() + ttlMillis, 0) : null);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key,
+                value != null ? new CacheEntry(value, System.currentTimeMillis() + ttlMillis, 0) : null);
+        return existing != null ? new SimpleValueWrapper(unwrap(existing.get())) : null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return await(key, valueLoader, existing);
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Object value = valueLoader.call();
+            long now = System.currentTimeMillis();
+            // Nothing found is not cached, matching disableCachingNullValues on the Redis side
+            if (value != null) {
+                delegate.put(key, new CacheEntry(value, now + ttlMillis, now - start));
+            }
+            flight.complete(value);
+            return value;
+        } catch (Exception e) {
+            ValueRetrievalException failure = new ValueRetrievalException(key, valueLoader, e);
+            flight.completeExceptionally(failure);
+            throw failure;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ValueRetrievalException retrievalException) {
+                throw retrievalException;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    private boolean shouldRefreshEarly(CacheEntry entry) {
+        if (beta <= 0 || entry.getComputeMillis() <= 0) {
+            return false;
+        }
+        double gap = -entry.getComputeMillis() * beta * Math.log(ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gap >= entry.getExpiresAtMillis();
+    }
+
+    private Counter counter(MeterRegistry registry, String name, String tagKey, String tagValue) {
+        return Counter.builder(name)
+                .tag("cache", delegate.getName())
+                .tag(tagKey, tagValue)
+                .register(registry);
+    }
+
+    private static Object unwrap(Object stored) {
+        // Entries written before this decorator was introduced are stored unwrapped
+        return stored instanceof CacheEntry entry ? entry.getValue() : stored;
+    }
+}
@@ -0,0 +1,51 @@
+package com.inventory.inventoryservice.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps every cache of the underlying manager in a {@link SingleFlightCache}.
+ */
+public class SingleFlightCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final Map<String, Duration> ttls;
+    private final Duration defaultTtl;
+    private final double beta;
+    private final MeterRegistry registry;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public SingleFlightCacheManager(CacheManager delegate, Map<String, Duration> ttls, Duration defaultTtl, double beta,
+                                    MeterRegistry registry) {
+        this.delegate = delegate;
+        this.ttls = ttls;
+        this.defaultTtl = defaultTtl;
+        this.beta = beta;
+        this.registry = registry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name,
+                key -> new SingleFlightCache(target, ttls.getOrDefault(key, defaultTtl), beta, registry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
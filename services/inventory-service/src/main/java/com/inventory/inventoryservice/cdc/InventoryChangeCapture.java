@@ -0,0 +1,382 @@
+package com.inventory.inventoryservice.cdc;
+
+import com.inventory.inventoryservice.event.InventoryChangeEvent;
+import com.inventory.inventoryservice.event.LowStockAlertEvent;
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import com.inventory.inventoryservice.model.Category;
+import com.inventory.inventoryservice.model.Location;
+import com.inventory.inventoryservice.repository.CategoryRepository;
+import com.inventory.inventoryservice.repository.LocationRepository;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGProperty;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes inventory change and low stock events from the logical replication stream of
+ * {@code inventory_items}, so every committed write of a row is published, whichever code path or SQL
+ * made it, and no request waits for Kafka.
+ *
+ * <p>One stream per shard decodes {@code pgoutput} messages through a replication slot. Events are sent
+ * as changes arrive; at a transaction boundary, once {@code batch-size} events are pending or
+ * {@code flush-interval-ms} has passed, the sends are awaited and the slot is confirmed up to that
+ * commit. A failure reconnects and resumes from the last confirmed commit, so events are published
+ * at least once. A slot serves one consumer at a time: with several instances one streams and the
+ * others keep retrying until it goes away.</p>
+ *
+ * <p>Inserts are published as CREATE, updates as UPDATE and deletes as DELETE; a reservation is an
+ * UPDATE like any other decrement. Stock of bucketed items and of Redis-held SKUs changes outside the
+ * row, so the request path keeps publishing those changes, and the updates that later roll them up
+ * into the row or write them back are skipped here.</p>
+ *
+ * <p>Updates need the previous row for the old quantity, so the partitions of {@code inventory_items}
+ * are switched to {@code REPLICA IDENTITY FULL} on startup while change capture is enabled, and back
+ * to the default identity once it is not.</p>
+ */
+@Component
+public class InventoryChangeCapture {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryChangeCapture.class);
+
+    private static final String INVENTORY_ITEMS = "inventory_items";
+
+    /**
+     * Columns a bucket roll-up may change; an update of a bucketed row touching nothing else is skipped.
+     */
+    private static final Set<String> ROLL_UP_COLUMNS = Set.of("quantity", "updated_at", "version");
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final CategoryRepository categoryRepository;
+    private final LocationRepository locationRepository;
+    private final InventoryMetrics inventoryMetrics;
+    private final Environment env;
+    private final List<Thread> streams = new ArrayList<>();
+
+    @Value("${app.inventory.cdc.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.inventory.cdc.slot-name:inventory_items_cdc}")
+    private String slotName;
+
+    @Value("${app.inventory.cdc.publication:inventory_items_cdc}")
+    private String publication;
+
+    @Value("${app.inventory.cdc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.inventory.cdc.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.inventory.cdc.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    @Value("${app.inventory.cdc.reconnect-backoff-ms:5000}")
+    private long reconnectBackoffMs;
+
+    @Value("${app.kafka.topics.inventory-changes}")
+    private String inventoryChangesTopic;
+
+    @Value("${app.kafka.topics.low-stock-alerts}")
+    private String lowStockAlertsTopic;
+
+    private volatile boolean running;
+
+    public InventoryChangeCapture(KafkaTemplate<String, Object> kafkaTemplate,
+                                  CategoryRepository categoryRepository,
+                                  LocationRepository locationRepository,
+                                  InventoryMetrics inventoryMetrics,
+                                  Environment env) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.categoryRepository = categoryRepository;
+        this.locationRepository = locationRepository;
+        this.inventoryMetrics = inventoryMetrics;
+        this.env = env;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<String> shardUrls = new ArrayList<>();
+        shardUrls.add(env.getProperty("spring.datasource.url"));
+        for (String url : env.getProperty("app.datasource.shards", String[].class, new String[0])) {
+            if (!url.isBlank()) {
+                shardUrls.add(url.trim());
+            }
+        }
+        for (int shard = 0; shard < shardUrls.size(); shard++) {
+            setReplicaIdentity(shard, shardUrls.get(shard));
+        }
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int shard = 0; shard < shardUrls.size(); shard++) {
+            int streamShard = shard;
+            String url = shardUrls.get(shard);
+            streams.add(Thread.ofPlatform().daemon().name("inventory-cdc-" + shard)
+                    .start(() -> streamShard(streamShard, url)));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        streams.forEach(Thread::interrupt);
+    }
+
+    private void streamShard(int shard, String url) {
+        while (running) {
+            try {
+                stream(shard, url);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Change capture on shard {} stopped, reconnecting in {} ms: {}", shard, reconnectBackoffMs, e.getMessage());
+                try {
+                    Thread.sleep(reconnectBackoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void stream(int shard, String url) throws Exception {
+        try (Connection connection = replicationConnection(url)) {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            ensureSlot(connection, pgConnection);
+
+            try (PGReplicationStream stream = pgConnection.getReplicationAPI()
+                    .replicationStream()
+                    .logical()
+                    .withSlotName(slotName)
+                    .withSlotOption("proto_version", 1)
+                    .withSlotOption("publication_names", publication)
+                    .withStatusInterval(10, TimeUnit.SECONDS)
+                    .start()) {
+                logger.info("Capturing inventory changes on shard {} through slot {}", shard, slotName);
+                PgOutputDecoder decoder = new PgOutputDecoder();
+                PendingBatch batch = new PendingBatch();
+
+                while (running) {
+                    ByteBuffer message = stream.readPending();
+                    if (message == null) {
+                        if (batch.isDue()) {
+                            flush(stream, batch);
+                        }
+                        TimeUnit.MILLISECONDS.sleep(10);
+                        continue;
+                    }
+                    if (PgOutputDecoder.isCommit(message)) {
+                        batch.committedLsn = stream.getLastReceiveLSN();
+                        if (batch.sends.size() >= batchSize || batch.isDue()) {
+                            flush(stream, batch);
+                        }
+                        continue;
+                    }
+                    RowChange change = decoder.decode(message);
+                    if (change != null && INVENTORY_ITEMS.equals(change.getTable()) && !publishedByRequest(change)) {
+                        publish(change, batch);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Switches the partitions of the shard to full replica identity while change capture is enabled and
+     * back to the default one otherwise. Partitions already in the wanted state are not altered.
+     */
+    private void setReplicaIdentity(int shard, String url) {
+        try (Connection connection = DriverManager.getConnection(url,
+                env.getProperty("spring.datasource.username"), env.getProperty("spring.datasource.password"));
+             PreparedStatement statement = connection.prepareStatement("SELECT set_inventory_replica_identity(?)")) {
+            statement.setBoolean(1, enabled);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next() && resultSet.getInt(1) > 0) {
+                    logger.info("Set {} replica identity on {} partitions of shard {}",
+                            enabled ? "full" : "default", resultSet.getInt(1), shard);
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not set the replica identity on shard {}: {}", shard, e.getMessage());
+        }
+    }
+
+    private Connection replicationConnection(String url) throws SQLException {
+        Properties properties = new Properties();
+        PGProperty.USER.set(properties, env.getProperty("spring.datasource.username"));
+        PGProperty.PASSWORD.set(properties, env.getProperty("spring.datasource.password"));
+        PGProperty.REPLICATION.set(properties, "database");
+        PGProperty.ASSUME_MIN_SERVER_VERSION.set(properties, "10");
+        PGProperty.PREFER_QUERY_MODE.set(properties, "simple");
+        return DriverManager.getConnection(url, properties);
+    }
+
+    private void ensureSlot(Connection connection, PGConnection pgConnection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM pg_replication_slots WHERE slot_name = ?")) {
+            statement.setString(1, slotName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return;
+                }
+            }
+        }
+        pgConnection.getReplicationAPI()
+                .createReplicationSlot()
+                .logical()
+                .withSlotName(slotName)
+                .withOutputPlugin("pgoutput")
+                .make();
+        logger.info("Created replication slot {}", slotName);
+    }
+
+    private void flush(PGReplicationStream stream, PendingBatch batch) throws Exception {
+        if (batch.committedLsn == null) {
+            return;
+        }
+        CompletableFuture.allOf(batch.sends.toArray(CompletableFuture[]::new)).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+
+        // Everything up to this commit is in Kafka, so the slot may release the WAL before it
+        stream.setFlushedLSN(batch.committedLsn);
+        stream.setAppliedLSN(batch.committedLsn);
+        stream.forceUpdateStatus();
+        inventoryMetrics.changesCaptured(batch.sends.size());
+        batch.reset();
+    }
+
+    private void publish(RowChange change, PendingBatch batch) {
+        RowChange.Operation operation = change.getOperation();
+        Map<String, String> row = operation == RowChange.Operation.DELETE ? change.getOldValues() : change.getNewValues();
+        Map<String, String> old = change.getOldValues();
+
+        Long itemId = longValue(row, "id");
+        String sku = row.get("sku");
+        Long categoryId = longValue(row, "category_id");
+        Long locationId = longValue(row, "location_id");
+        Integer threshold = intValue(row, "threshold");
+        Integer newQuantity = operation == RowChange.Operation.DELETE ? 0 : intValue(row, "quantity");
+        Integer oldQuantity = operation == RowChange.Operation.INSERT ? 0 : old != null ? intValue(old, "quantity") : null;
+        String changeType = switch (operation) {
+            case INSERT -> "CREATE";
+            case UPDATE -> "UPDATE";
+            case DELETE -> "DELETE";
+        };
+        String categoryName = batch.categoryNames.computeIfAbsent(categoryId,
+                id -> categoryRepository.findById(id).map(Category::getName).orElse(null));
+        String locationName = batch.locationNames.computeIfAbsent(locationId,
+                id -> locationRepository.findById(id).map(Location::getName).orElse(null));
+
+        InventoryChangeEvent changeEvent = new InventoryChangeEvent(itemId, sku, row.get("name"), categoryId, categoryName,
+                locationId, locationName, oldQuantity, newQuantity, threshold, changeType);
+        changeEvent.setTimestamp(change.getCommittedAt());
+        batch.sends.add(send(inventoryChangesTopic, sku, changeEvent));
+
+        boolean lowStock = operation != RowChange.Operation.DELETE && threshold != null && newQuantity <= threshold;
+        Integer oldThreshold = old != null ? intValue(old, "threshold") : null;
+        boolean stockChanged = !Objects.equals(oldQuantity, newQuantity) || !Objects.equals(oldThreshold, threshold);
+        if (lowStock && stockChanged) {
+            boolean wasLowStock = oldQuantity != null && oldThreshold != null && oldQuantity <= oldThreshold;
+            LowStockAlertEvent alertEvent = new LowStockAlertEvent(itemId, sku, row.get("name"), categoryId, categoryName,
+                    locationId, locationName, newQuantity, threshold, wasLowStock ? "CONTINUED" : "NEW", changeType);
+            alertEvent.setTimestamp(change.getCommittedAt());
+            batch.sends.add(send(lowStockAlertsTopic, sku, alertEvent));
+        }
+    }
+
+    /**
+     * Whether the change only carries into the row what the request path already published: a roll-up
+     * of a bucketed item's stock buckets or a write-back of Redis-held stock. Without the previous row
+     * this cannot be told, and the change is published.
+     */
+    private static boolean publishedByRequest(RowChange change) {
+        Map<String, String> old = change.getOldValues();
+        if (change.getOperation() != RowChange.Operation.UPDATE || old == null) {
+            return false;
+        }
+        Map<String, String> row = change.getNewValues();
+        if (!Objects.equals(old.get("stock_sequence"), row.get("stock_sequence"))) {
+            return true;
+        }
+        if (row.get("bucket_count") == null || old.get("bucket_count") == null) {
+            return false;
+        }
+        for (Map.Entry<String, String> column : row.entrySet()) {
+            if (!ROLL_UP_COLUMNS.contains(column.getKey()) && !Objects.equals(column.getValue(), old.get(column.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private CompletableFuture<?> send(String topic, String key, Object event) {
+        Timer.Sample sample = inventoryMetrics.startKafkaSend();
+        return kafkaTemplate.send(topic, key, event)
+                .whenComplete((result, ex) -> inventoryMetrics.stopKafkaSend(sample, topic, ex == null));
+    }
+
+    private static Long longValue(Map<String, String> row, String column) {
+        String value = row.get(column);
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+    private static Integer intValue(Map<String, String> row, String column) {
+        String value = row.get(column);
+        return value != null ? Integer.valueOf(value) : null;
+    }
+
+    /**
+     * Events sent since the slot was last confirmed. Names are looked up once per batch.
+     */
+    private class PendingBatch {
+
+        private final List<CompletableFuture<?>> sends = new ArrayList<>();
+        private final Map<Long, String> categoryNames = new HashMap<>();
+        private final Map<Long, String> locationNames = new HashMap<>();
+        private LogSequenceNumber committedLsn;
+        private long startedAt = System.currentTimeMillis();
+
+        private boolean isDue() {
+            return committedLsn != null && System.currentTimeMillis() - startedAt >= flushIntervalMs;
+        }
+
+        private void reset() {
+            sends.clear();
+            categoryNames.clear();
+            locationNames.clear();
+            committedLsn = null;
+            startedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.inventory.inventoryservice.cdc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decodes messages of the {@code pgoutput} logical decoding plugin, protocol version 1.
+ *
+ * <p>Relation messages describing the columns of a table precede the first change of that table in a
+ * session and are remembered here, so one decoder must see every message of a stream in order.
+ * Messages other than row changes only update that state.</p>
+ */
+class PgOutputDecoder {
+
+    private static final Instant POSTGRES_EPOCH = Instant.parse("2000-01-01T00:00:00Z");
+
+    private final Map<Integer, Relation> relations = new HashMap<>();
+    private LocalDateTime committedAt;
+
+    /**
+     * Whether the message ends a transaction, after which everything received so far is complete
+     */
+    static boolean isCommit(ByteBuffer message) {
+        return message.get(message.position()) == 'C';
+    }
+
+    /**
+     * Decode a message
+     * @param message The message, positioned at its type byte
+     * @return The row change, or null if the message is not a row change
+     */
+    RowChange decode(ByteBuffer message) {
+        byte type = message.get();
+        switch (type) {
+            case 'B' -> {
+                message.getLong(); // final LSN of the transaction
+                committedAt = toLocalDateTime(message.getLong());
+                return null;
+            }
+            case 'R' -> {
+                readRelation(message);
+                return null;
+            }
+            case 'I' -> {
+                Relation relation = relations.get(message.getInt());
+                message.get(); // 'N'
+                return new RowChange(relation.name, RowChange.Operation.INSERT, null, readTuple(message, relation), committedAt);
+            }
+            case 'U' -> {
+                Relation relation = relations.get(message.getInt());
+                Map<String, String> oldValues = null;
+                byte tuple = message.get();
+                if (tuple == 'K' || tuple == 'O') {
+                    oldValues = readTuple(message, relation);
+                    message.get(); // 'N'
+                }
+                Map<String, String> newValues = readTuple(message, relation);
+                if (oldValues != null) {
+                    // Unchanged TOASTed values are not sent again
+                    oldValues.forEach(newValues::putIfAbsent);
+                }
+                return new RowChange(relation.name, RowChange.Operation.UPDATE, oldValues, newValues, committedAt);
+            }
+            case 'D' -> {
+                Relation relation = relations.get(message.getInt());
+                message.get(); // 'K' or 'O'
+                return new RowChange(relation.name, RowChange.Operation.DELETE, readTuple(message, relation), null, committedAt);
+            }
+            default -> {
+                // Commit, origin, type and truncate messages carry nothing to publish
+                return null;
+            }
+        }
+    }
+
+    private void readRelation(ByteBuffer message) {
+        int id = message.getInt();
+        readString(message); // namespace
+        String name = readString(message);
+        message.get(); // replica identity setting
+        String[] columns = new String[message.getShort()];
+        for (int i = 0; i < columns.length; i++) {
+            message.get(); // flags
+            columns[i] = readString(message);
+            message.getInt(); // type OID
+            message.getInt(); // type modifier
+        }
+        relations.put(id, new Relation(name, columns));
+    }
+
+    private Map<String, String> readTuple(ByteBuffer message, Relation relation) {
+        int count = message.getShort();
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            byte kind = message.get();
+            if (kind == 't') {
+                byte[] value = new byte[message.getInt()];
+                message.get(value);
+                values.put(relation.columns[i], new String(value, StandardCharsets.UTF_8));
+            } else if (kind == 'n') {
+                values.put(relation.columns[i], null);
+            }
+            // 'u': an unchanged TOASTed value that was not sent
+        }
+        return values;
+    }
+
+    private static String readString(ByteBuffer message) {
+        int start = message.position();
+        while (message.get() != 0) {
+            // scan to the terminating zero byte
+        }
+        byte[] value = new byte[message.position() - start - 1];
+        message.get(start, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDateTime toLocalDateTime(long postgresMicros) {
+        return LocalDateTime.ofInstant(POSTGRES_EPOCH.plus(postgresMicros, ChronoUnit.MICROS), ZoneId.systemDefault());
+    }
+
+    private record Relation(String name, String[] columns) {
+    }
+}
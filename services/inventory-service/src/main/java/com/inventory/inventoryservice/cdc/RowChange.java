@@ -0,0 +1,56 @@
+package com.inventory.inventoryservice.cdc;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * One committed row change read from the logical replication stream, with column values in their
+ * text representation.
+ */
+public class RowChange {
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final String table;
+    private final Operation operation;
+    private final Map<String, String> oldValues;
+    private final Map<String, String> newValues;
+    private final LocalDateTime committedAt;
+
+    public RowChange(String table, Operation operation, Map<String, String> oldValues, Map<String, String> newValues,
+                     LocalDateTime committedAt) {
+        this.table = table;
+        this.operation = operation;
+        this.oldValues = oldValues;
+        this.newValues = newValues;
+        this.committedAt = committedAt;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return The row before an update or delete, or null if the table's replica identity does not include it
+     */
+    public Map<String, String> getOldValues() {
+        return oldValues;
+    }
+
+    /**
+     * @return The row after an insert or update, or null for a delete
+     */
+    public Map<String, String> getNewValues() {
+        return newValues;
+    }
+
+    public LocalDateTime getCommittedAt() {
+        return committedAt;
+    }
+}
@@ -0,0 +1,28 @@
+package com.inventory.inventoryservice.concurrency;
+
+/**
+ * How quantity mutations protect an inventory row against concurrent writers.
+ */
+public enum ConcurrencyMode {
+
+    /**
+     * Check stock and apply the change in a single conditional {@code UPDATE ... RETURNING},
+     * so the row lock is held only for the statement itself.
+     */
+    ATOMIC,
+
+    /**
+     * Read without a lock and rely on the {@code @Version} check, retrying on conflict.
+     */
+    OPTIMISTIC,
+
+    /**
+     * Take a {@code SELECT ... FOR UPDATE} row lock for the duration of the transaction.
+     */
+    PESSIMISTIC,
+
+    /**
+     * Optimistic by default, switching to pessimistic for SKUs with a high observed conflict rate.
+     */
+    AUTO
+}
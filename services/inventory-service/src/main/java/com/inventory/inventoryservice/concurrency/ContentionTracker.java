@@ -0,0 +1,55 @@
+package com.inventory.inventoryservice.concurrency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps an exponentially weighted conflict rate per SKU so {@link ConcurrencyMode#AUTO}
+ * only pays for row locks on SKUs that actually see concurrent writers.
+ */
+@Component
+public class ContentionTracker {
+
+    private static final double ALPHA = 0.1;
+    private static final double FORGET_BELOW = 0.01;
+
+    private final ConcurrentHashMap<String, Double> conflictRates = new ConcurrentHashMap<>();
+
+    @Value("${app.inventory.concurrency.conflict-threshold:0.2}")
+    private double conflictThreshold;
+
+    public ContentionTracker(MeterRegistry registry) {
+        Gauge.builder("inventory.concurrency.contended.skus", this, ContentionTracker::contendedCount)
+                .description("SKUs currently written under a row lock in AUTO mode")
+                .register(registry);
+    }
+
+    public boolean isContended(String sku) {
+        Double rate = conflictRates.get(sku);
+        return rate != null && rate > conflictThreshold;
+    }
+
+    public void recordConflict(String sku) {
+        conflictRates.merge(sku, ALPHA, (rate, ignored) -> rate * (1 - ALPHA) + ALPHA);
+    }
+
+    /**
+     * Records a write that went through without conflict. Writes under a row lock cannot observe
+     * conflicts, so they decay the rate more slowly to avoid flapping between modes.
+     */
+    public void recordSuccess(String sku, boolean locked) {
+        double decay = locked ? ALPHA / 4 : ALPHA;
+        conflictRates.computeIfPresent(sku, (key, rate) -> {
+            double next = rate * (1 - decay);
+            return next < FORGET_BELOW ? null : next;
+        });
+    }
+
+    public int contendedCount() {
+        return (int) conflictRates.values().stream().filter(rate -> rate > conflictThreshold).count();
+    }
+}
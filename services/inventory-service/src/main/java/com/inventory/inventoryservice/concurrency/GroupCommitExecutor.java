@@ -0,0 +1,482 @@
+package com.inventory.inventoryservice.concurrency;
+
+import com.inventory.inventoryservice.datasource.ReadYourWrites;
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import com.inventory.inventoryservice.model.InventoryItem;
+import com.inventory.inventoryservice.repository.InventoryItemRepository;
+import com.inventory.inventoryservice.service.CollectionVersionService;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies quantity changes by item ID in small groups, so a burst of changes shares one transaction
+ * and one commit instead of paying for a commit each.
+ *
+ * <p>A single drainer thread collects changes for up to {@code window-micros} or {@code max-batch-size}
+ * changes and applies each change in arrival order, so every caller gets its own accept or reject
+ * decision, using the configured {@link ConcurrencyMode}: in {@link ConcurrencyMode#ATOMIC} mode each
+ * change is one conditional update; otherwise the rows are read, unlocked or locked in ID order as the
+ * mode says, and written back in one JDBC batch. A version conflict retries the group, the last
+ * attempt under row locks. If a group still fails before it commits, each of its items is retried on
+ * its own, so one bad row only fails its own changes. A group that has committed is never retried,
+ * even if work after its commit fails.</p>
+ *
+ * <p>Callers block until their group has committed, for at most {@code wait-timeout-ms} while their
+ * change is still queued. Items whose stock is split into buckets are not grouped; for those, when the
+ * queue is full and when the wait times out before the change was picked up, {@link #apply(Long, int)}
+ * returns null and the caller applies the change itself.</p>
+ */
+@Component
+public class GroupCommitExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitExecutor.class);
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final CollectionVersionService collectionVersionService;
+    private final ContentionTracker contentionTracker;
+    private final InventoryMetrics inventoryMetrics;
+    private final ReadYourWrites readYourWrites;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingChange> queue;
+    private final boolean enabled;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final long waitTimeoutMs;
+    private final Thread drainer;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.inventory.concurrency.mode:ATOMIC}")
+    private ConcurrencyMode mode;
+
+    @Value("${app.inventory.concurrency.max-attempts:4}")
+    private int maxAttempts;
+
+    private volatile boolean running = true;
+
+    public GroupCommitExecutor(InventoryItemRepository inventoryItemRepository,
+                               CollectionVersionService collectionVersionService,
+                               ContentionTracker contentionTracker,
+                               InventoryMetrics inventoryMetrics,
+                               ReadYourWrites readYourWrites,
+                               ShardRouter shardRouter,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.inventory.group-commit.enabled:true}") boolean enabled,
+                               @Value("${app.inventory.group-commit.window-micros:500}") long windowMicros,
+                               @Value("${app.inventory.group-commit.max-batch-size:256}") int maxBatchSize,
+                               @Value("${app.inventory.group-commit.queue-capacity:10000}") int queueCapacity,
+                               @Value("${app.inventory.group-commit.wait-timeout-ms:2000}") long waitTimeoutMs) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.collectionVersionService = collectionVersionService;
+        this.contentionTracker = contentionTracker;
+        this.inventoryMetrics = inventoryMetrics;
+        this.readYourWrites = readYourWrites;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Once a change is picked up its caller waits for the commit, so the commit is bounded too
+        this.transactionTemplate.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitTimeoutMs)));
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.enabled = enabled;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.drainer = enabled ? Thread.ofPlatform().daemon().name("inventory-group-commit").start(this::drain) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Apply a quantity change to the item with the given ID as part of the next group commit
+     * @param id The ID of the inventory item
+     * @param quantityChange The change in quantity (positive for increment, negative for decrement)
+     * @return The result once committed; not applied if the quantity would drop below zero.
+     * Null if the change was not grouped and must be applied by the caller
+     * @throws EntityNotFoundException if no item has the given ID
+     * @throws IllegalStateException if the group the change was taken into did not finish in time
+     */
+    public StockMutationResult apply(Long id, int quantityChange) {
+        PendingChange change = new PendingChange(id, quantityChange);
+        if (!running || !queue.offer(change)) {
+            return null;
+        }
+        StockMutationResult result = await(change);
+        if (result != null && result.isApplied()) {
+            // The commit happened on the drainer thread, outside this request
+            readYourWrites.writeCommitted(change.commitToken);
+        }
+        return result;
+    }
+
+    private StockMutationResult await(PendingChange change) {
+        try {
+            try {
+                return change.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (change.abandon()) {
+                    // Never picked up, so it cannot be applied twice
+                    queue.remove(change);
+                    return null;
+                }
+                // Picked up: the commit is under way and bounded by the transaction timeout
+                return change.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Group commit of a quantity change to item " + change.itemId + " did not finish in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the group commit of item " + change.itemId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (drainer != null) {
+            drainer.interrupt();
+        }
+        // Anything still queued is handed back to its caller
+        List<PendingChange> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(change -> change.result.complete(null));
+    }
+
+    private void drain() {
+        List<PendingChange> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                take(batch, queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(windowMicros);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingChange next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    take(batch, next);
+                }
+                if (!batch.isEmpty()) {
+                    commit(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(change -> change.result.complete(null));
+                return;
+            } catch (Exception e) {
+                logger.error("Group commit of {} quantity changes failed", batch.size(), e);
+                batch.forEach(change -> change.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static void take(List<PendingChange> batch, PendingChange change) {
+        // A caller that gave up waiting applies the change itself
+        if (change.pickUp()) {
+            batch.add(change);
+        }
+    }
+
+    private void commit(List<PendingChange> batch) {
+        Map<Integer, Map<Long, List<PendingChange>>> byShard = new TreeMap<>();
+        for (PendingChange change : batch) {
+            byShard.computeIfAbsent(shardRouter.shardForItem(change.itemId), shard -> new LinkedHashMap<>())
+                    .computeIfAbsent(change.itemId, id -> new ArrayList<>()).add(change);
+        }
+
+        // Each shard commits on its own, so a failing shard only fails its own changes
+        byShard.forEach(this::commitShard);
+
+        inventoryMetrics.groupCommitted(batch.size());
+        for (PendingChange change : batch) {
+            if (change.result.isDone()) {
+                continue;
+            }
+            if (change.item == null) {
+                change.result.completeExceptionally(new EntityNotFoundException("Inventory item not found with id: " + change.itemId));
+                continue;
+            }
+            change.result.complete(switch (change.outcome) {
+                case SKIPPED -> null;
+                case REJECTED -> new StockMutationResult(change.item.withQuantity(change.oldQuantity), change.oldQuantity, false);
+                case APPLIED -> new StockMutationResult(change.item.withQuantity(change.newQuantity), change.oldQuantity, true);
+            });
+        }
+    }
+
+    private void commitShard(int shard, Map<Long, List<PendingChange>> byItem) {
+        AtomicBoolean committed = new AtomicBoolean();
+        try {
+            runCapturingCommit(shard, byItem, committed);
+            return;
+        } catch (Exception e) {
+            if (committed.get()) {
+                // The changes are in; applying them again would apply them twice
+                logger.warn("Quantity changes to {} items on shard {} committed, but work after the commit failed: {}",
+                        byItem.size(), shard, e.getMessage());
+                return;
+            }
+            if (byItem.size() == 1) {
+                logger.error("Group commit of quantity changes to item {} on shard {} failed", byItem.keySet(), shard, e);
+                byItem.values().forEach(changes -> changes.forEach(change -> change.result.completeExceptionally(e)));
+                return;
+            }
+            logger.warn("Group commit of {} items on shard {} failed, retrying each on its own: {}", byItem.size(), shard, e.getMessage());
+        }
+
+        byItem.forEach((id, changes) -> {
+            AtomicBoolean itemCommitted = new AtomicBoolean();
+            try {
+                runCapturingCommit(shard, Map.of(id, changes), itemCommitted);
+            } catch (Exception e) {
+                if (itemCommitted.get()) {
+                    logger.warn("Quantity changes to item {} on shard {} committed, but work after the commit failed: {}",
+                            id, shard, e.getMessage());
+                    return;
+                }
+                logger.error("Quantity changes to item {} on shard {} failed", id, shard, e);
+                changes.forEach(change -> change.result.completeExceptionally(e));
+            }
+        });
+    }
+
+    /**
+     * Commit the changes and hand each of them the read-your-writes token of the commit
+     */
+    private void runCapturingCommit(int shard, Map<Long, List<PendingChange>> byItem, AtomicBoolean committed) {
+        readYourWrites.beginCapture();
+        try {
+            shardRouter.runOnShard(shard, () -> commitWithRetries(byItem, committed));
+        } finally {
+            String token = readYourWrites.endCapture();
+            byItem.values().forEach(changes -> changes.forEach(change -> change.commitToken = token));
+        }
+    }
+
+    /**
+     * @param committed Set once a transaction of the changes has committed, whatever fails after that
+     */
+    private void commitWithRetries(Map<Long, List<PendingChange>> byItem, AtomicBoolean committed) {
+        if (mode == ConcurrencyMode.ATOMIC) {
+            transactionTemplate.executeWithoutResult(status -> {
+                flagCommit(committed);
+                commitAtomically(byItem);
+            });
+            return;
+        }
+        // No backoff between attempts: the drainer would hold up every queued change meanwhile
+        for (int attempt = 1; ; attempt++) {
+            ConcurrencyMode attemptMode = attempt < maxAttempts ? mode : ConcurrencyMode.PESSIMISTIC;
+            if (attemptMode != mode) {
+                inventoryMetrics.pessimisticFallback();
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    flagCommit(committed);
+                    commitGroup(byItem, attemptMode);
+                });
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                inventoryMetrics.optimisticConflict();
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                logger.debug("Version conflict in group commit of {} items, retrying (attempt {})", byItem.size(), attempt);
+                inventoryMetrics.optimisticRetry();
+            }
+        }
+    }
+
+    private static void flagCommit(AtomicBoolean committed) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Runs even when an afterCommit callback of another synchronization has thrown
+                if (status == STATUS_COMMITTED) {
+                    committed.set(true);
+                }
+            }
+        });
+    }
+
+    /**
+     * Apply each change as its own conditional update, in item ID order and then in arrival order
+     */
+    private void commitAtomically(Map<Long, List<PendingChange>> byItem) {
+        for (Long id : new TreeMap<>(byItem).keySet()) {
+            List<PendingChange> changes = byItem.get(id);
+            changes.forEach(PendingChange::reset);
+            InventoryItem updated = null;
+            Integer firstOldQuantity = null;
+
+            for (PendingChange change : changes) {
+                Optional<InventoryItem> result = inventoryItemRepository.adjustQuantityById(id, change.quantityChange);
+                if (result.isPresent()) {
+                    updated = result.get();
+                    change.item = updated;
+                    change.newQuantity = updated.getQuantity();
+                    change.oldQuantity = updated.getQuantity() - change.quantityChange;
+                    change.outcome = Outcome.APPLIED;
+                    if (firstOldQuantity == null) {
+                        firstOldQuantity = change.oldQuantity;
+                    }
+                    continue;
+                }
+                // Nothing was updated: only now pay for a read to tell a missing or bucketed item from insufficient stock
+                InventoryItem current = inventoryItemRepository.findById(id).orElse(null);
+                if (current == null) {
+                    break;
+                }
+                change.item = current;
+                change.oldQuantity = current.getQuantity();
+                change.newQuantity = current.getQuantity();
+                change.outcome = current.isBucketed() ? Outcome.SKIPPED : Outcome.REJECTED;
+            }
+
+            if (updated != null) {
+                boolean wasLowStock = updated.getThreshold() != null && firstOldQuantity <= updated.getThreshold();
+                collectionVersionService.itemChanged(updated, wasLowStock || updated.isLowStock());
+            }
+        }
+    }
+
+    private void commitGroup(Map<Long, List<PendingChange>> byItem, ConcurrencyMode attemptMode) {
+        boolean locked = attemptMode == ConcurrencyMode.PESSIMISTIC;
+        List<InventoryItem> items = new ArrayList<>(locked
+                ? inventoryItemRepository.findAllByIdWithLock(byItem.keySet())
+                : inventoryItemRepository.findAllById(byItem.keySet()));
+        items.sort(Comparator.comparing(InventoryItem::getId));
+        byItem.values().forEach(changes -> changes.forEach(PendingChange::reset));
+
+        List<InventoryItem> changed = new ArrayList<>(items.size());
+        Map<Long, Boolean> lowStockAffected = new HashMap<>();
+        Map<Long, Boolean> lockedItems = new HashMap<>();
+
+        for (InventoryItem item : items) {
+            boolean itemLocked = locked;
+            if (attemptMode == ConcurrencyMode.AUTO && !item.isBucketed() && contentionTracker.isContended(item.getSku())) {
+                entityManager.refresh(item, LockModeType.PESSIMISTIC_WRITE);
+                itemLocked = true;
+            }
+            lockedItems.put(item.getId(), itemLocked);
+
+            boolean wasLowStock = item.isLowStock();
+            int quantity = item.getQuantity();
+            for (PendingChange change : byItem.get(item.getId())) {
+                change.item = item;
+                change.oldQuantity = quantity;
+                if (item.isBucketed()) {
+                    change.outcome = Outcome.SKIPPED;
+                } else if (quantity + change.quantityChange < 0) {
+                    change.outcome = Outcome.REJECTED;
+                } else {
+                    quantity += change.quantityChange;
+                    change.outcome = Outcome.APPLIED;
+                }
+                change.newQuantity = quantity;
+            }
+            if (quantity != item.getQuantity()) {
+                item.setQuantity(quantity);
+                item.setUpdatedAt(LocalDateTime.now());
+                changed.add(item);
+                lowStockAffected.put(item.getId(), wasLowStock || item.isLowStock());
+            }
+        }
+
+        // One flush writes every changed row in a single JDBC batch and bumps the versions
+        try {
+            inventoryItemRepository.saveAllAndFlush(changed);
+        } catch (OptimisticLockingFailureException e) {
+            changed.forEach(item -> contentionTracker.recordConflict(item.getSku()));
+            throw e;
+        }
+        changed.forEach(item -> {
+            contentionTracker.recordSuccess(item.getSku(), lockedItems.get(item.getId()));
+            collectionVersionService.itemChanged(item, lowStockAffected.get(item.getId()));
+        });
+    }
+
+    private enum Outcome {
+        SKIPPED,
+        REJECTED,
+        APPLIED
+    }
+
+    private static final class PendingChange {
+
+        private static final int QUEUED = 0;
+        private static final int PICKED_UP = 1;
+        private static final int ABANDONED = 2;
+
+        private final Long itemId;
+        private final int quantityChange;
+        private final CompletableFuture<StockMutationResult> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private InventoryItem item;
+        private Outcome outcome;
+        private int oldQuantity;
+        private int newQuantity;
+        private String commitToken;
+
+        private PendingChange(Long itemId, int quantityChange) {
+            this.itemId = itemId;
+            this.quantityChange = quantityChange;
+        }
+
+        private boolean pickUp() {
+            return state.compareAndSet(QUEUED, PICKED_UP);
+        }
+
+        private boolean abandon() {
+            return state.compareAndSet(QUEUED, ABANDONED);
+        }
+
+        /**
+         * Forget the decision of an attempt that rolled back
+         */
+        private void reset() {
+            item = null;
+            outcome = null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.inventory.inventoryservice.concurrency;
+
+/**
+ * Published once a quantity change applied away from the request that asked for it has committed,
+ * so it is recorded and published like any other change.
+ */
+public class QuantityChangeApplied {
+
+    private final StockMutationResult result;
+    private final String changeType;
+
+    public QuantityChangeApplied(StockMutationResult result, String changeType) {
+        this.result = result;
+        this.changeType = changeType;
+    }
+
+    public StockMutationResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return The type of change (UPDATE, RESERVATION)
+     */
+    public String getChangeType() {
+        return changeType;
+    }
+}
@@ -0,0 +1,92 @@
+package com.inventory.inventoryservice.concurrency;
+
+import com.inventory.inventoryservice.model.InventoryItem;
+import com.inventory.inventoryservice.model.StockBucket;
+import com.inventory.inventoryservice.repository.InventoryItemRepository;
+import com.inventory.inventoryservice.repository.StockBucketRepository;
+import com.inventory.inventoryservice.service.CollectionVersionService;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Keeps bucketed items healthy in the background: rolls the bucket total up into the item row so
+ * plain reads of the item stay close to the real quantity, and evens out buckets once some have run
+ * low so reservations keep landing on the first bucket they pick.
+ */
+@Component
+public class StockBucketRebalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockBucketRebalancer.class);
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final StockBucketRepository stockBucketRepository;
+    private final StockBuckets stockBuckets;
+    private final CollectionVersionService collectionVersionService;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * A bucket holding less than this fraction of the even share triggers a rebalance
+     */
+    @Value("${app.inventory.stock-buckets.skew-ratio:0.5}")
+    private double skewRatio;
+
+    public StockBucketRebalancer(InventoryItemRepository inventoryItemRepository,
+                                 StockBucketRepository stockBucketRepository,
+                                 StockBuckets stockBuckets,
+                                 CollectionVersionService collectionVersionService,
+                                 ShardRouter shardRouter,
+                                 PlatformTransactionManager transactionManager) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.stockBucketRepository = stockBucketRepository;
+        this.stockBuckets = stockBuckets;
+        this.collectionVersionService = collectionVersionService;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.stock-buckets.rebalance-interval-ms:5000}")
+    public void rebalance() {
+        shardRouter.forEachShard(() -> {
+            for (InventoryItem item : inventoryItemRepository.findByBucketCountIsNotNull()) {
+                try {
+                    rebalance(item);
+                } catch (Exception e) {
+                    logger.warn("Could not rebalance stock buckets of item {}: {}", item.getSku(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void rebalance(InventoryItem item) {
+        List<StockBucket> buckets = stockBucketRepository.findByItemIdOrderByBucketIndex(item.getId());
+        int total = buckets.stream().mapToInt(StockBucket::getQuantity).sum();
+        int smallest = buckets.stream().mapToInt(StockBucket::getQuantity).min().orElse(0);
+        int evenShare = total / item.getBucketCount();
+
+        if (buckets.size() != item.getBucketCount() || (evenShare > 0 && smallest < evenShare * skewRatio)) {
+            transactionTemplate.executeWithoutResult(status ->
+                    stockBuckets.distribute(item.getId(), item.getBucketCount(), stockBuckets.lockAndSum(item.getId())));
+            logger.debug("Rebalanced {} stock buckets of item {}", item.getBucketCount(), item.getSku());
+        }
+
+        if (total != item.getQuantity()) {
+            Integer rolledUp = transactionTemplate.execute(status -> {
+                int current = stockBucketRepository.sumQuantity(item.getId());
+                inventoryItemRepository.rollUpBucketedQuantity(item.getId(), current);
+                return current;
+            });
+            item.setQuantity(rolledUp);
+            // Low stock queries already sum the buckets, so only the plain item lists are affected
+            collectionVersionService.itemChanged(item, false);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.inventory.inventoryservice.concurrency;
+
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import com.inventory.inventoryservice.model.InventoryItem;
+import com.inventory.inventoryservice.model.StockBucket;
+import com.inventory.inventoryservice.repository.StockBucketRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Quantity changes for items whose stock is split across {@link StockBucket} rows.
+ *
+ * <p>A change goes to one randomly chosen bucket with a single conditional update, so concurrent
+ * reservations of the same item mostly touch different rows. A decrement that does not fit the
+ * chosen bucket tries the others, and only if no single bucket can cover it are the buckets
+ * locked and drained together. All methods must run inside a transaction.</p>
+ */
+@Component
+public class StockBuckets {
+
+    private final StockBucketRepository stockBucketRepository;
+    private final InventoryMetrics inventoryMetrics;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public StockBuckets(StockBucketRepository stockBucketRepository, InventoryMetrics inventoryMetrics) {
+        this.stockBucketRepository = stockBucketRepository;
+        this.inventoryMetrics = inventoryMetrics;
+    }
+
+    /**
+     * Apply a quantity change to a bucketed item
+     * @param item The inventory item; it is detached from the persistence context so its quantity can carry the bucket total
+     * @param quantityChange The change in quantity (positive for increment, negative for decrement)
+     * @return The result, with the item holding the total across buckets
+     */
+    public StockMutationResult apply(InventoryItem item, int quantityChange) {
+        int bucketCount = item.getBucketCount();
+        int start = ThreadLocalRandom.current().nextInt(bucketCount);
+
+        boolean applied = false;
+        for (int i = 0; i < bucketCount && !applied; i++) {
+            applied = stockBucketRepository.adjustQuantity(item.getId(), (start + i) % bucketCount, quantityChange) > 0;
+            if (!applied) {
+                inventoryMetrics.bucketMiss();
+            }
+        }
+        if (!applied) {
+            applied = drainAcross(item.getId(), -quantityChange);
+        }
+
+        int total = stockBucketRepository.sumQuantity(item.getId());
+        entityManager.detach(item);
+        item.setQuantity(total);
+        return new StockMutationResult(item, applied ? total - quantityChange : total, applied);
+    }
+
+    /**
+     * Split the given quantity evenly across the given number of buckets, replacing any existing buckets
+     * @param itemId The ID of the inventory item
+     * @param bucketCount The number of buckets
+     * @param quantity The total quantity to distribute
+     */
+    public void distribute(Long itemId, int bucketCount, int quantity) {
+        List<StockBucket> buckets = stockBucketRepository.findByItemIdWithLock(itemId);
+        if (buckets.size() != bucketCount) {
+            stockBucketRepository.deleteAll(buckets);
+            stockBucketRepository.flush();
+            buckets = new ArrayList<>(bucketCount);
+            for (int i = 0; i < bucketCount; i++) {
+                buckets.add(new StockBucket(itemId, i, 0));
+            }
+        }
+        for (StockBucket bucket : buckets) {
+            int index = bucket.getBucketIndex();
+            bucket.setQuantity(quantity / bucketCount + (index < quantity % bucketCount ? 1 : 0));
+        }
+        stockBucketRepository.saveAll(buckets);
+    }
+
+    /**
+     * Lock the buckets of an item and sum them
+     * @param itemId The ID of the inventory item
+     * @return The total quantity across buckets
+     */
+    public int lockAndSum(Long itemId) {
+        return stockBucketRepository.findByItemIdWithLock(itemId).stream()
+                .mapToInt(StockBucket::getQuantity)
+                .sum();
+    }
+
+    public void remove(Long itemId) {
+        stockBucketRepository.deleteByItemId(itemId);
+    }
+
+    private boolean drainAcross(Long itemId, int requested) {
+        if (requested <= 0) {
+            return false;
+        }
+        // Buckets are locked in index order, so concurrent drains cannot deadlock
+        List<StockBucket> buckets = stockBucketRepository.findByItemIdWithLock(itemId);
+        int total = buckets.stream().mapToInt(StockBucket::getQuantity).sum();
+        if (total < requested) {
+            return false;
+        }
+
+        int remaining = requested;
+        List<StockBucket> largestFirst = new ArrayList<>(buckets);
+        largestFirst.sort(Comparator.comparing(StockBucket::getQuantity).reversed());
+        for (StockBucket bucket : largestFirst) {
+            int taken = Math.min(bucket.getQuantity(), remaining);
+            bucket.setQuantity(bucket.getQuantity() - taken);
+            remaining -= taken;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        stockBucketRepository.saveAllAndFlush(buckets);
+        return true;
+    }
+}
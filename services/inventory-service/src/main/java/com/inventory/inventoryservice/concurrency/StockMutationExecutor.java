@@ -0,0 +1,223 @@
+package com.inventory.inventoryservice.concurrency;
+
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import com.inventory.inventoryservice.model.InventoryItem;
+import com.inventory.inventoryservice.repository.InventoryItemRepository;
+import com.inventory.inventoryservice.service.CollectionVersionService;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Applies quantity changes to inventory items using the configured {@link ConcurrencyMode}.
+ *
+ * <p>In {@link ConcurrencyMode#ATOMIC} mode the stock check and the change are one conditional
+ * statement, so there is nothing to retry.</p>
+ *
+ * <p>Optimistic attempts run in their own short transaction and are retried with jittered
+ * exponential backoff on a version conflict; the last attempt always takes a row lock so a
+ * mutation cannot starve. When called inside an existing transaction the mutation cannot be
+ * retried, so it is applied once under a row lock.</p>
+ *
+ * <p>Items whose stock is split into buckets are handed to {@link StockBuckets} once read; in
+ * {@link ConcurrencyMode#PESSIMISTIC} mode that read still locks the item row.</p>
+ */
+@Component
+public class StockMutationExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockMutationExecutor.class);
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final CollectionVersionService collectionVersionService;
+    private final ContentionTracker contentionTracker;
+    private final InventoryMetrics inventoryMetrics;
+    private final StockBuckets stockBuckets;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.inventory.concurrency.mode:ATOMIC}")
+    private ConcurrencyMode mode;
+
+    @Value("${app.inventory.concurrency.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${app.inventory.concurrency.backoff-ms:5}")
+    private long backoffMs;
+
+    public StockMutationExecutor(InventoryItemRepository inventoryItemRepository,
+                                 CollectionVersionService collectionVersionService,
+                                 ContentionTracker contentionTracker,
+                                 InventoryMetrics inventoryMetrics,
+                                 StockBuckets stockBuckets,
+                                 ShardRouter shardRouter,
+                                 PlatformTransactionManager transactionManager) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.collectionVersionService = collectionVersionService;
+        this.contentionTracker = contentionTracker;
+        this.inventoryMetrics = inventoryMetrics;
+        this.stockBuckets = stockBuckets;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Apply a quantity change to the item with the given ID
+     * @param id The ID of the inventory item
+     * @param quantityChange The change in quantity (positive for increment, negative for decrement)
+     * @return The result; not applied if the quantity would drop below zero
+     * @throws EntityNotFoundException if no item has the given ID
+     */
+    public StockMutationResult applyById(Long id, int quantityChange) {
+        return shardRouter.forItem(id, () -> apply(id, null, quantityChange));
+    }
+
+    /**
+     * Apply a quantity change to the item with the given SKU
+     * @param sku The SKU of the inventory item
+     * @param quantityChange The change in quantity (positive for increment, negative for decrement)
+     * @return The result; not applied if the quantity would drop below zero
+     * @throws EntityNotFoundException if no item has the given SKU
+     */
+    public StockMutationResult applyBySku(String sku, int quantityChange) {
+        return shardRouter.forSku(sku, () -> apply(null, sku, quantityChange));
+    }
+
+    private StockMutationResult apply(Long id, String sku, int quantityChange) {
+        if (mode == ConcurrencyMode.ATOMIC) {
+            return transactionTemplate.execute(status -> applyAtomically(id, sku, quantityChange));
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return attempt(id, sku, quantityChange, ConcurrencyMode.PESSIMISTIC);
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            ConcurrencyMode attemptMode = attempt < maxAttempts ? mode : ConcurrencyMode.PESSIMISTIC;
+            if (attemptMode != mode) {
+                inventoryMetrics.pessimisticFallback();
+            }
+            try {
+                return transactionTemplate.execute(status -> attempt(id, sku, quantityChange, attemptMode));
+            } catch (OptimisticLockingFailureException e) {
+                inventoryMetrics.optimisticConflict();
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                logger.debug("Version conflict updating item {}, retrying (attempt {})", id != null ? id : sku, attempt);
+                inventoryMetrics.optimisticRetry();
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    private StockMutationResult attempt(Long id, String sku, int quantityChange, ConcurrencyMode attemptMode) {
+        boolean locked = attemptMode == ConcurrencyMode.PESSIMISTIC;
+        InventoryItem item = locked ? findWithLock(id, sku) : find(id, sku);
+        if (item.isBucketed()) {
+            return applyToBuckets(item, quantityChange);
+        }
+
+        if (attemptMode == ConcurrencyMode.AUTO && contentionTracker.isContended(item.getSku())) {
+            inventoryMetrics.timeLockWaitById(() -> {
+                entityManager.refresh(item, LockModeType.PESSIMISTIC_WRITE);
+                return item;
+            });
+            locked = true;
+        }
+
+        int oldQuantity = item.getQuantity();
+        int newQuantity = oldQuantity + quantityChange;
+        if (newQuantity < 0) {
+            return new StockMutationResult(item, oldQuantity, false);
+        }
+
+        boolean wasLowStock = item.isLowStock();
+        item.setQuantity(newQuantity);
+        item.setUpdatedAt(LocalDateTime.now());
+
+        InventoryItem savedItem;
+        try {
+            savedItem = inventoryItemRepository.saveAndFlush(item);
+        } catch (OptimisticLockingFailureException e) {
+            contentionTracker.recordConflict(item.getSku());
+            throw e;
+        }
+        contentionTracker.recordSuccess(savedItem.getSku(), locked);
+        collectionVersionService.itemChanged(savedItem, wasLowStock || savedItem.isLowStock());
+        return new StockMutationResult(savedItem, oldQuantity, true);
+    }
+
+    private StockMutationResult applyAtomically(Long id, String sku, int quantityChange) {
+        Optional<InventoryItem> updated = id != null
+                ? inventoryItemRepository.adjustQuantityById(id, quantityChange)
+                : inventoryItemRepository.adjustQuantityBySku(sku, quantityChange);
+
+        if (updated.isPresent()) {
+            InventoryItem item = updated.get();
+            int oldQuantity = item.getQuantity() - quantityChange;
+            boolean wasLowStock = item.getThreshold() != null && oldQuantity <= item.getThreshold();
+            collectionVersionService.itemChanged(item, wasLowStock || item.isLowStock());
+            return new StockMutationResult(item, oldQuantity, true);
+        }
+
+        // Nothing was updated: only now pay for a read to tell a missing item from insufficient stock
+        InventoryItem current = find(id, sku);
+        if (current.isBucketed()) {
+            return applyToBuckets(current, quantityChange);
+        }
+        return new StockMutationResult(current, current.getQuantity(), false);
+    }
+
+    private StockMutationResult applyToBuckets(InventoryItem item, int quantityChange) {
+        StockMutationResult result = stockBuckets.apply(item, quantityChange);
+        if (result.isApplied()) {
+            boolean wasLowStock = item.getThreshold() != null && result.getOldQuantity() <= item.getThreshold();
+            collectionVersionService.itemChanged(item, wasLowStock || item.isLowStock());
+        }
+        return result;
+    }
+
+    private InventoryItem find(Long id, String sku) {
+        return (id != null ? inventoryItemRepository.findById(id) : inventoryItemRepository.findBySku(sku))
+                .orElseThrow(() -> notFound(id, sku));
+    }
+
+    private InventoryItem findWithLock(Long id, String sku) {
+        return (id != null
+                ? inventoryMetrics.timeLockWaitById(() -> inventoryItemRepository.findByIdWithLock(id))
+                : inventoryMetrics.timeLockWaitBySku(() -> inventoryItemRepository.findBySkuWithLock(sku)))
+                .orElseThrow(() -> notFound(id, sku));
+    }
+
+    private EntityNotFoundException notFound(Long id, String sku) {
+        return new EntityNotFoundException(id != null
+                ? "Inventory item not found with id: " + id
+                : "Inventory item not found with SKU: " + sku);
+    }
+
+    private void backoff(int attempt, OptimisticLockingFailureException conflict) {
+        long ceiling = backoffMs << (attempt - 1);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.inventory.inventoryservice.concurrency;
+
+import com.inventory.inventoryservice.model.InventoryItem;
+
+/**
+ * Outcome of a quantity mutation.
+ */
+public class StockMutationResult {
+
+    private final InventoryItem item;
+    private final int oldQuantity;
+    private final boolean applied;
+
+    public StockMutationResult(InventoryItem item, int oldQuantity, boolean applied) {
+        this.item = item;
+        this.oldQuantity = oldQuantity;
+        this.applied = applied;
+    }
+
+    /**
+     * @return The inventory item after the mutation, or as read if the mutation was not applied
+     */
+    public InventoryItem getItem() {
+        return item;
+    }
+
+    public int getOldQuantity() {
+        return oldQuantity;
+    }
+
+    /**
+     * @return False if the change would have taken the quantity below zero
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+}
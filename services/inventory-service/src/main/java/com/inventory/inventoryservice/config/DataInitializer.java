@@ -3,9 +3,12 @@ package com.inventory.inventoryservice.config;
 import com.inventory.inventoryservice.model.Category;
 import com.inventory.inventoryservice.model.InventoryItem;
 import com.inventory.inventoryservice.model.Location;
+import com.inventory.inventoryservice.partition.InventoryPartitionManager;
 import com.inventory.inventoryservice.repository.CategoryRepository;
 import com.inventory.inventoryservice.repository.InventoryItemRepository;
 import com.inventory.inventoryservice.repository.LocationRepository;
+import com.inventory.inventoryservice.shard.ReferenceDataReplicator;
+import com.inventory.inventoryservice.shard.ShardRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
@@ -30,12 +33,24 @@ public class DataInitializer {
 
     private final InventoryItemRepository inventoryItemRepository;
 
+    private final InventoryPartitionManager inventoryPartitionManager;
+
+    private final ReferenceDataReplicator referenceDataReplicator;
+
+    private final ShardRouter shardRouter;
+
     public DataInitializer(CategoryRepository categoryRepository,
                             LocationRepository locationRepository,
-                            InventoryItemRepository inventoryItemRepository) {
+                            InventoryItemRepository inventoryItemRepository,
+                            InventoryPartitionManager inventoryPartitionManager,
+                            ReferenceDataReplicator referenceDataReplicator,
+                            ShardRouter shardRouter) {
         this.categoryRepository = categoryRepository;
         this.locationRepository = locationRepository;
         this.inventoryItemRepository = inventoryItemRepository;
+        this.inventoryPartitionManager = inventoryPartitionManager;
+        this.referenceDataReplicator = referenceDataReplicator;
+        this.shardRouter = shardRouter;
     }
 
     @Bean
@@ -66,11 +81,16 @@ public class DataInitializer {
                         new Location("Asian Warehouse", "20 Asia Road", "Tokyo", "Tokyo", "100-0001", "Japan")
                 );
                 locationRepository.saveAll(locations);
+                // Partitions must exist before items are added, or the items land in the default partition
+                locations.forEach(location -> inventoryPartitionManager.createPartition(location.getId()));
                 logger.info("Sample locations created");
             }
 
+            // Items on other shards reference the categories and locations
+            referenceDataReplicator.replicateAfterCommit();
+
             // Create inventory items if they don't exist
-            if (inventoryItemRepository.count() == 0) {
+            if (shardRouter.gather(() -> List.of(inventoryItemRepository.count())).stream().allMatch(count -> count == 0)) {
                 List<Category> categories = categoryRepository.findAll();
                 List<Location> locations = locationRepository.findAll();
 
@@ -104,7 +124,7 @@ public class DataInitializer {
                             new InventoryItem("Headphones", "Wireless headphones", "ELEC-004", 75, 15, new BigDecimal("149.99"), electronics, westCoastWarehouse),
                             new InventoryItem("Smartwatch", "Fitness tracking smartwatch", "ELEC-005", 30, 10, new BigDecimal("249.99"), electronics, mainWarehouse)
                     );
-                    inventoryItemRepository.saveAll(items);
+                    items.forEach(item -> shardRouter.forSku(item.getSku(), () -> inventoryItemRepository.save(item)));
                     logger.info("Sample inventory items created");
                 }
             }
@@ -1,12 +1,20 @@
 package com.inventory.inventoryservice.config;
 
+import com.inventory.inventoryservice.datasource.ReadYourWrites;
+import com.inventory.inventoryservice.datasource.ReadYourWritesTransactionManager;
+import com.inventory.inventoryservice.datasource.ReplicaRoutingDataSource;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import com.inventory.inventoryservice.shard.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -15,6 +23,11 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 @Configuration
@@ -38,19 +51,58 @@ public class DatabaseConfig {
         return em;
     }
 
+    /**
+     * Routes to the shard chosen by {@link ShardRouter} and, on shard 0, read-only transactions to the
+     * replicas listed in {@code app.datasource.replicas}, if any. The lazy proxy defers fetching a
+     * connection until the transaction's first statement, when both are known.
+     */
     @Bean
+    @Primary
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(env.getProperty("spring.datasource.driver-class-name"));
-        dataSource.setUrl(env.getProperty("spring.datasource.url"));
-        dataSource.setUsername(env.getProperty("spring.datasource.username"));
-        dataSource.setPassword(env.getProperty("spring.datasource.password"));
-        return dataSource;
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource());
+    }
+
+    /**
+     * Shard 0 is {@code spring.datasource.url}; {@code app.datasource.shards} lists the others. Those are
+     * migrated here, since Flyway only runs against the primary data source on its own.
+     */
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource() {
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(routingDataSource());
+        String[] shardUrls = env.getProperty("app.datasource.shards", String[].class, new String[0]);
+        for (String url : shardUrls) {
+            if (!url.isBlank()) {
+                shards.add(shardDataSource(shards.size(), url.trim()));
+            }
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource() {
+        List<DataSource> replicas = new ArrayList<>();
+        String[] replicaUrls = env.getProperty("app.datasource.replicas", String[].class, new String[0]);
+        for (String url : replicaUrls) {
+            if (!url.isBlank()) {
+                replicas.add(pooledDataSource("inventory-replica-" + replicas.size(), url.trim()));
+            }
+        }
+        return new ReplicaRoutingDataSource(
+                pooledDataSource("inventory-primary", env.getProperty("spring.datasource.url")),
+                replicas,
+                env.getProperty("app.datasource.replica-max-lag-ms", Long.class, 5000L));
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites() {
+        return new ReadYourWrites(routingDataSource(),
+                env.getProperty("app.datasource.read-your-writes", Boolean.class, true));
     }
 
     @Bean
     public PlatformTransactionManager transactionManager() {
-        JpaTransactionManager transactionManager = new JpaTransactionManager();
+        JpaTransactionManager transactionManager = new ReadYourWritesTransactionManager(readYourWrites(), shardRoutingDataSource());
         transactionManager.setEntityManagerFactory(entityManagerFactory().getObject());
         return transactionManager;
     }
@@ -60,12 +112,51 @@ public class DatabaseConfig {
         return new PersistenceExceptionTranslationPostProcessor();
     }
 
+    private DataSource shardDataSource(int shard, String url) {
+        HikariDataSource dataSource = pooledDataSource("inventory-shard-" + shard, url);
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(env.getProperty("spring.flyway.baseline-on-migrate", Boolean.class, false))
+                .baselineVersion(env.getProperty("spring.flyway.baseline-version", "1"))
+                .load()
+                .migrate();
+
+        // Items and reservations created on this shard take IDs from its own range, so an ID tells which shard holds the row
+        long firstId = shard * ShardRouter.ITEM_IDS_PER_SHARD + 1;
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sequence : List.of("inventory_items_id_seq", "reservations_id_seq")) {
+                statement.execute("SELECT setval('" + sequence + "', " + firstId + ", false) "
+                        + "WHERE (SELECT last_value FROM " + sequence + ") < " + firstId);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not reserve the item ID range of shard " + shard, e);
+        }
+        return dataSource;
+    }
+
+    private HikariDataSource pooledDataSource(String poolName, String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(poolName);
+        dataSource.setDriverClassName(env.getProperty("spring.datasource.driver-class-name"));
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(env.getProperty("spring.datasource.username"));
+        dataSource.setPassword(env.getProperty("spring.datasource.password"));
+        dataSource.setMaximumPoolSize(env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        return dataSource;
+    }
+
     private Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.hbm2ddl.auto", env.getProperty("spring.jpa.hibernate.ddl-auto"));
         properties.setProperty("hibernate.dialect", env.getProperty("spring.jpa.properties.hibernate.dialect"));
         properties.setProperty("hibernate.format_sql", env.getProperty("spring.jpa.properties.hibernate.format_sql"));
         properties.setProperty("hibernate.show_sql", env.getProperty("spring.jpa.show-sql"));
+        properties.setProperty("hibernate.jdbc.batch_size", env.getProperty("spring.jpa.properties.hibernate.jdbc.batch_size", "50"));
+        properties.setProperty("hibernate.order_updates", "true");
+        properties.setProperty("hibernate.jdbc.batch_versioned_data", "true");
+        // inventory_items is partitioned; schema validation must recognise it as a table
+        properties.setProperty("hibernate.hbm2ddl.extra_physical_table_types", "PARTITIONED TABLE");
         return properties;
     }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.inventory.inventoryservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    @Value("${app.kafka.topics.inventory-state:inventory-state}")
+    private String inventoryStateTopic;
+
+    @Value("${app.inventory.state-topic.partitions:6}")
+    private int inventoryStatePartitions;
+
+    @Value("${app.inventory.state-topic.replicas:1}")
+    private int inventoryStateReplicas;
+
+    @Value("${app.kafka.topics.reservation-commands:reservation-commands}")
+    private String reservationCommandsTopic;
+
+    @Value("${app.kafka.topics.reservation-results:reservation-results}")
+    private String reservationResultsTopic;
+
+    @Value("${app.inventory.reservation-commands.partitions:12}")
+    private int reservationPartitions;
+
+    @Value("${app.inventory.reservation-commands.replicas:1}")
+    private int reservationReplicas;
+
+    /**
+     * Latest state per SKU; compaction keeps one record per key, so reading the topic costs the size of
+     * the inventory rather than its history
+     */
+    @Bean
+    public NewTopic inventoryStateTopic() {
+        return TopicBuilder.name(inventoryStateTopic)
+                .partitions(inventoryStatePartitions)
+                .replicas(inventoryStateReplicas)
+                .compact()
+                .config(TopicConfig.MIN_CLEANABLE_DIRTY_RATIO_CONFIG, "0.1")
+                .config(TopicConfig.DELETE_RETENTION_MS_CONFIG, "86400000")
+                .build();
+    }
+
+    /**
+     * Commands are keyed by the producer, typically by order, so one order's commands stay in sequence;
+     * partitions bound how many listener threads can share the load
+     */
+    @Bean
+    public NewTopic reservationCommandsTopic() {
+        return TopicBuilder.name(reservationCommandsTopic)
+                .partitions(reservationPartitions)
+                .replicas(reservationReplicas)
+                .build();
+    }
+
+    @Bean
+    public NewTopic reservationResultsTopic() {
+        return TopicBuilder.name(reservationResultsTopic)
+                .partitions(reservationPartitions)
+                .replicas(reservationReplicas)
+                .build();
+    }
+}
@@ -1,7 +1,13 @@
 package com.inventory.inventoryservice.config;
 
+import com.inventory.inventoryservice.cache.SingleFlightCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
@@ -18,11 +24,23 @@ import java.util.Map;
 
 @Configuration
 @EnableCaching
-public class RedisConfig {
+public class RedisConfig implements CachingConfigurer {
 
     @Value("${app.cache.ttl:3600}")
     private long cacheTtl;
 
+    @Value("${app.cache.early-refresh-beta:1.0}")
+    private double earlyRefreshBeta;
+
+    /**
+     * A cache that cannot be reached is logged and skipped: the database stays the source of truth,
+     * and a write must not fail after it has committed because its cache could not be updated.
+     */
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler(false);
+    }
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -36,14 +54,18 @@ public class RedisConfig {
     }
 
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, MeterRegistry meterRegistry) {
+        Duration defaultTtl = Duration.ofSeconds(cacheTtl);
+        Duration lowStockTtl = Duration.ofMinutes(5);
+
         RedisCacheConfiguration defaultCacheConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofSeconds(cacheTtl))
+                .entryTtl(defaultTtl)
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
                 .disableCachingNullValues();
 
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        Map<String, Duration> cacheTtls = new HashMap<>();
         
         // Configure cache TTLs for different cache names
         cacheConfigurations.put("categories", defaultCacheConfig);
@@ -55,13 +77,18 @@ public class RedisConfig {
         cacheConfigurations.put("inventoryItemsByLocation", defaultCacheConfig);
         
         // Low stock items cache with shorter TTL
-        cacheConfigurations.put("lowStockItems", defaultCacheConfig.entryTtl(Duration.ofMinutes(5)));
-        cacheConfigurations.put("lowStockItemsByCategory", defaultCacheConfig.entryTtl(Duration.ofMinutes(5)));
-        cacheConfigurations.put("lowStockItemsByLocation", defaultCacheConfig.entryTtl(Duration.ofMinutes(5)));
+        for (String lowStockCache : new String[] {"lowStockItems", "lowStockItemsByCategory", "lowStockItemsByLocation"}) {
+            cacheConfigurations.put(lowStockCache, defaultCacheConfig.entryTtl(lowStockTtl));
+            cacheTtls.put(lowStockCache, lowStockTtl);
+        }
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultCacheConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // Coalesce concurrent misses and refresh hot entries ahead of expiry
+        return new SingleFlightCacheManager(redisCacheManager, cacheTtls, defaultTtl, earlyRefreshBeta, meterRegistry);
     }
 }
\ No newline at end of file
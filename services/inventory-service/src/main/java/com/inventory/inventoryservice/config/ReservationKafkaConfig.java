@@ -0,0 +1,53 @@
+package com.inventory.inventoryservice.config;
+
+import com.inventory.inventoryservice.event.ReservationCommand;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class ReservationKafkaConfig {
+
+    @Value("${app.inventory.reservation-commands.concurrency:3}")
+    private int concurrency;
+
+    @Value("${app.inventory.reservation-commands.max-poll-records:1000}")
+    private int maxPollRecords;
+
+    /**
+     * Batch listener for reservation commands. Commands are read as {@link ReservationCommand}
+     * whatever type headers the producer sent, so producers need not share our classes, and a record
+     * that cannot be read reaches the listener as a null value instead of stopping the partition.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ReservationCommand> reservationCommandContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory) {
+        Map<String, Object> properties = new HashMap<>(consumerFactory.getConfigurationProperties());
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        JsonDeserializer<ReservationCommand> valueDeserializer = new JsonDeserializer<>(ReservationCommand.class, false);
+        valueDeserializer.addTrustedPackages(ReservationCommand.class.getPackageName());
+        properties.remove(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG);
+        properties.remove(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG);
+        properties.remove(JsonDeserializer.TRUSTED_PACKAGES);
+
+        ConcurrentKafkaListenerContainerFactory<String, ReservationCommand> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(properties,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(valueDeserializer)));
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        return factory;
+    }
+}
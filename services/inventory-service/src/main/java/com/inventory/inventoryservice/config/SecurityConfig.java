@@ -33,7 +33,7 @@ public class SecurityConfig {
                         .requestMatchers("/actuator/**","/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**",
                                 "/swagger-resources/**", "/api-docs/**", "/aggregate/**", "/actuator/prometheus" ).permitAll()
                         .requestMatchers("/api/inventory/*/quantity").hasAnyRole("ADMIN", "INVENTORY_MANAGER")
-                        .requestMatchers("/api/inventory/reserve").authenticated()
+                        .requestMatchers("/api/inventory/reserve", "/api/inventory/reservations/**").authenticated()
                         .requestMatchers("/api/inventory/low-stock/**").authenticated()
                         .requestMatchers("/api/categories/**", "/api/locations/**", "/api/inventory/**").permitAll()
                         .anyRequest().authenticated()
@@ -54,8 +54,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("authorization", "content-type", "x-auth-token"));
-        configuration.setExposedHeaders(List.of("x-auth-token"));
+        configuration.setAllowedHeaders(Arrays.asList("authorization", "content-type", "x-auth-token", "if-none-match", "x-min-lsn", "idempotency-key"));
+        configuration.setExposedHeaders(List.of("x-auth-token", "etag", "x-inventory-lsn", "idempotent-replayed"));
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
         return source;
@@ -1,11 +1,16 @@
 package com.inventory.inventoryservice.controller;
 
+import com.inventory.inventoryservice.event.InventoryStateEvent;
+import com.inventory.inventoryservice.history.StockMovement;
 import com.inventory.inventoryservice.model.Category;
 import com.inventory.inventoryservice.model.InventoryItem;
 import com.inventory.inventoryservice.model.Location;
 import com.inventory.inventoryservice.service.CategoryService;
+import com.inventory.inventoryservice.service.CollectionVersionService;
 import com.inventory.inventoryservice.service.InventoryItemService;
 import com.inventory.inventoryservice.service.LocationService;
+import com.inventory.inventoryservice.service.StockHistoryService;
+import com.inventory.inventoryservice.state.InventoryStateView;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
@@ -14,14 +19,23 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/inventory")
@@ -34,21 +48,41 @@ public class InventoryItemController {
     private final InventoryItemService inventoryItemService;
     private final CategoryService categoryService;
     private final LocationService locationService;
+    private final CollectionVersionService collectionVersionService;
+    private final StockHistoryService stockHistoryService;
+    private final InventoryStateView inventoryStateView;
     
 
     public InventoryItemController(InventoryItemService inventoryItemService, 
                                   CategoryService categoryService,
-                                  LocationService locationService) {
+                                  LocationService locationService,
+                                  CollectionVersionService collectionVersionService,
+                                  StockHistoryService stockHistoryService,
+                                  InventoryStateView inventoryStateView) {
         this.inventoryItemService = inventoryItemService;
         this.categoryService = categoryService;
         this.locationService = locationService;
+        this.collectionVersionService = collectionVersionService;
+        this.stockHistoryService = stockHistoryService;
+        this.inventoryStateView = inventoryStateView;
     }
     
     @GetMapping
-    public ResponseEntity<List<InventoryItem>> getAllItems() {
+    public ResponseEntity<List<InventoryItem>> getAllItems(WebRequest request) {
         logger.info("REST request to get all Inventory Items");
-        List<InventoryItem> items = inventoryItemService.getAllItems();
-        return ResponseEntity.ok(items);
+        return conditionalList(request, CollectionVersionService.ALL_ITEMS, inventoryItemService::getAllItems);
+    }
+    
+    @GetMapping("/state")
+    public ResponseEntity<Collection<InventoryStateEvent>> getItemStates() {
+        logger.info("REST request to get the Inventory Item state view");
+        if (!inventoryStateView.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!inventoryStateView.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        return ResponseEntity.ok(inventoryStateView.getItems());
     }
     
     @GetMapping("/paged")
@@ -74,19 +108,56 @@ public class InventoryItemController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    @GetMapping("/sku/{sku}/movements")
+    public ResponseEntity<List<StockMovement>> getStockMovements(
+            @PathVariable String sku,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "100") int limit) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(1);
+        logger.info("REST request to get stock movements of SKU : {} from {} to {}", sku, start, end);
+        if (limit < 1 || limit > 1000) {
+            return ResponseEntity.badRequest().header("Failure", "limit must be between 1 and 1000").build();
+        }
+        return ResponseEntity.ok(stockHistoryService.getMovements(sku, start, end, limit));
+    }
+    
+    @GetMapping("/sku/{sku}/stock-at")
+    public ResponseEntity<Map<String, Object>> getStockAt(
+            @PathVariable String sku,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        logger.info("REST request to get stock of SKU : {} at {}", sku, at);
+        try {
+            return stockHistoryService.getQuantityAt(sku, at)
+                    .map(quantity -> {
+                        Map<String, Object> body = new LinkedHashMap<>();
+                        body.put("sku", sku);
+                        body.put("at", at);
+                        body.put("quantity", quantity);
+                        return ResponseEntity.ok(body);
+                    })
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().header("Failure", e.getMessage()).build();
+        }
+    }
+    
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<InventoryItem>> getItemsByCategory(@PathVariable Long categoryId) {
+    public ResponseEntity<List<InventoryItem>> getItemsByCategory(@PathVariable Long categoryId, WebRequest request) {
         logger.info("REST request to get Inventory Items by Category ID : {}", categoryId);
         return categoryService.getCategoryById(categoryId)
-                .map(category -> ResponseEntity.ok(inventoryItemService.getItemsByCategory(category)))
+                .map(category -> conditionalList(request, CollectionVersionService.category(categoryId),
+                        () -> inventoryItemService.getItemsByCategory(category)))
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/location/{locationId}")
-    public ResponseEntity<List<InventoryItem>> getItemsByLocation(@PathVariable Long locationId) {
+    public ResponseEntity<List<InventoryItem>> getItemsByLocation(@PathVariable Long locationId, WebRequest request) {
         logger.info("REST request to get Inventory Items by Location ID : {}", locationId);
         return locationService.getLocationById(locationId)
-                .map(location -> ResponseEntity.ok(inventoryItemService.getItemsByLocation(location)))
+                .map(location -> conditionalList(request, CollectionVersionService.location(locationId),
+                        () -> inventoryItemService.getItemsByLocation(location)))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -98,10 +169,9 @@ public class InventoryItemController {
     }
     
     @GetMapping("/low-stock")
-    public ResponseEntity<List<InventoryItem>> getLowStockItems() {
+    public ResponseEntity<List<InventoryItem>> getLowStockItems(WebRequest request) {
         logger.info("REST request to get low stock Inventory Items");
-        List<InventoryItem> items = inventoryItemService.findLowStockItems();
-        return ResponseEntity.ok(items);
+        return conditionalList(request, CollectionVersionService.LOW_STOCK, inventoryItemService::findLowStockItems);
     }
     
     @GetMapping("/low-stock/category/{categoryId}")
@@ -192,7 +262,7 @@ public class InventoryItemController {
     
     @PatchMapping("/{id}/quantity")
     @PreAuthorize("hasRole('ADMIN') or hasRole('INVENTORY_MANAGER')")
-    public ResponseEntity<InventoryItem> updateQuantity(@PathVariable Long id, @RequestBody Map<String, Integer> payload) {
+    public ResponseEntity<?> updateQuantity(@PathVariable Long id, @RequestBody Map<String, Integer> payload) {
         Integer quantityChange = payload.get("quantityChange");
         if (quantityChange == null) {
             return ResponseEntity.badRequest().header("Failure", "quantityChange is required").build();
@@ -200,6 +270,14 @@ public class InventoryItemController {
         
         logger.info("REST request to update quantity of Inventory Item : {}, change: {}", id, quantityChange);
         try {
+            // A journaled change is durable locally and applied shortly after, so it is only accepted
+            OptionalLong journalSequence = inventoryItemService.journalQuantity(id, quantityChange);
+            if (journalSequence.isPresent()) {
+                return ResponseEntity.accepted().body(Map.of(
+                        "id", id,
+                        "quantityChange", quantityChange,
+                        "journalSequence", journalSequence.getAsLong()));
+            }
             InventoryItem result = inventoryItemService.updateQuantity(id, quantityChange);
             return ResponseEntity.ok(result);
         } catch (IllegalArgumentException e) {
@@ -228,6 +306,25 @@ public class InventoryItemController {
         }
     }
     
+    @PutMapping("/{id}/buckets")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<InventoryItem> splitStock(@PathVariable Long id, @RequestBody Map<String, Integer> payload) {
+        Integer bucketCount = payload.get("bucketCount");
+        if (bucketCount == null) {
+            return ResponseEntity.badRequest().header("Failure", "bucketCount is required").build();
+        }
+        
+        logger.info("REST request to split stock of Inventory Item : {} into {} buckets", id, bucketCount);
+        try {
+            InventoryItem result = inventoryItemService.splitStock(id, bucketCount);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().header("Failure", e.getMessage()).build();
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     @PostMapping("/reserve")
     @PreAuthorize("hasRole('ADMIN') or hasRole('INVENTORY_MANAGER') or hasRole('USER')")
     public ResponseEntity<Map<String, Boolean>> reserveInventory(@RequestBody Map<String, Object> payload) {
@@ -242,4 +339,20 @@ public class InventoryItemController {
         boolean reserved = inventoryItemService.reserveInventory(sku, quantity);
         return ResponseEntity.ok(Map.of("reserved", reserved));
     }
+    
+    /**
+     * Answers 304 Not Modified from the collection version alone, so the list is only
+     * loaded and serialized when the client's copy is stale.
+     */
+    private ResponseEntity<List<InventoryItem>> conditionalList(WebRequest request, String collection,
+                                                                Supplier<List<InventoryItem>> loader) {
+        Optional<String> etag = collectionVersionService.getETag(collection);
+        if (etag.isEmpty()) {
+            return ResponseEntity.ok(loader.get());
+        }
+        if (request.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+        }
+        return ResponseEntity.ok().eTag(etag.get()).body(loader.get());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.inventory.inventoryservice.controller;
+
+import com.inventory.inventoryservice.model.Reservation;
+import com.inventory.inventoryservice.service.ReservationService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/inventory/reservations")
+@CrossOrigin(origins = "*", maxAge = 3600)
+@SecurityRequirement(name = "JWT")
+public class ReservationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationController.class);
+
+    private final ReservationService reservationService;
+
+    public ReservationController(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INVENTORY_MANAGER') or hasRole('USER')")
+    public ResponseEntity<?> holdInventory(@RequestBody Map<String, Object> payload) {
+        String sku = (String) payload.get("sku");
+        Integer quantity = (Integer) payload.get("quantity");
+        Integer ttlSeconds = (Integer) payload.get("ttlSeconds");
+
+        if (sku == null || quantity == null) {
+            return ResponseEntity.badRequest().header("Failure", "sku and quantity are required").build();
+        }
+
+        logger.info("REST request to hold inventory for SKU : {}, quantity: {}", sku, quantity);
+        Duration ttl = ttlSeconds != null ? Duration.ofSeconds(ttlSeconds) : null;
+        return reservationService.hold(sku, quantity, ttl)
+                .<ResponseEntity<?>>map(reservation -> ResponseEntity.status(HttpStatus.CREATED).body(reservation))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("reserved", false)));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Reservation> getReservation(@PathVariable Long id) {
+        logger.info("REST request to get Reservation : {}", id);
+        return reservationService.getReservation(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/confirm")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INVENTORY_MANAGER') or hasRole('USER')")
+    public ResponseEntity<Reservation> confirmReservation(@PathVariable Long id) {
+        logger.info("REST request to confirm Reservation : {}", id);
+        return endHold(() -> reservationService.confirm(id));
+    }
+
+    @PostMapping("/{id}/release")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INVENTORY_MANAGER') or hasRole('USER')")
+    public ResponseEntity<Reservation> releaseReservation(@PathVariable Long id) {
+        logger.info("REST request to release Reservation : {}", id);
+        return endHold(() -> reservationService.release(id));
+    }
+
+    /**
+     * Answers 409 Conflict for a reservation that is no longer held, e.g. because it expired
+     */
+    private ResponseEntity<Reservation> endHold(Supplier<Reservation> action) {
+        try {
+            return ResponseEntity.ok(action.get());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).header("Failure", e.getMessage()).build();
+        }
+    }
+}
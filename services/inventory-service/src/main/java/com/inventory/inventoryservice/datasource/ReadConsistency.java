@@ -0,0 +1,58 @@
+package com.inventory.inventoryservice.datasource;
+
+/**
+ * Per-thread read consistency requirements consulted by {@link ReplicaRoutingDataSource}.
+ *
+ * <p>A request may carry the WAL position of a write it depends on, in which case only replicas that
+ * have replayed at least that far can serve it. Once the current request has committed a write of
+ * its own, the rest of it reads from the primary.</p>
+ */
+public final class ReadConsistency {
+
+    private static final ThreadLocal<Long> requiredLsn = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> pinnedToPrimary = new ThreadLocal<>();
+
+    private ReadConsistency() {
+    }
+
+    public static void requireLsn(long lsn) {
+        requiredLsn.set(lsn);
+    }
+
+    public static Long getRequiredLsn() {
+        return requiredLsn.get();
+    }
+
+    public static void pinToPrimary() {
+        pinnedToPrimary.set(Boolean.TRUE);
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(pinnedToPrimary.get());
+    }
+
+    public static void clear() {
+        requiredLsn.remove();
+        pinnedToPrimary.remove();
+    }
+
+    /**
+     * Parse a PostgreSQL LSN in its textual {@code XXXXXXXX/XXXXXXXX} form
+     * @param lsn The LSN as printed by PostgreSQL
+     * @return The LSN as a comparable number, or -1 if it cannot be parsed
+     */
+    public static long parseLsn(String lsn) {
+        if (lsn == null) {
+            return -1;
+        }
+        int separator = lsn.indexOf('/');
+        if (separator <= 0) {
+            return -1;
+        }
+        try {
+            return (Long.parseLong(lsn.substring(0, separator), 16) << 32) | Long.parseLong(lsn.substring(separator + 1), 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.inventory.inventoryservice.datasource;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hands clients the WAL position of their writes so later reads can insist on a replica that has
+ * caught up with it.
+ *
+ * <p>Only shard {@value #REPLICATED_SHARD} has read replicas, so only its commits are reported. After
+ * a request commits a write there, the LSN read on the committing connection is returned in the
+ * {@value #LSN_HEADER} response header as {@code shard:lsn}, and the rest of the request reads from
+ * the primary. A client that sends the value back in {@value #MIN_LSN_HEADER} is only served by
+ * replicas that have replayed at least that far. Commits made on behalf of a request by another
+ * thread are captured there and handed to the request with {@link #writeCommitted(String)}.</p>
+ */
+public class ReadYourWrites {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadYourWrites.class);
+
+    public static final String LSN_HEADER = "X-Inventory-LSN";
+    public static final String MIN_LSN_HEADER = "X-Min-LSN";
+    public static final int REPLICATED_SHARD = 0;
+
+    private static final ThreadLocal<String> captured = new ThreadLocal<>();
+
+    private final boolean enabled;
+
+    public ReadYourWrites(ReplicaRoutingDataSource routingDataSource, boolean enabled) {
+        this.enabled = enabled && routingDataSource.hasReplicas();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Report a committed read-write transaction, reading the WAL position on its own connection,
+     * which still belongs to the transaction after the commit
+     * @param shard The shard the transaction ran on
+     * @param connection The connection the transaction committed on
+     */
+    public void transactionCommitted(int shard, Connection connection) {
+        if (!enabled || shard != REPLICATED_SHARD) {
+            return;
+        }
+        boolean capturing = captured.get() != null;
+        if (!capturing && RequestContextHolder.getRequestAttributes() == null) {
+            return;
+        }
+        String token = null;
+        try (Statement statement = connection.createStatement();
+             ResultSet lsn = statement.executeQuery("SELECT pg_current_wal_lsn()::text")) {
+            if (lsn.next()) {
+                token = shard + ":" + lsn.getString(1);
+            }
+        } catch (SQLException e) {
+            logger.debug("Could not read the WAL position of shard {}: {}", shard, e.getMessage());
+        }
+        if (capturing) {
+            if (token != null) {
+                captured.set(token);
+            }
+        } else {
+            writeCommitted(token);
+        }
+    }
+
+    /**
+     * Start capturing the commits of the current thread instead of reporting them to its request
+     */
+    public void beginCapture() {
+        captured.set("");
+    }
+
+    /**
+     * Stop capturing the commits of the current thread
+     * @return The token of the last commit captured, or null if there was none
+     */
+    public String endCapture() {
+        String token = captured.get();
+        captured.remove();
+        return token == null || token.isEmpty() ? null : token;
+    }
+
+    /**
+     * Record that the current request has committed a write on the replicated shard. Does nothing
+     * outside a web request.
+     * @param token The {@code shard:lsn} token of the commit, or null if it is unknown
+     */
+    public void writeCommitted(String token) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!enabled || attributes == null) {
+            return;
+        }
+        ReadConsistency.pinToPrimary();
+
+        HttpServletResponse response = attributes instanceof ServletRequestAttributes servletAttributes
+                ? servletAttributes.getResponse() : null;
+        if (token != null && response != null && !response.isCommitted()) {
+            response.setHeader(LSN_HEADER, token);
+        }
+    }
+
+    /**
+     * Find the WAL position of the replicated shard in a {@value #MIN_LSN_HEADER} header
+     * @param header Comma separated {@code shard:lsn} tokens; a bare LSN belongs to the replicated shard
+     * @return The LSN, or -1 if the header holds none for the replicated shard
+     */
+    public static long requiredLsn(String header) {
+        if (header == null) {
+            return -1;
+        }
+        long required = -1;
+        for (String token : header.split(",")) {
+            token = token.trim();
+            int separator = token.indexOf(':');
+            if (separator >= 0) {
+                if (!token.substring(0, separator).equals(String.valueOf(REPLICATED_SHARD))) {
+                    continue;
+                }
+                token = token.substring(separator + 1);
+            }
+            required = Math.max(required, ReadConsistency.parseLsn(token));
+        }
+        return required;
+    }
+}
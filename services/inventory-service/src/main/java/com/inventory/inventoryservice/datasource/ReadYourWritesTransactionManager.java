@@ -0,0 +1,50 @@
+package com.inventory.inventoryservice.datasource;
+
+import com.inventory.inventoryservice.shard.ShardContext;
+import com.inventory.inventoryservice.shard.ShardRoutingDataSource;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA transaction manager that reports every committed read-write transaction to {@link ReadYourWrites},
+ * together with the connection it committed on. Without read replicas nothing is reported, so commits
+ * make no extra round trip to the primary.
+ *
+ * <p>A transaction that would run on an entity manager bound before it began, and already holding a
+ * connection of another shard than the selected one, is refused: its statements would silently go to
+ * the wrong database.</p>
+ */
+public class ReadYourWritesTransactionManager extends JpaTransactionManager {
+
+    private final ReadYourWrites readYourWrites;
+    private final ShardRoutingDataSource shardRoutingDataSource;
+
+    public ReadYourWritesTransactionManager(ReadYourWrites readYourWrites, ShardRoutingDataSource shardRoutingDataSource) {
+        this.readYourWrites = readYourWrites;
+        this.shardRoutingDataSource = shardRoutingDataSource;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        int shard = ShardContext.current();
+        if (TransactionSynchronizationManager.hasResource(obtainEntityManagerFactory())
+                && shardRoutingDataSource.holdsConnectionOtherThan(shard)) {
+            throw new IllegalStateException("Transaction routed to shard " + shard
+                    + " would reuse a connection of another shard held by the current entity manager");
+        }
+        super.doBegin(transaction, definition);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        super.doCommit(status);
+        if (!status.isReadOnly() && readYourWrites.isEnabled() && getDataSource() != null
+                && TransactionSynchronizationManager.getResource(getDataSource()) instanceof ConnectionHolder holder) {
+            // The connection is released only after completion, so it still sees this transaction's commit
+            readYourWrites.transactionCommitted(ShardContext.current(), holder.getConnection());
+        }
+    }
+}
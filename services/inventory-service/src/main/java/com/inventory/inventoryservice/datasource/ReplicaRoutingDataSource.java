@@ -0,0 +1,150 @@
+package com.inventory.inventoryservice.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections for read-only transactions to a healthy read replica, round robin, and
+ * everything else to the primary.
+ *
+ * <p>Replicas are checked periodically; one that cannot be reached or lags by more than the
+ * configured limit is skipped until it recovers, and a replica that fails to hand out a connection
+ * is taken out of rotation immediately. The replay position seen by the last check also serves
+ * read-your-writes: a read that must observe a given LSN only goes to replicas known to be past it.
+ * Must be wrapped in a {@code LazyConnectionDataSourceProxy} so the connection is only fetched once
+ * the transaction's read-only flag is known.</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String REPLICA_STATUS_SQL = """
+            SELECT pg_last_wal_replay_lsn()::text,
+                   CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END
+            """;
+
+    private final DataSource primary;
+    private final List<ReplicaState> replicas;
+    private final long maxLagMs;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long maxLagMs) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new ReplicaState("replica-" + i, replicas.get(i)));
+        }
+        this.maxLagMs = maxLagMs;
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (ReplicaState replica : replicas) {
+            if (replica.getDataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica-check-interval-ms:2000}")
+    public void checkReplicas() {
+        for (ReplicaState replica : replicas) {
+            boolean wasHealthy = replica.isHealthy();
+            try (Connection connection = replica.getDataSource().getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet status = statement.executeQuery(REPLICA_STATUS_SQL)) {
+                status.next();
+                long replayLsn = ReadConsistency.parseLsn(status.getString(1));
+                double lagMs = status.getDouble(2);
+                if (replayLsn < 0 || lagMs > maxLagMs) {
+                    replica.markDown();
+                    logger.warn("Read replica {} is {} ms behind, skipping it", replica.getName(), (long) lagMs);
+                } else {
+                    replica.markUp(replayLsn);
+                    if (!wasHealthy) {
+                        logger.info("Read replica {} is back in rotation", replica.getName());
+                    }
+                }
+            } catch (SQLException e) {
+                replica.markDown();
+                if (wasHealthy) {
+                    logger.warn("Read replica {} failed its health check: {}", replica.getName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        ReplicaState replica = selectReplica();
+        if (replica == null) {
+            return source.connect(primary);
+        }
+        try {
+            Connection connection = source.connect(replica.getDataSource());
+            connection.setReadOnly(true);
+            return connection;
+        } catch (SQLException e) {
+            logger.warn("Read replica {} is unavailable, reading from the primary: {}", replica.getName(), e.getMessage());
+            replica.markDown();
+            return source.connect(primary);
+        }
+    }
+
+    private ReplicaState selectReplica() {
+        if (replicas.isEmpty()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || ReadConsistency.isPinnedToPrimary()) {
+            return null;
+        }
+
+        Long requiredLsn = ReadConsistency.getRequiredLsn();
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            ReplicaState replica = replicas.get((start + i) % replicas.size());
+            if (replica.isHealthy() && (requiredLsn == null || replica.getReplayLsn() >= requiredLsn)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+}
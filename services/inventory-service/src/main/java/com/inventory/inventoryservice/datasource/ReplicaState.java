@@ -0,0 +1,45 @@
+package com.inventory.inventoryservice.datasource;
+
+import javax.sql.DataSource;
+
+/**
+ * A read replica together with what the last health check observed about it.
+ */
+class ReplicaState {
+
+    private final String name;
+    private final DataSource dataSource;
+
+    private volatile boolean healthy;
+    private volatile long replayLsn;
+
+    ReplicaState(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    DataSource getDataSource() {
+        return dataSource;
+    }
+
+    boolean isHealthy() {
+        return healthy;
+    }
+
+    long getReplayLsn() {
+        return replayLsn;
+    }
+
+    void markUp(long replayLsn) {
+        this.replayLsn = replayLsn;
+        this.healthy = true;
+    }
+
+    void markDown() {
+        this.healthy = false;
+    }
+}
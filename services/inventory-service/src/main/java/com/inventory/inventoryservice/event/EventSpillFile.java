@@ -0,0 +1,195 @@
+package com.inventory.inventoryservice.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Append-only local file of events that could not be handed to Kafka, one JSON line each.
+ *
+ * <p>Events are appended to {@code spill.log}. For replay the file is renamed to
+ * {@code spill-<timestamp>.log}, so new spills go to a fresh file, and each renamed file is deleted
+ * once all of its events have been sent. Replay goes a bounded number of events at a time and
+ * remembers where it stopped; after a restart a partly replayed file is replayed from its start, and
+ * renamed files left over from a previous run are replayed too. The total size is capped at
+ * {@code maxBytes}; beyond it appends are refused.</p>
+ */
+class EventSpillFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventSpillFile.class);
+
+    private static final String ACTIVE_FILE = "spill.log";
+    private static final String REPLAY_PREFIX = "spill-";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final ObjectMapper objectMapper;
+
+    private final Deque<Path> replayFiles = new ArrayDeque<>();
+
+    private BufferedWriter writer;
+    private long spilledBytes;
+    private long replayOffset;
+
+    EventSpillFile(Path directory, long maxBytes, ObjectMapper objectMapper) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.objectMapper = objectMapper;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                spilledBytes += Files.size(file);
+            }
+        }
+    }
+
+    /**
+     * Append an event
+     * @return False if the event was not written because the spill is full or the disk failed
+     */
+    synchronized boolean append(PendingEvent event) {
+        try {
+            String line = objectMapper.writeValueAsString(new SpilledEvent(event.topic(), event.key(),
+                    event.traceparent(), event.value().getClass().getName(), objectMapper.valueToTree(event.value())));
+            byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+            if (spilledBytes + bytes.length > maxBytes) {
+                return false;
+            }
+            if (writer == null) {
+                writer = Files.newBufferedWriter(directory.resolve(ACTIVE_FILE), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+            spilledBytes += bytes.length;
+            return true;
+        } catch (IOException e) {
+            logger.error("Could not spill event for topic {}: {}", event.topic(), e.getMessage());
+            return false;
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return spilledBytes == 0;
+    }
+
+    /**
+     * Send the next spilled events, oldest file first, and delete each file once all of its events have been sent.
+     * Stops after {@code maxEvents} events or once a send has failed; the next call carries on where this one stopped.
+     * @param send Sends an event and completes with whether it was delivered; an event whose send fails is expected to be spilled again
+     * @param maxEvents The most events to send in this call
+     * @return The number of events sent
+     */
+    int replay(Function<PendingEvent, CompletableFuture<Boolean>> send, int maxEvents) throws IOException {
+        if (replayFiles.isEmpty()) {
+            replayFiles.addAll(rotate());
+            replayOffset = 0;
+        }
+        int count = 0;
+        AtomicBoolean failed = new AtomicBoolean();
+        while (!replayFiles.isEmpty() && count < maxEvents && !failed.get()) {
+            Path file = replayFiles.peekFirst();
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            boolean endOfFile = false;
+            try (FileChannel channel = FileChannel.open(file);
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(
+                         Channels.newInputStream(channel.position(replayOffset)), StandardCharsets.UTF_8))) {
+                while (count < maxEvents && !failed.get()) {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        endOfFile = true;
+                        break;
+                    }
+                    replayOffset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    PendingEvent event = read(line);
+                    if (event != null) {
+                        sends.add(send.apply(event).whenComplete((delivered, ex) -> {
+                            if (!Boolean.TRUE.equals(delivered)) {
+                                failed.set(true);
+                            }
+                        }));
+                        count++;
+                    }
+                }
+            }
+            // Outcomes are handled by send, this only makes sure no event read so far is still in flight
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).exceptionally(ex -> null).join();
+            if (endOfFile) {
+                long size = Files.size(file);
+                Files.delete(file);
+                replayFiles.removeFirst();
+                replayOffset = 0;
+                synchronized (this) {
+                    spilledBytes -= size;
+                }
+            }
+        }
+        return count;
+    }
+
+    synchronized void close() {
+        closeWriter();
+    }
+
+    private synchronized List<Path> rotate() throws IOException {
+        closeWriter();
+        Path active = directory.resolve(ACTIVE_FILE);
+        if (Files.exists(active)) {
+            Files.move(active, directory.resolve(REPLAY_PREFIX + System.currentTimeMillis() + ".log"));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(REPLAY_PREFIX)).sorted().toList();
+        }
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.warn("Could not close the event spill file: {}", e.getMessage());
+        }
+        writer = null;
+    }
+
+    private PendingEvent read(String line) {
+        try {
+            SpilledEvent spilled = objectMapper.readValue(line, SpilledEvent.class);
+            if (!spilled.type().startsWith(EventSpillFile.class.getPackageName() + ".")) {
+                throw new IllegalArgumentException("unexpected event type " + spilled.type());
+            }
+            Object value = objectMapper.treeToValue(spilled.value(), Class.forName(spilled.type()));
+            return new PendingEvent(spilled.topic(), spilled.key(), value, spilled.traceparent());
+        } catch (Exception e) {
+            // A line cut short by a crash while it was written
+            logger.warn("Skipping unreadable spilled event: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private record SpilledEvent(String topic, String key, String traceparent, String type, JsonNode value) {
+    }
+}
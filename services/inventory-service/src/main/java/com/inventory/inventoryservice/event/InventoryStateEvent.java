@@ -0,0 +1,166 @@
+package com.inventory.inventoryservice.event;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Latest full state of an inventory item, published to the compacted inventory-state topic keyed by SKU.
+ * A record without a value (a tombstone) means the SKU no longer exists.
+ */
+public class InventoryStateEvent implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Long itemId;
+    private String sku;
+    private String name;
+    private String description;
+    private Long categoryId;
+    private String categoryName;
+    private Long locationId;
+    private String locationName;
+    private Integer quantity;
+    private Integer threshold;
+    private BigDecimal price;
+    private Long version;
+    private LocalDateTime updatedAt;
+    private LocalDateTime publishedAt;
+
+    // Default constructor for serialization
+    public InventoryStateEvent() {
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public Long getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(Long locationId) {
+        this.locationId = locationId;
+    }
+
+    public String getLocationName() {
+        return locationName;
+    }
+
+    public void setLocationName(String locationName) {
+        this.locationName = locationName;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Integer getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(Integer threshold) {
+        this.threshold = threshold;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(LocalDateTime publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "InventoryStateEvent{" +
+                "itemId=" + itemId +
+                ", sku='" + sku + '\'' +
+                ", name='" + name + '\'' +
+                ", description='" + description + '\'' +
+                ", categoryId=" + categoryId +
+                ", categoryName='" + categoryName + '\'' +
+                ", locationId=" + locationId +
+                ", locationName='" + locationName + '\'' +
+                ", quantity=" + quantity +
+                ", threshold=" + threshold +
+                ", price=" + price +
+                ", version=" + version +
+                ", updatedAt=" + updatedAt +
+                ", publishedAt=" + publishedAt +
+                '}';
+    }
+}
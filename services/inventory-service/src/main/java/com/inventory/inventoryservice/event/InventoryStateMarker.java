@@ -0,0 +1,78 @@
+package com.inventory.inventoryservice.event;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Marks the start or end of a full snapshot on every partition of the inventory-state topic.
+ *
+ * <p>Markers are keyed {@link #START_KEY} or {@link #END_KEY}, so compaction keeps the latest of each
+ * per partition. A partition whose latest END marker has been read holds the state of every SKU
+ * assigned to it.</p>
+ */
+public class InventoryStateMarker implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final String START_KEY = "__snapshot_start__";
+    public static final String END_KEY = "__snapshot_end__";
+
+    private String snapshotId;
+    private String phase; // "START", "END"
+    private Long itemCount;
+    private LocalDateTime timestamp;
+
+    // Default constructor for serialization
+    public InventoryStateMarker() {
+    }
+
+    public InventoryStateMarker(String snapshotId, String phase, Long itemCount) {
+        this.snapshotId = snapshotId;
+        this.phase = phase;
+        this.itemCount = itemCount;
+        this.timestamp = LocalDateTime.now();
+    }
+
+    public String getSnapshotId() {
+        return snapshotId;
+    }
+
+    public void setSnapshotId(String snapshotId) {
+        this.snapshotId = snapshotId;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public Long getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(Long itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "InventoryStateMarker{" +
+                "snapshotId='" + snapshotId + '\'' +
+                ", phase='" + phase + '\'' +
+                ", itemCount=" + itemCount +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
@@ -1,13 +1,38 @@
 package com.inventory.inventoryservice.event;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.inventoryservice.filter.TraceContextFilter;
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Service for publishing events to Kafka topics.
+ *
+ * <p>Publishing never blocks the caller: events go to a bounded queue drained by a dedicated sender
+ * thread, which is the only thread that can be held up by the producer waiting for broker metadata or
+ * buffer space. When the queue is full, or an event cannot be delivered, the event is appended to a
+ * local spill file instead and replayed once sends have succeeded again for {@code replay-interval-ms},
+ * including after a restart. Replay goes {@code replay-batch-size} events at a time between draining the
+ * queue and stops at the first failed send. Replayed events arrive after newer ones. Events are only
+ * dropped when the spill file is full too.</p>
  */
 @Service
 public class KafkaProducerService {
@@ -15,6 +40,16 @@ public class KafkaProducerService {
     private static final Logger logger = LoggerFactory.getLogger(KafkaProducerService.class);
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final InventoryMetrics inventoryMetrics;
+    private final BlockingQueue<PendingEvent> queue;
+    private final EventSpillFile spillFile;
+    private final long replayIntervalMs;
+    private final int replayBatchSize;
+    private final Thread sender;
+
+    private volatile boolean running = true;
+    private volatile long lastFailureAt;
+    private long lastReplayAt;
 
     @Value("${app.kafka.topics.inventory-changes}")
     private String inventoryChangesTopic;
@@ -22,8 +57,26 @@ public class KafkaProducerService {
     @Value("${app.kafka.topics.low-stock-alerts}")
     private String lowStockAlertsTopic;
 
-    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate) {
+    // With change data capture these events are published from the database change stream instead
+    @Value("${app.inventory.cdc.enabled:false}")
+    private boolean changeCapture;
+
+    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate,
+                                InventoryMetrics inventoryMetrics,
+                                ObjectMapper objectMapper,
+                                @Value("${app.kafka.publisher.queue-capacity:10000}") int queueCapacity,
+                                @Value("${app.kafka.publisher.spill-directory:/var/lib/inventory/kafka-spill}") String spillDirectory,
+                                @Value("${app.kafka.publisher.spill-max-mb:512}") long spillMaxMb,
+                                @Value("${app.kafka.publisher.replay-interval-ms:5000}") long replayIntervalMs,
+                                @Value("${app.kafka.publisher.replay-batch-size:500}") int replayBatchSize) throws IOException {
         this.kafkaTemplate = kafkaTemplate;
+        this.inventoryMetrics = inventoryMetrics;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.spillFile = new EventSpillFile(Paths.get(spillDirectory), spillMaxMb * 1024 * 1024, objectMapper);
+        this.replayIntervalMs = replayIntervalMs;
+        this.replayBatchSize = replayBatchSize;
+        inventoryMetrics.registerPublishQueue(queue::size);
+        this.sender = Thread.ofPlatform().daemon().name("inventory-kafka-sender").start(this::drain);
     }
 
     /**
@@ -32,6 +85,20 @@ public class KafkaProducerService {
      * @param event The inventory change event to publish
      */
     public void publishInventoryChangeEvent(InventoryChangeEvent event) {
+        publishInventoryChangeEvent(event, true);
+    }
+
+    /**
+     * Publishes an inventory change event to the inventory-changes topic.
+     *
+     * @param event The inventory change event to publish
+     * @param rowChange Whether the change was written to the inventory_items row, so change data capture
+     *                  publishes it when enabled; changes of stock buckets or Redis-held stock are not
+     */
+    public void publishInventoryChangeEvent(InventoryChangeEvent event, boolean rowChange) {
+        if (changeCapture && rowChange) {
+            return;
+        }
         String key = event.getSku();
         publishEvent(inventoryChangesTopic, key, event);
     }
@@ -42,27 +109,123 @@ public class KafkaProducerService {
      * @param event The low stock alert event to publish
      */
     public void publishLowStockAlertEvent(LowStockAlertEvent event) {
+        publishLowStockAlertEvent(event, true);
+    }
+
+    /**
+     * Publishes a low stock alert event to the low-stock-alerts topic.
+     *
+     * @param event The low stock alert event to publish
+     * @param rowChange Whether the change was written to the inventory_items row, see
+     *                  {@link #publishInventoryChangeEvent(InventoryChangeEvent, boolean)}
+     */
+    public void publishLowStockAlertEvent(LowStockAlertEvent event, boolean rowChange) {
+        if (changeCapture && rowChange) {
+            return;
+        }
         String key = event.getSku();
         publishEvent(lowStockAlertsTopic, key, event);
     }
 
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        sender.interrupt();
+        sender.join(TimeUnit.SECONDS.toMillis(5));
+        // Whatever the sender did not get to is kept for the next start
+        List<PendingEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(this::spill);
+        spillFile.close();
+    }
+
     /**
-     * Generic method to publish an event to a Kafka topic.
+     * Queue an event for the sender thread.
+     * The caller's {@code traceparent} is forwarded as a record header when present.
      *
      * @param topic The topic to publish to
      * @param key The key for the message
      * @param event The event to publish
      */
     private void publishEvent(String topic, String key, Object event) {
+        PendingEvent pending = new PendingEvent(topic, key, event, MDC.get(TraceContextFilter.MDC_TRACEPARENT));
+        if (!running || !queue.offer(pending)) {
+            spill(pending);
+        }
+    }
+
+    private void drain() {
+        List<PendingEvent> events = new ArrayList<>();
+        boolean replaying = false;
+        while (running) {
+            try {
+                // While a replay is under way, take only what is queued already between its batches
+                PendingEvent event = queue.poll(replaying ? 0 : replayIntervalMs, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    send(event);
+                    queue.drainTo(events, replayBatchSize);
+                    events.forEach(this::send);
+                    events.clear();
+                }
+                long now = System.currentTimeMillis();
+                replaying = !spillFile.isEmpty() && now - lastFailureAt >= replayIntervalMs
+                        && (replaying || now - lastReplayAt >= replayIntervalMs);
+                if (replaying) {
+                    lastReplayAt = now;
+                    int replayed = spillFile.replay(this::send, replayBatchSize);
+                    inventoryMetrics.eventsReplayed(replayed);
+                    logger.debug("Replayed {} spilled events", replayed);
+                    replaying = replayed > 0;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Kafka sender failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Send an event, spilling it if it cannot be delivered.
+     *
+     * @param event The event to send
+     * @return Completes with whether the event was delivered
+     */
+    private CompletableFuture<Boolean> send(PendingEvent event) {
+        String topic = event.topic();
+        String key = event.key();
         try {
-            kafkaTemplate.send(topic, key, event).thenAccept(result -> {
-                logger.info("Event published to topic {} with key {}: {}", topic, key, event);
+            ProducerRecord<String, Object> record = new ProducerRecord<>(topic, key, event.value());
+            if (event.traceparent() != null) {
+                record.headers().add(TraceContextFilter.TRACEPARENT_HEADER, event.traceparent().getBytes(StandardCharsets.UTF_8));
+            }
+            Timer.Sample sample = inventoryMetrics.startKafkaSend();
+            return kafkaTemplate.send(record).thenApply(result -> {
+                inventoryMetrics.stopKafkaSend(sample, topic, true);
+                logger.info("Event published to topic {} with key {}: {}", topic, key, event.value());
+                return true;
             }).exceptionally(ex -> {
-                logger.error("Failed to publish event to topic {} with key {}: {}", topic, key, ex.getMessage(), ex);
-                return null;
+                inventoryMetrics.stopKafkaSend(sample, topic, false);
+                logger.error("Failed to publish event to topic {} with key {}, spilling it: {}", topic, key, ex.getMessage());
+                lastFailureAt = System.currentTimeMillis();
+                spill(event);
+                return false;
             });
         } catch (Exception e) {
-            logger.error("Error publishing event to topic {} with key {}: {}", topic, key, e.getMessage(), e);
+            logger.error("Error publishing event to topic {} with key {}, spilling it: {}", topic, key, e.getMessage());
+            lastFailureAt = System.currentTimeMillis();
+            spill(event);
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    private void spill(PendingEvent event) {
+        if (spillFile.append(event)) {
+            inventoryMetrics.eventSpilled();
+        } else {
+            inventoryMetrics.eventDropped();
+            logger.error("Dropped event for topic {} with key {}: the spill file is full", event.topic(), event.key());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+package com.inventory.inventoryservice.event;
+
+/**
+ * An event waiting to be handed to Kafka, with the trace context of the request that produced it.
+ */
+record PendingEvent(String topic, String key, Object value, String traceparent) {
+}
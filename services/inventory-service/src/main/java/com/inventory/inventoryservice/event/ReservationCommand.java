@@ -0,0 +1,66 @@
+package com.inventory.inventoryservice.event;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Asks for stock to be reserved, sent to the reservation-commands topic.
+ *
+ * <p>The outcome is sent as a {@link ReservationResult} with the same request ID to {@code replyTopic},
+ * or to the reservation-results topic when none is given.</p>
+ */
+public class ReservationCommand implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String requestId;
+    private String sku;
+    private Integer quantity;
+    private String replyTopic;
+
+    // Default constructor for serialization
+    public ReservationCommand() {
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getReplyTopic() {
+        return replyTopic;
+    }
+
+    public void setReplyTopic(String replyTopic) {
+        this.replyTopic = replyTopic;
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationCommand{" +
+                "requestId='" + requestId + '\'' +
+                ", sku='" + sku + '\'' +
+                ", quantity=" + quantity +
+                ", replyTopic='" + replyTopic + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,99 @@
+package com.inventory.inventoryservice.event;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a {@link ReservationCommand}, correlated to it by request ID.
+ */
+public class ReservationResult implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final String RESERVED = "RESERVED";
+    public static final String INSUFFICIENT_STOCK = "INSUFFICIENT_STOCK";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String INVALID = "INVALID";
+    public static final String FAILED = "FAILED";
+
+    private String requestId;
+    private String sku;
+    private Integer quantity;
+    private String status;
+    private Integer remainingQuantity;
+    private LocalDateTime timestamp;
+
+    // Default constructor for serialization
+    public ReservationResult() {
+    }
+
+    public ReservationResult(String requestId, String sku, Integer quantity, String status, Integer remainingQuantity) {
+        this.requestId = requestId;
+        this.sku = sku;
+        this.quantity = quantity;
+        this.status = status;
+        this.remainingQuantity = remainingQuantity;
+        this.timestamp = LocalDateTime.now();
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getRemainingQuantity() {
+        return remainingQuantity;
+    }
+
+    public void setRemainingQuantity(Integer remainingQuantity) {
+        this.remainingQuantity = remainingQuantity;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationResult{" +
+                "requestId='" + requestId + '\'' +
+                ", sku='" + sku + '\'' +
+                ", quantity=" + quantity +
+                ", status='" + status + '\'' +
+                ", remainingQuantity=" + remainingQuantity +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
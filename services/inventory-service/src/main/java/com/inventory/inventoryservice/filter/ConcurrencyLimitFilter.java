@@ -0,0 +1,110 @@
+package com.inventory.inventoryservice.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.inventoryservice.exception.ErrorResponse;
+import com.inventory.inventoryservice.limit.AdaptiveConcurrencyLimit;
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Sheds API requests beyond an {@link AdaptiveConcurrencyLimit} with 503 Service Unavailable and Retry-After.
+ *
+ * <p>Reads and writes have limits of their own, so a burst of quantity updates and reservations,
+ * which queue on row locks, does not starve lookups, and the other way round. Runs ahead of
+ * authentication and body parsing, so a rejected request costs next to nothing. A request that
+ * ends in 503 or 504 or throws counts as dropped and lowers its limit.</p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String API_PATH = "/api/";
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD");
+
+    private final AdaptiveConcurrencyLimit readLimit;
+    private final AdaptiveConcurrencyLimit writeLimit;
+    private final InventoryMetrics inventoryMetrics;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.inventory.concurrency-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.inventory.concurrency-limit.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(InventoryMetrics inventoryMetrics,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.inventory.concurrency-limit.tolerance:1.5}") double tolerance,
+                                 @Value("${app.inventory.concurrency-limit.smoothing:0.2}") double smoothing,
+                                 @Value("${app.inventory.concurrency-limit.window-ms:1000}") long windowMs,
+                                 @Value("${app.inventory.concurrency-limit.min-window-samples:10}") int minWindowSamples,
+                                 @Value("${app.inventory.concurrency-limit.long-window:600}") int longWindow,
+                                 @Value("${app.inventory.concurrency-limit.read.initial:40}") int readInitial,
+                                 @Value("${app.inventory.concurrency-limit.read.min:10}") int readMin,
+                                 @Value("${app.inventory.concurrency-limit.read.max:200}") int readMax,
+                                 @Value("${app.inventory.concurrency-limit.write.initial:20}") int writeInitial,
+                                 @Value("${app.inventory.concurrency-limit.write.min:5}") int writeMin,
+                                 @Value("${app.inventory.concurrency-limit.write.max:100}") int writeMax) {
+        this.inventoryMetrics = inventoryMetrics;
+        this.objectMapper = objectMapper;
+        this.readLimit = new AdaptiveConcurrencyLimit(readInitial, readMin, readMax, tolerance, smoothing,
+                windowMs, minWindowSamples, longWindow);
+        this.writeLimit = new AdaptiveConcurrencyLimit(writeInitial, writeMin, writeMax, tolerance, smoothing,
+                windowMs, minWindowSamples, longWindow);
+        inventoryMetrics.registerConcurrencyLimit("read", readLimit::getLimit, readLimit::getInFlight);
+        inventoryMetrics.registerConcurrencyLimit("write", writeLimit::getLimit, writeLimit::getInFlight);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(request.getContextPath() + API_PATH)
+                || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean read = READ_METHODS.contains(request.getMethod());
+        AdaptiveConcurrencyLimit limit = read ? readLimit : writeLimit;
+        if (!limit.tryAcquire()) {
+            inventoryMetrics.requestShed(read ? "read" : "write");
+            reject(request, response);
+            return;
+        }
+
+        long started = System.nanoTime();
+        boolean dropped = true;
+        try {
+            filterChain.doFilter(request, response);
+            int status = response.getStatus();
+            dropped = status == HttpStatus.SERVICE_UNAVAILABLE.value() || status == HttpStatus.GATEWAY_TIMEOUT.value();
+        } finally {
+            limit.release(System.nanoTime() - started, dropped);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                "Too many concurrent requests, retry later",
+                "uri=" + request.getRequestURI()));
+    }
+}
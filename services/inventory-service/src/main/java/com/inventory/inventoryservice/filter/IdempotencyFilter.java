@@ -0,0 +1,277 @@
+package com.inventory.inventoryservice.filter;
+
+import com.inventory.inventoryservice.idempotency.IdempotencyRecord;
+import com.inventory.inventoryservice.idempotency.IdempotencyStore;
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Makes mutating requests that carry an {@value #IDEMPOTENCY_KEY_HEADER} header safe to retry and hedge.
+ *
+ * <p>The first request with a key claims it and is executed; its response is stored and replayed,
+ * marked with {@value #REPLAYED_HEADER}, to every later request with the same key, without executing
+ * it again. A request arriving while the key's first request is still in flight waits for its
+ * response for a while, and otherwise gets 409 Conflict with Retry-After. Reusing a key for a
+ * different request is answered with 422. Server errors are not stored, so a failed request can be
+ * retried under its key. Keys are scoped to the authenticated caller.</p>
+ *
+ * <p>Runs after Spring Security, so only authorized requests claim keys or see stored responses.
+ * When Redis is unreachable, requests are executed without deduplication.</p>
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MS = 25;
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+    private static final Set<String> UNSTORED_HEADERS = Set.of(HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(), HttpHeaders.DATE.toLowerCase(),
+            HttpHeaders.SET_COOKIE.toLowerCase(), HttpHeaders.CONNECTION.toLowerCase());
+
+    private final IdempotencyStore idempotencyStore;
+    private final InventoryMetrics inventoryMetrics;
+
+    @Value("${app.inventory.idempotency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.inventory.idempotency.in-flight-wait-ms:5000}")
+    private long inFlightWaitMs;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore, InventoryMetrics inventoryMetrics) {
+        this.idempotencyStore = idempotencyStore;
+        this.inventoryMetrics = inventoryMetrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || IDEMPOTENT_METHODS.contains(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(),
+                    IDEMPOTENCY_KEY_HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String fingerprint = fingerprint(cachedRequest);
+        String key = caller() + ":" + idempotencyKey;
+
+        long deadline = System.currentTimeMillis() + inFlightWaitMs;
+        while (true) {
+            IdempotencyStore.Claim claim;
+            try {
+                claim = idempotencyStore.claim(key, fingerprint);
+            } catch (RuntimeException e) {
+                logger.warn("Idempotency store unavailable, executing request without deduplication: {}", e.getMessage());
+                filterChain.doFilter(cachedRequest, response);
+                return;
+            }
+
+            if (claim.isAcquired()) {
+                execute(claim, cachedRequest, response, filterChain, fingerprint);
+                inventoryMetrics.idempotentRequest("executed");
+                return;
+            }
+            IdempotencyRecord existing = claim.existing();
+            if (!existing.fingerprint().equals(fingerprint)) {
+                inventoryMetrics.idempotentRequest("mismatch");
+                response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                        IDEMPOTENCY_KEY_HEADER + " was already used for a different request");
+                return;
+            }
+            if (existing.isCompleted()) {
+                inventoryMetrics.idempotentRequest("replayed");
+                replay(existing, response);
+                return;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                inventoryMetrics.idempotentRequest("in_flight");
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpStatus.CONFLICT.value(), "A request with this " + IDEMPOTENCY_KEY_HEADER + " is in progress");
+                return;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+                return;
+            }
+        }
+    }
+
+    private void execute(IdempotencyStore.Claim claim, CachedBodyRequest request, HttpServletResponse response,
+                         FilterChain filterChain, String fingerprint) throws ServletException, IOException {
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(request, cachingResponse);
+            stored = store(claim, cachingResponse, fingerprint);
+        } finally {
+            if (!stored) {
+                releaseQuietly(claim);
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private boolean store(IdempotencyStore.Claim claim, ContentCachingResponseWrapper response, String fingerprint) {
+        if (response.getStatus() >= 500) {
+            return false;
+        }
+        try {
+            if (!idempotencyStore.complete(claim, new IdempotencyRecord(fingerprint, null, response.getStatus(),
+                    headersOf(response), response.getContentAsByteArray()))) {
+                logger.warn("Claim on an idempotency key expired before the response could be stored");
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // The request has been executed; failing it now would only invite a retry that executes it again
+            logger.warn("Could not store the response for an idempotency key: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        response.setStatus(record.status());
+        if (record.headers() != null) {
+            record.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (record.body() != null && record.body().length > 0) {
+            response.setContentLength(record.body().length);
+            response.getOutputStream().write(record.body());
+        }
+    }
+
+    private void releaseQuietly(IdempotencyStore.Claim claim) {
+        try {
+            idempotencyStore.release(claim);
+        } catch (RuntimeException e) {
+            // The claim expires by itself after the claim TTL
+            logger.warn("Could not release idempotency key claim: {}", e.getMessage());
+        }
+    }
+
+    private static Map<String, List<String>> headersOf(HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (!UNSTORED_HEADERS.contains(name.toLowerCase())) {
+                headers.put(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        if (response.getContentType() != null) {
+            headers.putIfAbsent(HttpHeaders.CONTENT_TYPE, List.of(response.getContentType()));
+        }
+        return headers;
+    }
+
+    private static String caller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : "anonymous";
+    }
+
+    private static String fingerprint(CachedBodyRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getRequestURI() + "?" + request.getQueryString() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update(request.body);
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the request body up front, so it can be fingerprinted and still be read by the controller
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.inventory.inventoryservice.filter;
+
+import com.inventory.inventoryservice.datasource.ReadConsistency;
+import com.inventory.inventoryservice.datasource.ReadYourWrites;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Takes the minimum WAL position a client needs to see on the replicated shard from the
+ * {@value ReadYourWrites#MIN_LSN_HEADER} header and makes it available to replica routing for the duration of the request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ReadConsistencyFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long requiredLsn = ReadYourWrites.requiredLsn(request.getHeader(ReadYourWrites.MIN_LSN_HEADER));
+        if (requiredLsn >= 0) {
+            ReadConsistency.requireLsn(requiredLsn);
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadConsistency.clear();
+        }
+    }
+}
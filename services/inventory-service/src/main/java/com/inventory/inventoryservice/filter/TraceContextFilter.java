@@ -0,0 +1,50 @@
+package com.inventory.inventoryservice.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Copies the W3C {@code traceparent} header set by the gateway into the logging MDC so log lines
+ * and published Kafka events can be correlated with the originating request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TraceContextFilter extends OncePerRequestFilter {
+
+    public static final String TRACEPARENT_HEADER = "traceparent";
+    public static final String MDC_TRACEPARENT = "traceparent";
+    public static final String MDC_TRACE_ID = "traceId";
+    public static final String MDC_SPAN_ID = "spanId";
+
+    private static final int TRACEPARENT_LENGTH = 55;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String traceparent = request.getHeader(TRACEPARENT_HEADER);
+        if (traceparent == null || traceparent.length() != TRACEPARENT_LENGTH) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        MDC.put(MDC_TRACEPARENT, traceparent);
+        MDC.put(MDC_TRACE_ID, traceparent.substring(3, 35));
+        MDC.put(MDC_SPAN_ID, traceparent.substring(36, 52));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_TRACEPARENT);
+            MDC.remove(MDC_TRACE_ID);
+            MDC.remove(MDC_SPAN_ID);
+        }
+    }
+}
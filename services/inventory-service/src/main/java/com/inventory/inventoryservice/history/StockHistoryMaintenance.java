@@ -0,0 +1,166 @@
+package com.inventory.inventoryservice.history;
+
+import com.inventory.inventoryservice.shard.ShardContext;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps the stock history queryable and bounded on every shard.
+ *
+ * <p>Checkpoints roll the latest snapshot of each SKU forward by the movements since the previous
+ * checkpoint, so they are derived from the history alone and never race with the item rows. They
+ * stop short of the last {@code snapshot-lag-seconds} so batched movements still in flight are not
+ * missed. Checkpointing instances take turns through an advisory lock.</p>
+ *
+ * <p>Retention first checkpoints every SKU at the retention horizon, then drops the daily movement
+ * partitions and the superseded snapshots from before it, so quantities at or after the horizon can
+ * still be reconstructed exactly.</p>
+ */
+@Component
+public class StockHistoryMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockHistoryMaintenance.class);
+
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext('stock_snapshots'))";
+
+    private static final String CHECKPOINT_SQL = """
+            WITH last_checkpoint AS (
+                SELECT COALESCE(MAX(snapshot_at), '-infinity'::timestamp) AS at FROM stock_snapshots
+            ),
+            changes AS (
+                SELECT m.sku, MAX(m.item_id) AS item_id, SUM(m.quantity_change) AS quantity_change
+                FROM stock_movements m, last_checkpoint c
+                WHERE m.occurred_at > c.at AND m.occurred_at <= :cutoff
+                GROUP BY m.sku
+            )
+            INSERT INTO stock_snapshots (sku, item_id, quantity, snapshot_at)
+            SELECT ch.sku, ch.item_id, COALESCE(s.quantity, 0) + ch.quantity_change, :cutoff
+            FROM changes ch
+            LEFT JOIN LATERAL (
+                SELECT p.quantity FROM stock_snapshots p WHERE p.sku = ch.sku ORDER BY p.snapshot_at DESC LIMIT 1
+            ) s ON TRUE
+            WHERE :cutoff > (SELECT at FROM last_checkpoint)
+            """;
+
+    private static final String HORIZON_CHECKPOINT_SQL = """
+            INSERT INTO stock_snapshots (sku, item_id, quantity, snapshot_at)
+            SELECT k.sku, k.item_id, COALESCE(s.quantity, 0) + d.quantity_change, :horizon
+            FROM (
+                SELECT sku, MAX(item_id) AS item_id FROM stock_movements WHERE occurred_at <= :horizon GROUP BY sku
+            ) k
+            LEFT JOIN LATERAL (
+                SELECT p.quantity, p.snapshot_at FROM stock_snapshots p
+                WHERE p.sku = k.sku AND p.snapshot_at <= :horizon
+                ORDER BY p.snapshot_at DESC LIMIT 1
+            ) s ON TRUE
+            CROSS JOIN LATERAL (
+                SELECT COALESCE(SUM(m.quantity_change), 0) AS quantity_change FROM stock_movements m
+                WHERE m.sku = k.sku AND m.occurred_at > COALESCE(s.snapshot_at, '-infinity'::timestamp)
+                  AND m.occurred_at <= :horizon
+            ) d
+            ON CONFLICT (sku, snapshot_at) DO NOTHING
+            """;
+
+    private static final String DELETE_SUPERSEDED_SNAPSHOTS_SQL = """
+            DELETE FROM stock_snapshots s
+            WHERE s.snapshot_at < :horizon
+              AND EXISTS (SELECT 1 FROM stock_snapshots n
+                          WHERE n.sku = s.sku AND n.snapshot_at > s.snapshot_at AND n.snapshot_at <= :horizon)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.inventory.stock-history.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.inventory.stock-history.snapshot-lag-seconds:60}")
+    private long snapshotLagSeconds;
+
+    @Value("${app.inventory.stock-history.retention-days:90}")
+    private int retentionDays;
+
+    @Value("${app.inventory.stock-history.partitions-ahead:3}")
+    private int partitionsAhead;
+
+    public StockHistoryMaintenance(DataSource dataSource, ShardRouter shardRouter,
+                                   PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * The earliest time whose stock can still be reconstructed
+     */
+    public LocalDateTime getRetentionHorizon() {
+        return LocalDate.now().minusDays(retentionDays).atStartOfDay();
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.stock-history.snapshot-interval-ms:3600000}",
+            initialDelayString = "${app.inventory.stock-history.snapshot-interval-ms:3600000}")
+    public void checkpoint() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(snapshotLagSeconds);
+        shardRouter.forEachShard(() -> {
+            try {
+                Integer skus = transactionTemplate.execute(status -> {
+                    jdbcTemplate.getJdbcTemplate().execute(LOCK_SQL);
+                    return jdbcTemplate.update(CHECKPOINT_SQL, new MapSqlParameterSource("cutoff", Timestamp.valueOf(cutoff)));
+                });
+                logger.debug("Checkpointed stock of {} SKUs on shard {} as of {}", skus, ShardContext.current(), cutoff);
+            } catch (Exception e) {
+                logger.warn("Could not checkpoint stock history on shard {}: {}", ShardContext.current(), e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.stock-history.partition-maintenance-interval-ms:3600000}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        LocalDateTime horizon = getRetentionHorizon();
+        MapSqlParameterSource horizonParameter = new MapSqlParameterSource("horizon", Timestamp.valueOf(horizon));
+
+        shardRouter.forEachShard(() -> {
+            try {
+                for (int day = 0; day <= partitionsAhead; day++) {
+                    jdbcTemplate.queryForObject("SELECT create_stock_movement_partition(:day)",
+                            new MapSqlParameterSource("day", Date.valueOf(today.plusDays(day))), Boolean.class);
+                }
+
+                Integer dropped = transactionTemplate.execute(status -> {
+                    jdbcTemplate.getJdbcTemplate().execute(LOCK_SQL);
+                    jdbcTemplate.update(HORIZON_CHECKPOINT_SQL, horizonParameter);
+                    jdbcTemplate.update(DELETE_SUPERSEDED_SNAPSHOTS_SQL, horizonParameter);
+                    return jdbcTemplate.queryForObject("SELECT drop_stock_movement_partitions(:before)",
+                            new MapSqlParameterSource("before", Date.valueOf(horizon.toLocalDate())), Integer.class);
+                });
+                if (dropped != null && dropped > 0) {
+                    logger.info("Dropped {} stock movement partitions older than {} on shard {}", dropped, horizon, ShardContext.current());
+                }
+            } catch (Exception e) {
+                logger.warn("Could not maintain stock history partitions on shard {}: {}", ShardContext.current(), e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package com.inventory.inventoryservice.history;
+
+import java.time.LocalDateTime;
+
+/**
+ * One applied quantity change of an inventory item, as kept in the {@code stock_movements} history.
+ */
+public class StockMovement {
+
+    private Long itemId;
+    private String sku;
+    private Long locationId;
+    private int quantityChange;
+    private String changeType;
+    private LocalDateTime occurredAt;
+
+    public StockMovement() {
+    }
+
+    public StockMovement(Long itemId, String sku, Long locationId, int quantityChange, String changeType,
+                         LocalDateTime occurredAt) {
+        this.itemId = itemId;
+        this.sku = sku;
+        this.locationId = locationId;
+        this.quantityChange = quantityChange;
+        this.changeType = changeType;
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public Long getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(Long locationId) {
+        this.locationId = locationId;
+    }
+
+    public int getQuantityChange() {
+        return quantityChange;
+    }
+
+    public void setQuantityChange(int quantityChange) {
+        this.quantityChange = quantityChange;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(String changeType) {
+        this.changeType = changeType;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(LocalDateTime occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
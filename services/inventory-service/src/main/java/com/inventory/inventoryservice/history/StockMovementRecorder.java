@@ -0,0 +1,146 @@
+package com.inventory.inventoryservice.history;
+
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import com.inventory.inventoryservice.model.InventoryItem;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Appends applied quantity changes to the {@code stock_movements} history.
+ *
+ * <p>Movements are queued once the change has committed and written in JDBC batches by a scheduled
+ * flush, one insert per shard, so recording costs the update and reservation paths no extra round
+ * trip. When the queue is full the recording thread flushes it itself. A batch that cannot be
+ * written is dropped and counted; the quantity change itself has already committed.</p>
+ */
+@Component
+public class StockMovementRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockMovementRecorder.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO stock_movements (item_id, sku, location_id, quantity_change, change_type, occurred_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final InventoryMetrics inventoryMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<StockMovement> queue;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public StockMovementRecorder(DataSource dataSource,
+                                 ShardRouter shardRouter,
+                                 InventoryMetrics inventoryMetrics,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.inventory.stock-history.enabled:true}") boolean enabled,
+                                 @Value("${app.inventory.stock-history.batch-size:1000}") int batchSize,
+                                 @Value("${app.inventory.stock-history.queue-capacity:50000}") int queueCapacity) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.shardRouter = shardRouter;
+        this.inventoryMetrics = inventoryMetrics;
+        // Batches may be written from an afterCommit callback, where the finished transaction is still bound
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Record a quantity change once the current transaction commits, or right away if there is none
+     * @param item The inventory item after the change
+     * @param quantityChange The applied change in quantity
+     * @param changeType The type of change (CREATE, UPDATE, RESERVATION, DELETE)
+     */
+    public void record(InventoryItem item, int quantityChange, String changeType) {
+        if (!enabled || quantityChange == 0) {
+            return;
+        }
+        StockMovement movement = new StockMovement(item.getId(), item.getSku(), item.getLocation().getId(),
+                quantityChange, changeType, null);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(movement);
+                }
+            });
+        } else {
+            enqueue(movement);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.stock-history.flush-interval-ms:200}")
+    public void flush() {
+        List<StockMovement> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void enqueue(StockMovement movement) {
+        movement.setOccurredAt(LocalDateTime.now());
+        if (!queue.offer(movement)) {
+            flush();
+            if (!queue.offer(movement)) {
+                write(List.of(movement));
+            }
+        }
+    }
+
+    private void write(List<StockMovement> batch) {
+        Map<Integer, List<StockMovement>> byShard = new TreeMap<>();
+        for (StockMovement movement : batch) {
+            byShard.computeIfAbsent(shardRouter.shardForSku(movement.getSku()), shard -> new ArrayList<>()).add(movement);
+        }
+
+        byShard.forEach((shard, movements) -> {
+            try {
+                shardRouter.runOnShard(shard, () -> transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(INSERT_SQL, movements, movements.size(), (statement, movement) -> {
+                            statement.setLong(1, movement.getItemId());
+                            statement.setString(2, movement.getSku());
+                            statement.setLong(3, movement.getLocationId());
+                            statement.setInt(4, movement.getQuantityChange());
+                            statement.setString(5, movement.getChangeType());
+                            statement.setTimestamp(6, Timestamp.valueOf(movement.getOccurredAt()));
+                        })));
+                inventoryMetrics.stockMovementsWritten(movements.size());
+            } catch (Exception e) {
+                logger.error("Could not write {} stock movements to shard {}, dropping them: {}",
+                        movements.size(), shard, e.getMessage());
+                inventoryMetrics.stockMovementsDropped(movements.size());
+            }
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.inventory.inventoryservice.idempotency;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What is stored under an idempotency key: the fingerprint of the request that claimed it and, once
+ * that request has completed, its response.
+ *
+ * @param fingerprint Hash of the method, URI and body of the request
+ * @param owner Tells apart the claims of different attempts, so an attempt only drops its own claim
+ * @param status The response status, or null while the request is in flight
+ * @param headers The response headers worth replaying
+ * @param body The response body
+ */
+public record IdempotencyRecord(String fingerprint, String owner, Integer status,
+                                Map<String, List<String>> headers, byte[] body) {
+
+    static IdempotencyRecord pending(String fingerprint, String owner) {
+        return new IdempotencyRecord(fingerprint, owner, null, null, null);
+    }
+
+    @JsonIgnore
+    public boolean isCompleted() {
+        return status != null;
+    }
+}
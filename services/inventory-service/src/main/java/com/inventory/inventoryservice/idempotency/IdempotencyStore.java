@@ -0,0 +1,144 @@
+package com.inventory.inventoryservice.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis store of idempotency keys, one compact JSON value per key.
+ *
+ * <p>A request claims its key by writing a pending record that expires after the claim TTL, so a
+ * claim left by a crashed instance does not block the key for long. While the request executes, its
+ * claim is renewed well before the TTL runs out. Once the request completes, the record is replaced
+ * by the response, kept for the record TTL. Completing and releasing only ever touch the request's
+ * own pending record, never one written by a request that took over an expired claim.</p>
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private static final String KEY_PREFIX = "inventory:idempotency:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final RedisScript<String> beginScript;
+    private final RedisScript<Long> completeScript;
+    private final RedisScript<Long> renewScript;
+    private final RedisScript<Long> releaseScript;
+    private final Set<Claim> activeClaims = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.inventory.idempotency.claim-ttl-ms:30000}")
+    private long claimTtlMs;
+
+    @Value("${app.inventory.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    public IdempotencyStore(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.beginScript = RedisScript.of(new ClassPathResource("scripts/idempotency_begin.lua"), String.class);
+        this.completeScript = RedisScript.of(new ClassPathResource("scripts/idempotency_complete.lua"), Long.class);
+        this.renewScript = RedisScript.of(new ClassPathResource("scripts/idempotency_renew.lua"), Long.class);
+        this.releaseScript = RedisScript.of(new ClassPathResource("scripts/idempotency_release.lua"), Long.class);
+    }
+
+    /**
+     * Claim a key for a request, unless another request holds or has completed it
+     * @param key The scoped idempotency key
+     * @param fingerprint The fingerprint of the request
+     * @return The claim; acquired, or carrying the record found under the key
+     */
+    public Claim claim(String key, String fingerprint) {
+        String pending = write(IdempotencyRecord.pending(fingerprint, UUID.randomUUID().toString()));
+        String existing = redisTemplate.execute(beginScript, List.of(KEY_PREFIX + key), pending, String.valueOf(claimTtlMs));
+        Claim claim = new Claim(key, pending, existing != null ? read(existing) : null);
+        if (claim.isAcquired()) {
+            activeClaims.add(claim);
+        }
+        return claim;
+    }
+
+    /**
+     * Store the response of a claimed request
+     * @param claim The acquired claim
+     * @param response The completed record
+     * @return False if the claim had already expired and the response was not stored
+     */
+    public boolean complete(Claim claim, IdempotencyRecord response) {
+        activeClaims.remove(claim);
+        Long stored = redisTemplate.execute(completeScript, List.of(KEY_PREFIX + claim.key()), claim.pendingRecord(),
+                write(response), String.valueOf(ttlHours * 3_600_000));
+        return stored != null && stored == 1;
+    }
+
+    /**
+     * Drop a claim without storing a response, so the request may be executed again
+     * @param claim The acquired claim
+     */
+    public void release(Claim claim) {
+        activeClaims.remove(claim);
+        redisTemplate.execute(releaseScript, List.of(KEY_PREFIX + claim.key()), claim.pendingRecord());
+    }
+
+    /**
+     * Extends the claims of the requests still executing on this instance
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.idempotency.claim-renew-interval-ms:10000}")
+    public void renewClaims() {
+        for (Claim claim : activeClaims) {
+            try {
+                Long renewed = redisTemplate.execute(renewScript, List.of(KEY_PREFIX + claim.key()),
+                        claim.pendingRecord(), String.valueOf(claimTtlMs));
+                if (renewed == null || renewed == 0) {
+                    logger.warn("Claim on an idempotency key expired while its request was executing");
+                    activeClaims.remove(claim);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not renew idempotency key claims: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private String write(IdempotencyRecord record) {
+        try {
+            return objectMapper.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize idempotency record", e);
+        }
+    }
+
+    private IdempotencyRecord read(String value) {
+        try {
+            return objectMapper.readValue(value, IdempotencyRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read idempotency record", e);
+        }
+    }
+
+    /**
+     * The outcome of claiming a key
+     * @param key The scoped idempotency key
+     * @param pendingRecord The pending record this claim wrote, if it was acquired
+     * @param existing The record already stored under the key, or null if the claim was acquired
+     */
+    public record Claim(String key, String pendingRecord, IdempotencyRecord existing) {
+
+        public boolean isAcquired() {
+            return existing == null;
+        }
+    }
+}
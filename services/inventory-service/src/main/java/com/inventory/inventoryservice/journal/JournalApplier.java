@@ -0,0 +1,183 @@
+package com.inventory.inventoryservice.journal;
+
+import com.inventory.inventoryservice.concurrency.QuantityChangeApplied;
+import com.inventory.inventoryservice.concurrency.StockMutationExecutor;
+import com.inventory.inventoryservice.concurrency.StockMutationResult;
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import com.inventory.inventoryservice.repository.InventoryItemRepository;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Applies the entries of the {@link QuantityJournal} to the database in batches.
+ *
+ * <p>Each batch is applied with one transaction per shard, in which the changes are summed per item
+ * and the shard's {@code journal_offsets} row for this journal is advanced to the last applied
+ * sequence. Entries at or below the recorded offset are skipped, so replaying the journal after a
+ * restart, or retrying a batch that failed on another shard, applies every change exactly once.
+ * The journal ID must therefore stay the same for a given journal directory.</p>
+ *
+ * <p>Committed changes are announced as {@link QuantityChangeApplied} events, which publish them
+ * the way a directly applied change would be.</p>
+ */
+@Component
+public class JournalApplier {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalApplier.class);
+
+    private static final String ENSURE_OFFSET_SQL =
+            "INSERT INTO journal_offsets (journal_id) VALUES (:journalId) ON CONFLICT (journal_id) DO NOTHING";
+    private static final String LOCK_OFFSET_SQL =
+            "SELECT applied_seq FROM journal_offsets WHERE journal_id = :journalId FOR UPDATE";
+    private static final String ADVANCE_OFFSET_SQL =
+            "UPDATE journal_offsets SET applied_seq = :sequence, updated_at = CURRENT_TIMESTAMP WHERE journal_id = :journalId";
+
+    private final QuantityJournal quantityJournal;
+    private final StockMutationExecutor stockMutationExecutor;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final InventoryMetrics inventoryMetrics;
+    private final ShardRouter shardRouter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String journalId;
+    private final int batchSize;
+    private final long retryBackoffMs;
+
+    private volatile boolean running;
+    private Thread applier;
+
+    public JournalApplier(QuantityJournal quantityJournal,
+                          StockMutationExecutor stockMutationExecutor,
+                          InventoryItemRepository inventoryItemRepository,
+                          InventoryMetrics inventoryMetrics,
+                          ShardRouter shardRouter,
+                          ApplicationEventPublisher eventPublisher,
+                          DataSource dataSource,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.inventory.journal.id:${HOSTNAME:inventory-service}}") String journalId,
+                          @Value("${app.inventory.journal.batch-size:500}") int batchSize,
+                          @Value("${app.inventory.journal.retry-backoff-ms:1000}") long retryBackoffMs) {
+        this.quantityJournal = quantityJournal;
+        this.stockMutationExecutor = stockMutationExecutor;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.inventoryMetrics = inventoryMetrics;
+        this.shardRouter = shardRouter;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journalId = journalId;
+        this.batchSize = batchSize;
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!quantityJournal.isEnabled()) {
+            return;
+        }
+        running = true;
+        applier = Thread.ofPlatform().daemon().name("inventory-journal-applier").start(this::applyLoop);
+        logger.info("Applying quantity journal '{}' in batches of {}", journalId, batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (applier != null) {
+            applier.interrupt();
+        }
+    }
+
+    private void applyLoop() {
+        List<JournalEntry> batch = null;
+        while (running) {
+            try {
+                if (batch == null) {
+                    batch = quantityJournal.takeUnapplied(batchSize);
+                }
+                apply(batch);
+                batch = null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // The batch stays in hand and is retried; entries already applied on a shard are skipped
+                logger.error("Could not apply {} journaled quantity changes, retrying: {}", batch.size(), e.getMessage());
+                try {
+                    Thread.sleep(retryBackoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(List<JournalEntry> batch) {
+        Map<Integer, List<JournalEntry>> byShard = new TreeMap<>();
+        for (JournalEntry entry : batch) {
+            byShard.computeIfAbsent(shardRouter.shardForItem(entry.getItemId()), shard -> new ArrayList<>()).add(entry);
+        }
+
+        byShard.forEach((shard, entries) -> {
+            List<StockMutationResult> results = shardRouter.onShard(shard,
+                    () -> transactionTemplate.execute(status -> applyOnShard(entries)));
+            results.forEach(result -> eventPublisher.publishEvent(new QuantityChangeApplied(result, "UPDATE")));
+        });
+
+        quantityJournal.release(batch.get(batch.size() - 1).getSequence());
+        inventoryMetrics.journalApplied(batch.size());
+    }
+
+    private List<StockMutationResult> applyOnShard(List<JournalEntry> entries) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("journalId", journalId);
+        jdbcTemplate.update(ENSURE_OFFSET_SQL, parameters);
+        long appliedSequence = jdbcTemplate.queryForObject(LOCK_OFFSET_SQL, parameters, Long.class);
+
+        Map<Long, Integer> changes = new LinkedHashMap<>();
+        long lastSequence = appliedSequence;
+        for (JournalEntry entry : entries) {
+            if (entry.getSequence() > appliedSequence) {
+                changes.merge(entry.getItemId(), entry.getQuantityChange(), Integer::sum);
+                lastSequence = entry.getSequence();
+            }
+        }
+        if (changes.isEmpty()) {
+            return List.of();
+        }
+
+        List<StockMutationResult> results = new ArrayList<>(changes.size());
+        changes.forEach((itemId, quantityChange) -> {
+            if (!inventoryItemRepository.existsById(itemId)) {
+                logger.warn("Inventory item {} no longer exists, dropping journaled change of {}", itemId, quantityChange);
+                return;
+            }
+            StockMutationResult result = stockMutationExecutor.applyById(itemId, quantityChange);
+            if (result.isApplied()) {
+                results.add(result);
+            }
+        });
+
+        jdbcTemplate.update(ADVANCE_OFFSET_SQL, parameters.addValue("sequence", lastSequence));
+        return results;
+    }
+}
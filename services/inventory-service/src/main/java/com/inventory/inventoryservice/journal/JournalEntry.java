@@ -0,0 +1,29 @@
+package com.inventory.inventoryservice.journal;
+
+/**
+ * A quantity change held in the local journal until it has been applied to the database.
+ */
+public final class JournalEntry {
+
+    private final long sequence;
+    private final long itemId;
+    private final int quantityChange;
+
+    public JournalEntry(long sequence, long itemId, int quantityChange) {
+        this.sequence = sequence;
+        this.itemId = itemId;
+        this.quantityChange = quantityChange;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getItemId() {
+        return itemId;
+    }
+
+    public int getQuantityChange() {
+        return quantityChange;
+    }
+}
@@ -0,0 +1,362 @@
+package com.inventory.inventoryservice.journal;
+
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Local write-ahead journal for quantity increments, so a request can be acknowledged after a local
+ * disk write instead of a database commit.
+ *
+ * <p>Entries are appended to memory-mapped segment files of {@code segment-size-mb}, a new segment
+ * being started when one is full and on every start. A single syncer thread forces the mapped pages
+ * to disk for everything appended during the last {@code fsync-interval-micros}, so concurrent
+ * appenders share one fsync; an append returns once its entry is durable. Each entry carries a
+ * CRC so a torn write at the end of a segment is recognised and ignored on recovery.</p>
+ *
+ * <p>Entries are handed to {@link JournalApplier} in sequence order. Entries found on disk at start
+ * are handed over first; the applier skips those it had already applied, and segments are deleted once
+ * every entry in them has been applied. The newest segment is never deleted, and segment files are
+ * named after their first sequence, so the file names carry the sequence on even when every entry
+ * has been applied; numbering never restarts below what the applier has recorded.</p>
+ */
+@Component
+public class QuantityJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuantityJournal.class);
+
+    // Sequence, item ID and change, followed by the CRC32 of those 20 bytes
+    static final int ENTRY_SIZE = 24;
+    private static final int PAYLOAD_SIZE = 20;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final InventoryMetrics inventoryMetrics;
+    private final boolean enabled;
+    private final boolean fsync;
+    private final long fsyncIntervalNanos;
+    private final int segmentSize;
+    private final int maxPending;
+    private final Path directory;
+    private final BlockingQueue<JournalEntry> unapplied = new LinkedBlockingQueue<>();
+    private final NavigableMap<Long, Path> segments = new TreeMap<>();
+    private final Object appendLock = new Object();
+    private final Object durabilityMonitor = new Object();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long nextSequence = 1;
+    private volatile long writtenSequence;
+    private volatile long durableSequence;
+    private volatile boolean running;
+    private Thread syncer;
+
+    public QuantityJournal(InventoryMetrics inventoryMetrics,
+                           @Value("${app.inventory.journal.enabled:false}") boolean enabled,
+                           @Value("${app.inventory.journal.directory:/var/lib/inventory/journal}") String directory,
+                           @Value("${app.inventory.journal.segment-size-mb:64}") int segmentSizeMb,
+                           @Value("${app.inventory.journal.fsync:true}") boolean fsync,
+                           @Value("${app.inventory.journal.fsync-interval-micros:200}") long fsyncIntervalMicros,
+                           @Value("${app.inventory.journal.max-pending:100000}") int maxPending) {
+        this.inventoryMetrics = inventoryMetrics;
+        this.enabled = enabled;
+        this.fsync = fsync;
+        this.fsyncIntervalNanos = TimeUnit.MICROSECONDS.toNanos(fsyncIntervalMicros);
+        this.segmentSize = Math.max(1, segmentSizeMb) * 1024 * 1024 / ENTRY_SIZE * ENTRY_SIZE;
+        this.maxPending = maxPending;
+        this.directory = Paths.get(directory);
+        if (enabled) {
+            open();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && running;
+    }
+
+    /**
+     * Whether the applier is far enough behind that new changes should be applied directly instead
+     */
+    public boolean isBacklogged() {
+        return unapplied.size() >= maxPending;
+    }
+
+    /**
+     * Append a quantity change and wait until it is durable
+     * @param itemId The ID of the inventory item
+     * @param quantityChange The change in quantity
+     * @return The journaled entry
+     * @throws IllegalStateException if the journal is closed or the entry cannot be written
+     */
+    public JournalEntry append(long itemId, int quantityChange) {
+        JournalEntry entry;
+        synchronized (appendLock) {
+            if (!running) {
+                throw new IllegalStateException("The quantity journal is closed");
+            }
+            if (buffer.remaining() < ENTRY_SIZE) {
+                rotate();
+            }
+            entry = new JournalEntry(nextSequence++, itemId, quantityChange);
+            write(buffer, entry);
+            writtenSequence = entry.getSequence();
+            // Handed over under the lock so the applier sees entries in sequence order
+            unapplied.add(entry);
+        }
+
+        if (fsync) {
+            awaitDurable(entry.getSequence());
+        }
+        return entry;
+    }
+
+    /**
+     * Take the next entries to apply, waiting for at least one
+     * @param maxEntries The maximum number of entries to take
+     * @return The entries in sequence order
+     */
+    List<JournalEntry> takeUnapplied(int maxEntries) throws InterruptedException {
+        List<JournalEntry> entries = new ArrayList<>(maxEntries);
+        entries.add(unapplied.take());
+        unapplied.drainTo(entries, maxEntries - 1);
+        return entries;
+    }
+
+    /**
+     * Delete the segments whose entries have all been applied
+     * @param appliedThrough The sequence up to which every entry has been applied
+     */
+    void release(long appliedThrough) {
+        synchronized (appendLock) {
+            Map.Entry<Long, Path> segment = segments.firstEntry();
+            while (segment != null) {
+                Long nextFirst = segments.higherKey(segment.getKey());
+                if (nextFirst == null || nextFirst - 1 > appliedThrough) {
+                    return;
+                }
+                try {
+                    Files.deleteIfExists(segment.getValue());
+                } catch (IOException e) {
+                    logger.warn("Could not delete journal segment {}: {}", segment.getValue(), e.getMessage());
+                    return;
+                }
+                segments.remove(segment.getKey());
+                segment = segments.firstEntry();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (appendLock) {
+            running = false;
+            buffer.force();
+            closeChannel();
+        }
+        synchronized (durabilityMonitor) {
+            durableSequence = writtenSequence;
+            durabilityMonitor.notifyAll();
+        }
+        syncer.interrupt();
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> emptySegments = new ArrayList<>();
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .sorted()
+                        .forEach(segment -> recover(segment, emptySegments));
+            }
+            // Empty segments still carry the sequence in their name; drop them only once the new segment is on disk
+            Path current = startSegment();
+            for (Path segment : emptySegments) {
+                if (!segment.equals(current)) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the quantity journal in " + directory, e);
+        }
+        running = true;
+        if (!unapplied.isEmpty()) {
+            logger.info("Recovered {} journaled quantity changes to replay from {}", unapplied.size(), directory);
+        }
+        syncer = Thread.ofPlatform().daemon().name("inventory-journal-sync").start(this::syncLoop);
+    }
+
+    private void recover(Path segment, List<Path> emptySegments) {
+        try (FileChannel readChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+            Long first = null;
+            while (mapped.remaining() >= ENTRY_SIZE) {
+                JournalEntry entry = read(mapped);
+                if (entry == null) {
+                    break;
+                }
+                if (first == null) {
+                    first = entry.getSequence();
+                }
+                unapplied.add(entry);
+                nextSequence = Math.max(nextSequence, entry.getSequence() + 1);
+            }
+            if (first != null) {
+                segments.put(first, segment);
+            } else {
+                nextSequence = Math.max(nextSequence, firstSequenceOf(segment));
+                emptySegments.add(segment);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read journal segment " + segment, e);
+        }
+    }
+
+    private static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Unexpected journal segment name " + name, e);
+        }
+    }
+
+    private void syncDirectory() throws IOException {
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+    }
+
+    private Path startSegment() throws IOException {
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+        // A segment of that name can only be an empty one left by the previous run
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segments.put(nextSequence, segment);
+        // The newest segment name is what keeps the sequence once older segments are deleted
+        syncDirectory();
+        return segment;
+    }
+
+    private void rotate() {
+        // Entries of the full segment must be durable before the syncer moves on to the new one
+        buffer.force();
+        closeChannel();
+        try {
+            startSegment();
+        } catch (IOException e) {
+            running = false;
+            throw new IllegalStateException("Could not start a new journal segment", e);
+        }
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Could not close journal segment: {}", e.getMessage());
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        synchronized (durabilityMonitor) {
+            durabilityMonitor.notifyAll();
+            while (durableSequence < sequence) {
+                try {
+                    durabilityMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the journal to sync", e);
+                }
+            }
+        }
+    }
+
+    private void syncLoop() {
+        while (running) {
+            try {
+                synchronized (durabilityMonitor) {
+                    while (running && durableSequence >= writtenSequence) {
+                        durabilityMonitor.wait();
+                    }
+                }
+                // Let more appends join this fsync
+                LockSupport.parkNanos(fsyncIntervalNanos);
+
+                long target;
+                MappedByteBuffer current;
+                synchronized (appendLock) {
+                    if (!running) {
+                        return;
+                    }
+                    target = writtenSequence;
+                    current = buffer;
+                }
+                current.force();
+
+                synchronized (durabilityMonitor) {
+                    inventoryMetrics.journalSynced((int) (target - durableSequence));
+                    durableSequence = target;
+                    durabilityMonitor.notifyAll();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Could not sync the quantity journal", e);
+            }
+        }
+    }
+
+    private static void write(ByteBuffer target, JournalEntry entry) {
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_SIZE)
+                .putLong(entry.getSequence())
+                .putLong(entry.getItemId())
+                .putInt(entry.getQuantityChange());
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        target.put(payload.array()).putInt((int) crc.getValue());
+    }
+
+    private static JournalEntry read(ByteBuffer source) {
+        byte[] payload = new byte[PAYLOAD_SIZE];
+        source.get(payload);
+        int storedCrc = source.getInt();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer fields = ByteBuffer.wrap(payload);
+        long sequence = fields.getLong();
+        if (sequence == 0 || (int) crc.getValue() != storedCrc) {
+            return null;
+        }
+        return new JournalEntry(sequence, fields.getLong(), fields.getInt());
+    }
+}
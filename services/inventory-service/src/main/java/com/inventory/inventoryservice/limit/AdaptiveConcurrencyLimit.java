@@ -0,0 +1,141 @@
+package com.inventory.inventoryservice.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows measured latency, after the gradient algorithm of Netflix's
+ * concurrency-limits library.
+ *
+ * <p>Latencies are averaged over short windows and compared with a long-term average. While they
+ * stay within {@code tolerance} of it, the limit grows by a queue allowance of sqrt(limit) per
+ * window; once requests start to queue and latency rises, the limit shrinks in proportion, down
+ * to half per window. The long-term average slowly follows a sustained rise, so the limit settles
+ * at the concurrency the backend can serve without queueing instead of collapsing for good. The
+ * limit is only raised from windows in which at least half of it was in use, so an idle service
+ * does not inflate it.</p>
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    private final int minWindowSamples;
+    private final double longWindowFactor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long windowStart = System.nanoTime();
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    /**
+     * @param initialLimit The limit until latencies have been measured
+     * @param minLimit The lowest the limit may fall
+     * @param maxLimit The highest the limit may rise
+     * @param tolerance How many times the long-term latency a window may average before the limit shrinks
+     * @param smoothing How much of each window's new limit is taken over, between 0 and 1
+     * @param windowMillis The shortest window latencies are averaged over
+     * @param minWindowSamples The fewest samples a window averages over
+     * @param longWindow The number of windows the long-term latency averages over
+     */
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                                    long windowMillis, int minWindowSamples, int longWindow) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max, got "
+                    + minLimit + ", " + initialLimit + " and " + maxLimit);
+        }
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = windowMillis * 1_000_000;
+        this.minWindowSamples = minWindowSamples;
+        this.longWindowFactor = 2.0 / (longWindow + 1);
+    }
+
+    /**
+     * Take a slot for a request
+     * @return False if the limit is reached and the request should be rejected
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back the slot of a completed request
+     * @param rttNanos How long the request took
+     * @param dropped Whether the request failed in a way that signals overload, such as a timeout
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int concurrency = inFlight.getAndDecrement();
+        sample(rttNanos, concurrency, dropped);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long rttNanos, int concurrency, boolean dropped) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, concurrency);
+        windowDropped |= dropped;
+
+        long now = System.nanoTime();
+        if (now - windowStart < windowNanos || windowSamples < minWindowSamples) {
+            return;
+        }
+        double shortRtt = (double) windowRttSum / windowSamples;
+        update(shortRtt, windowMaxInFlight, windowDropped);
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+    }
+
+    private void update(double shortRtt, int maxInFlight, boolean dropped) {
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            longRttNanos += (shortRtt - longRttNanos) * longWindowFactor;
+        }
+        // Latency well below the long-term average means the load that raised it is gone; catch up quickly
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        double newLimit;
+        if (dropped) {
+            newLimit = estimatedLimit * 0.9;
+        } else if (maxInFlight < estimatedLimit / 2) {
+            // Too little load to tell whether more concurrency would be served as fast
+            return;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRtt));
+            newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * (1 - smoothing) + newLimit * smoothing));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,246 @@
+package com.inventory.inventoryservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Meters for the inventory hot paths that cannot be covered by {@code @Timed}.
+ * Histogram and SLO buckets for these timers are configured under {@code management.metrics.distribution}.
+ */
+@Component
+public class InventoryMetrics {
+
+    public static final String LOCK_WAIT = "inventory.lock.wait";
+    public static final String KAFKA_SEND = "inventory.kafka.send";
+    public static final String KAFKA_PUBLISH = "inventory.kafka.publish";
+    public static final String RESERVATIONS = "inventory.reservations";
+    public static final String RESERVATION_HOLDS = "inventory.reservation.holds";
+    public static final String IDEMPOTENCY = "inventory.idempotency";
+    public static final String LIMITER = "inventory.limiter";
+    public static final String CONCURRENCY = "inventory.concurrency";
+    public static final String GROUP_COMMIT = "inventory.group.commit";
+    public static final String STOCK_HISTORY = "inventory.stock.history";
+    public static final String JOURNAL = "inventory.journal";
+    public static final String CHANGE_CAPTURE = "inventory.cdc";
+
+    private final MeterRegistry registry;
+    private final Timer lockWaitById;
+    private final Timer lockWaitBySku;
+    private final Counter reservationSucceeded;
+    private final Counter reservationInsufficientStock;
+    private final Counter reservationNotFound;
+    private final Counter optimisticConflicts;
+    private final Counter optimisticRetries;
+    private final Counter pessimisticFallbacks;
+    private final Counter bucketMisses;
+    private final DistributionSummary groupCommitBatchSize;
+    private final Counter stockMovementsWritten;
+    private final Counter stockMovementsDropped;
+    private final DistributionSummary journalSyncBatchSize;
+    private final Counter journalApplied;
+    private final Counter changesCaptured;
+    private final Counter eventsSpilled;
+    private final Counter eventsReplayed;
+    private final Counter eventsDropped;
+
+    public InventoryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.lockWaitById = Timer.builder(LOCK_WAIT)
+                .description("Time spent acquiring a row lock on an inventory item")
+                .tag("lookup", "id")
+                .register(registry);
+        this.lockWaitBySku = Timer.builder(LOCK_WAIT)
+                .description("Time spent acquiring a row lock on an inventory item")
+                .tag("lookup", "sku")
+                .register(registry);
+        this.reservationSucceeded = reservationCounter("success");
+        this.reservationInsufficientStock = reservationCounter("insufficient_stock");
+        this.reservationNotFound = reservationCounter("not_found");
+        this.optimisticConflicts = Counter.builder(CONCURRENCY + ".conflicts")
+                .description("Optimistic quantity updates that failed the version check")
+                .register(registry);
+        this.optimisticRetries = Counter.builder(CONCURRENCY + ".retries")
+                .description("Optimistic quantity updates retried after a version conflict")
+                .register(registry);
+        this.pessimisticFallbacks = Counter.builder(CONCURRENCY + ".fallbacks")
+                .description("Quantity updates that fell back to a row lock after exhausting optimistic retries")
+                .register(registry);
+        this.bucketMisses = Counter.builder(CONCURRENCY + ".bucket.misses")
+                .description("Stock bucket updates that found too little stock in the chosen bucket")
+                .register(registry);
+        this.groupCommitBatchSize = DistributionSummary.builder(GROUP_COMMIT + ".batch.size")
+                .description("Quantity changes applied per group-commit transaction")
+                .register(registry);
+        this.stockMovementsWritten = Counter.builder(STOCK_HISTORY + ".movements")
+                .description("Stock movements appended to the history")
+                .tag("outcome", "written")
+                .register(registry);
+        this.stockMovementsDropped = Counter.builder(STOCK_HISTORY + ".movements")
+                .description("Stock movements appended to the history")
+                .tag("outcome", "dropped")
+                .register(registry);
+        this.journalSyncBatchSize = DistributionSummary.builder(JOURNAL + ".sync.batch.size")
+                .description("Journal entries made durable per fsync")
+                .register(registry);
+        this.journalApplied = Counter.builder(JOURNAL + ".applied")
+                .description("Journaled quantity changes applied to the database")
+                .register(registry);
+        this.changesCaptured = Counter.builder(CHANGE_CAPTURE + ".events")
+                .description("Events published from the inventory_items change stream")
+                .register(registry);
+        this.eventsSpilled = publishCounter("spilled");
+        this.eventsReplayed = publishCounter("replayed");
+        this.eventsDropped = publishCounter("dropped");
+    }
+
+    public <T> T timeLockWaitById(Supplier<T> lockingQuery) {
+        return lockWaitById.record(lockingQuery);
+    }
+
+    public <T> T timeLockWaitBySku(Supplier<T> lockingQuery) {
+        return lockWaitBySku.record(lockingQuery);
+    }
+
+    public void reservationSucceeded() {
+        reservationSucceeded.increment();
+    }
+
+    public void reservationInsufficientStock() {
+        reservationInsufficientStock.increment();
+    }
+
+    public void reservationNotFound() {
+        reservationNotFound.increment();
+    }
+
+    public void optimisticConflict() {
+        optimisticConflicts.increment();
+    }
+
+    public void optimisticRetry() {
+        optimisticRetries.increment();
+    }
+
+    public void pessimisticFallback() {
+        pessimisticFallbacks.increment();
+    }
+
+    public void bucketMiss() {
+        bucketMisses.increment();
+    }
+
+    public void groupCommitted(int batchSize) {
+        groupCommitBatchSize.record(batchSize);
+    }
+
+    public void stockMovementsWritten(int count) {
+        stockMovementsWritten.increment(count);
+    }
+
+    public void stockMovementsDropped(int count) {
+        stockMovementsDropped.increment(count);
+    }
+
+    public void journalSynced(int entries) {
+        journalSyncBatchSize.record(entries);
+    }
+
+    public void journalApplied(int entries) {
+        journalApplied.increment(entries);
+    }
+
+    public void changesCaptured(int events) {
+        changesCaptured.increment(events);
+    }
+
+    public void registerPublishQueue(Supplier<Number> depth) {
+        Gauge.builder(KAFKA_PUBLISH + ".queue.depth", depth)
+                .description("Events waiting for the Kafka sender thread")
+                .register(registry);
+    }
+
+    public void eventSpilled() {
+        eventsSpilled.increment();
+    }
+
+    public void eventsReplayed(int count) {
+        eventsReplayed.increment(count);
+    }
+
+    public void eventDropped() {
+        eventsDropped.increment();
+    }
+
+    public void registerScheduledHolds(Supplier<Number> count) {
+        Gauge.builder(RESERVATION_HOLDS + ".scheduled", count)
+                .description("Reservation holds waiting in the expiry timing wheel of this instance")
+                .register(registry);
+    }
+
+    public void holdsEnded(String outcome, int count) {
+        Counter.builder(RESERVATION_HOLDS + ".ended")
+                .description("Reservation holds that ended, by how they ended")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment(count);
+    }
+
+    public void idempotentRequest(String outcome) {
+        Counter.builder(IDEMPOTENCY + ".requests")
+                .description("Requests carrying an Idempotency-Key, by how they were answered")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    public void registerConcurrencyLimit(String operation, Supplier<Number> limit, Supplier<Number> inFlight) {
+        Gauge.builder(LIMITER + ".limit", limit)
+                .description("Current adaptive concurrency limit")
+                .tag("operation", operation)
+                .register(registry);
+        Gauge.builder(LIMITER + ".in.flight", inFlight)
+                .description("Requests currently holding a concurrency limiter slot")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    public void requestShed(String operation) {
+        Counter.builder(LIMITER + ".rejected")
+                .description("Requests rejected with 503 because the concurrency limit was reached")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
+
+    public Timer.Sample startKafkaSend() {
+        return Timer.start(registry);
+    }
+
+    public void stopKafkaSend(Timer.Sample sample, String topic, boolean success) {
+        sample.stop(Timer.builder(KAFKA_SEND)
+                .description("Time from handing an event to the producer until the broker acknowledged it")
+                .tag("topic", topic)
+                .tag("outcome", success ? "success" : "failure")
+                .register(registry));
+    }
+
+    private Counter publishCounter(String outcome) {
+        return Counter.builder(KAFKA_PUBLISH + ".events")
+                .description("Events that bypassed the Kafka send queue, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Counter reservationCounter(String outcome) {
+        return Counter.builder(RESERVATIONS)
+                .description("Reservation attempts by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
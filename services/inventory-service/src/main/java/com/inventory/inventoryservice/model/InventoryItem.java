@@ -1,5 +1,7 @@
 package com.inventory.inventoryservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -57,6 +59,21 @@ public class InventoryItem implements Serializable {
     @Version
     private Long version;
 
+    // Sequence of the last Redis stock mutation applied to this row (hot SKUs only)
+    @JsonIgnore
+    @Column(name = "stock_sequence")
+    private Long stockSequence;
+
+    // Number of stock buckets the quantity is split across, or null if the quantity lives on this row alone
+    @JsonIgnore
+    @Column(name = "bucket_count")
+    private Integer bucketCount;
+
+    // Stock set aside by pending reservation holds; quantity is what remains available
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "reserved_quantity", nullable = false)
+    private Integer reservedQuantity = 0;
+
     public InventoryItem() {
     }
 
@@ -178,6 +195,57 @@ public class InventoryItem implements Serializable {
         this.version = version;
     }
 
+    public Long getStockSequence() {
+        return stockSequence;
+    }
+
+    public void setStockSequence(Long stockSequence) {
+        this.stockSequence = stockSequence;
+    }
+
+    public Integer getBucketCount() {
+        return bucketCount;
+    }
+
+    public void setBucketCount(Integer bucketCount) {
+        this.bucketCount = bucketCount;
+    }
+
+    @JsonIgnore
+    public boolean isBucketed() {
+        return bucketCount != null;
+    }
+
+    /**
+     * @return A detached copy of this item with the given quantity, leaving this instance untouched
+     */
+    public InventoryItem withQuantity(Integer quantity) {
+        InventoryItem copy = new InventoryItem(name, description, sku, quantity, threshold, price, category, location);
+        copy.setId(id);
+        copy.setCreatedAt(createdAt);
+        copy.setUpdatedAt(updatedAt);
+        copy.setVersion(version);
+        copy.setStockSequence(stockSequence);
+        copy.setBucketCount(bucketCount);
+        copy.setReservedQuantity(reservedQuantity);
+        return copy;
+    }
+
+    public Integer getReservedQuantity() {
+        return reservedQuantity;
+    }
+
+    public void setReservedQuantity(Integer reservedQuantity) {
+        this.reservedQuantity = reservedQuantity;
+    }
+
+    /**
+     * @return The stock physically present: what is available plus what is held for reservations
+     */
+    public int getOnHandQuantity() {
+        return quantity + (reservedQuantity != null ? reservedQuantity : 0);
+    }
+
     public boolean isLowStock() {
         return threshold != null && quantity <= threshold;
     }
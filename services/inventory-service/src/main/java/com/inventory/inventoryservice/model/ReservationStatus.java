@@ -0,0 +1,28 @@
+package com.inventory.inventoryservice.model;
+
+/**
+ * Lifecycle of a {@link Reservation}. Only {@link #HELD} reservations still hold stock; every other
+ * status is final.
+ */
+public enum ReservationStatus {
+
+    /**
+     * The stock is set aside until the reservation is confirmed, released or expires.
+     */
+    HELD,
+
+    /**
+     * The stock has left the inventory.
+     */
+    CONFIRMED,
+
+    /**
+     * The stock was returned on request.
+     */
+    RELEASED,
+
+    /**
+     * The stock was returned because the hold was not confirmed in time.
+     */
+    EXPIRED
+}
@@ -0,0 +1,73 @@
+package com.inventory.inventoryservice.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.io.Serializable;
+
+/**
+ * A share of an inventory item's stock. Splitting the quantity of a hot item across several
+ * buckets lets concurrent reservations update different rows instead of queueing on one.
+ */
+@Entity
+@Table(name = "stock_buckets",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"item_id", "bucket_index"}))
+public class StockBucket implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @NotNull
+    @Column(name = "bucket_index", nullable = false)
+    private Integer bucketIndex;
+
+    @NotNull
+    @Min(0)
+    private Integer quantity;
+
+    public StockBucket() {
+    }
+
+    public StockBucket(Long itemId, Integer bucketIndex, Integer quantity) {
+        this.itemId = itemId;
+        this.bucketIndex = bucketIndex;
+        this.quantity = quantity;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public Integer getBucketIndex() {
+        return bucketIndex;
+    }
+
+    public void setBucketIndex(Integer bucketIndex) {
+        this.bucketIndex = bucketIndex;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,88 @@
+package com.inventory.inventoryservice.partition;
+
+import com.inventory.inventoryservice.repository.LocationRepository;
+import com.inventory.inventoryservice.shard.ShardContext;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates the {@code inventory_items} partition of each location.
+ *
+ * <p>Partitions are created by the {@code create_inventory_partition} database function, which
+ * attaches a pre-built table so inventory queries keep running meanwhile. Creation happens in its
+ * own transaction once the location is committed; if it fails, the location's items go to the
+ * default partition until the next start retries it; the function then moves them out of the
+ * default partition into the new one. Every shard gets the partition of every location.</p>
+ */
+@Component
+public class InventoryPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryPartitionManager.class);
+
+    private final LocationRepository locationRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public InventoryPartitionManager(LocationRepository locationRepository, ShardRouter shardRouter,
+                                     PlatformTransactionManager transactionManager) {
+        this.locationRepository = locationRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Create the partition of a location once the current transaction commits, or right away if there is none
+     * @param locationId The ID of the location
+     */
+    public void createPartition(Long locationId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    createPartitionNow(locationId);
+                }
+            });
+        } else {
+            createPartitionNow(locationId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitions() {
+        locationRepository.findAll().forEach(location -> createPartitionNow(location.getId()));
+    }
+
+    private void createPartitionNow(Long locationId) {
+        shardRouter.forEachShard(() -> createPartitionOnShard(locationId));
+    }
+
+    private void createPartitionOnShard(Long locationId) {
+        try {
+            Boolean created = transactionTemplate.execute(status -> (Boolean) entityManager
+                    .createNativeQuery("SELECT create_inventory_partition(:locationId)")
+                    .setParameter("locationId", locationId)
+                    .getSingleResult());
+            if (Boolean.TRUE.equals(created)) {
+                logger.info("Created inventory partition for location {} on shard {}", locationId, ShardContext.current());
+            }
+        } catch (Exception e) {
+            logger.warn("Could not create inventory partition for location {} on shard {}, its items go to the default partition: {}",
+                    locationId, ShardContext.current(), e.getMessage());
+        }
+    }
+}
@@ -8,16 +8,23 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface InventoryItemRepository extends JpaRepository<InventoryItem, Long> {
+public interface InventoryItemRepository extends JpaRepository<InventoryItem, Long>, InventoryItemRepositoryCustom {
+
+    // The quantity of a bucketed item is the sum of its buckets; the column only holds a periodic roll-up.
+    // Kept as two branches so plain items can use the partial low stock indexes.
+    String LOW_STOCK = "((i.bucketCount IS NULL AND i.quantity <= i.threshold) OR (i.bucketCount IS NOT NULL AND " +
+            "(SELECT COALESCE(SUM(b.quantity), 0) FROM StockBucket b WHERE b.itemId = i.id) <= i.threshold))";
     
     Optional<InventoryItem> findBySku(String sku);
     
@@ -25,17 +32,18 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     
     List<InventoryItem> findByCategory(Category category);
     
+    // inventory_items is partitioned by location, so location-scoped queries only scan that location's partition
     List<InventoryItem> findByLocation(Location location);
     
     Page<InventoryItem> findByNameContaining(String name, Pageable pageable);
     
-    @Query("SELECT i FROM InventoryItem i WHERE i.quantity <= i.threshold")
+    @Query("SELECT i FROM InventoryItem i WHERE " + LOW_STOCK)
     List<InventoryItem> findLowStockItems();
     
-    @Query("SELECT i FROM InventoryItem i WHERE i.location.id = :locationId AND i.quantity <= i.threshold")
+    @Query("SELECT i FROM InventoryItem i WHERE i.location.id = :locationId AND " + LOW_STOCK)
     List<InventoryItem> findLowStockItemsByLocation(@Param("locationId") Long locationId);
     
-    @Query("SELECT i FROM InventoryItem i WHERE i.category.id = :categoryId AND i.quantity <= i.threshold")
+    @Query("SELECT i FROM InventoryItem i WHERE i.category.id = :categoryId AND " + LOW_STOCK)
     List<InventoryItem> findLowStockItemsByCategory(@Param("categoryId") Long categoryId);
     
     @Lock(LockModeType.PESSIMISTIC_WRITE)
@@ -45,4 +53,30 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT i FROM InventoryItem i WHERE i.sku = :sku")
     Optional<InventoryItem> findBySkuWithLock(@Param("sku") String sku);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM InventoryItem i WHERE i.id IN :ids ORDER BY i.id")
+    List<InventoryItem> findAllByIdWithLock(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM InventoryItem i WHERE i.sku IN :skus ORDER BY i.sku")
+    List<InventoryItem> findAllBySkuWithLock(@Param("skus") Collection<String> skus);
+    
+    List<InventoryItem> findByBucketCountIsNotNull();
+
+    /**
+     * Page through all items by ID, continuing after the given ID
+     */
+    @Query("SELECT i FROM InventoryItem i WHERE i.id > :afterId ORDER BY i.id")
+    List<InventoryItem> findByIdAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE InventoryItem i SET i.quantity = :quantity, i.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE i.id = :id AND i.bucketCount IS NOT NULL")
+    int rollUpBucketedQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    @Modifying
+    @Query("UPDATE InventoryItem i SET i.quantity = :quantity, i.stockSequence = :sequence, i.version = COALESCE(i.version, 0) + 1, " +
+            "i.updatedAt = CURRENT_TIMESTAMP WHERE i.sku = :sku AND (i.stockSequence IS NULL OR i.stockSequence < :sequence)")
+    int applyStockSnapshot(@Param("sku") String sku, @Param("quantity") int quantity, @Param("sequence") long sequence);
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.inventory.inventoryservice.repository;
+
+import com.inventory.inventoryservice.model.InventoryItem;
+
+import java.util.Optional;
+
+public interface InventoryItemRepositoryCustom {
+
+    /**
+     * Atomically apply a quantity change in a single statement, only if the quantity stays non-negative
+     * @param id The ID of the inventory item
+     * @param quantityChange The change in quantity (positive for increment, negative for decrement)
+     * @return A detached snapshot of the updated item, or empty if the item does not exist, has too little stock or keeps its stock in buckets
+     */
+    Optional<InventoryItem> adjustQuantityById(Long id, int quantityChange);
+
+    /**
+     * Atomically apply a quantity change in a single statement, only if the quantity stays non-negative
+     * @param sku The SKU of the inventory item
+     * @param quantityChange The change in quantity (positive for increment, negative for decrement)
+     * @return A detached snapshot of the updated item, or empty if the item does not exist, has too little stock or keeps its stock in buckets
+     */
+    Optional<InventoryItem> adjustQuantityBySku(String sku, int quantityChange);
+
+    /**
+     * Change the stock held for reservations in a single statement, only if it stays non-negative
+     * @param id The ID of the inventory item
+     * @param reservedChange The change in reserved quantity (positive when stock is held, negative when a hold ends)
+     * @return True if the item was updated
+     */
+    boolean adjustReservedQuantity(Long id, int reservedChange);
+}
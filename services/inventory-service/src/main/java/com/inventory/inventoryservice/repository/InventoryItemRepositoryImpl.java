@@ -0,0 +1,115 @@
+package com.inventory.inventoryservice.repository;
+
+import com.inventory.inventoryservice.model.Category;
+import com.inventory.inventoryservice.model.InventoryItem;
+import com.inventory.inventoryservice.model.Location;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Conditional quantity updates that check stock, bump the version and return the updated row
+ * together with its category and location in one round trip, holding the row lock only for the
+ * duration of the statement.
+ */
+public class InventoryItemRepositoryImpl implements InventoryItemRepositoryCustom {
+
+    private static final String ADJUST_QUANTITY_SQL = """
+            WITH updated AS (
+                UPDATE inventory_items
+                SET quantity = quantity + :quantityChange,
+                    version = COALESCE(version, 0) + 1,
+                    updated_at = LOCALTIMESTAMP
+                WHERE %s = :key AND bucket_count IS NULL AND quantity + :quantityChange >= 0
+                RETURNING id, name, description, sku, quantity, threshold, price,
+                          created_at, updated_at, version, category_id, location_id, reserved_quantity
+            )
+            SELECT u.id, u.name, u.description, u.sku, u.quantity, u.threshold, u.price,
+                   u.created_at, u.updated_at, u.version,
+                   c.id, c.name, c.description,
+                   l.id, l.name, l.address, l.city, l.state, l.zipcode, l.country,
+                   u.reserved_quantity
+            FROM updated u
+            JOIN categories c ON c.id = u.category_id
+            JOIN locations l ON l.id = u.location_id
+            """;
+
+    private static final String ADJUST_RESERVED_SQL = """
+            UPDATE inventory_items
+            SET reserved_quantity = reserved_quantity + :reservedChange,
+                version = COALESCE(version, 0) + 1,
+                updated_at = LOCALTIMESTAMP
+            WHERE id = :id AND reserved_quantity + :reservedChange >= 0
+            """;
+
+    private static final String ADJUST_BY_ID_SQL = ADJUST_QUANTITY_SQL.formatted("id");
+    private static final String ADJUST_BY_SKU_SQL = ADJUST_QUANTITY_SQL.formatted("sku");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<InventoryItem> adjustQuantityById(Long id, int quantityChange) {
+        return adjust(ADJUST_BY_ID_SQL, id, quantityChange);
+    }
+
+    @Override
+    public Optional<InventoryItem> adjustQuantityBySku(String sku, int quantityChange) {
+        return adjust(ADJUST_BY_SKU_SQL, sku, quantityChange);
+    }
+
+    @Override
+    public boolean adjustReservedQuantity(Long id, int reservedChange) {
+        return entityManager.createNativeQuery(ADJUST_RESERVED_SQL)
+                .setParameter("id", id)
+                .setParameter("reservedChange", reservedChange)
+                .executeUpdate() > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<InventoryItem> adjust(String sql, Object key, int quantityChange) {
+        List<Object[]> rows = entityManager.createNativeQuery(sql)
+                .setParameter("key", key)
+                .setParameter("quantityChange", quantityChange)
+                .getResultList();
+        return rows.stream().findFirst().map(InventoryItemRepositoryImpl::toItem);
+    }
+
+    private static InventoryItem toItem(Object[] row) {
+        Category category = new Category((String) row[11], (String) row[12]);
+        category.setId(toLong(row[10]));
+
+        Location location = new Location((String) row[14], (String) row[15], (String) row[16],
+                (String) row[17], (String) row[18], (String) row[19]);
+        location.setId(toLong(row[13]));
+
+        InventoryItem item = new InventoryItem((String) row[1], (String) row[2], (String) row[3],
+                toInteger(row[4]), toInteger(row[5]), (BigDecimal) row[6], category, location);
+        item.setId(toLong(row[0]));
+        item.setCreatedAt(toLocalDateTime(row[7]));
+        item.setUpdatedAt(toLocalDateTime(row[8]));
+        item.setVersion(toLong(row[9]));
+        item.setReservedQuantity(toInteger(row[20]));
+        return item;
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static Integer toInteger(Object value) {
+        return value != null ? ((Number) value).intValue() : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
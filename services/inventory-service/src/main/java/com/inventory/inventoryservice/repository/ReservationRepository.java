@@ -0,0 +1,47 @@
+package com.inventory.inventoryservice.repository;
+
+import com.inventory.inventoryservice.model.Reservation;
+import com.inventory.inventoryservice.model.ReservationStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reservation r WHERE r.id = :id")
+    Optional<Reservation> findByIdWithLock(@Param("id") Long id);
+
+    /**
+     * Lock those of the given reservations that are still held, in ID order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reservation r WHERE r.id IN :ids AND r.status = :status ORDER BY r.id")
+    List<Reservation> findAllByIdAndStatusWithLock(@Param("ids") Collection<Long> ids, @Param("status") ReservationStatus status);
+
+    /**
+     * Page through reservations in the given status by expiry, continuing after the given expiry and ID
+     */
+    @Query("SELECT r FROM Reservation r WHERE r.status = :status " +
+            "AND (r.expiresAt > :afterExpiry OR (r.expiresAt = :afterExpiry AND r.id > :afterId)) " +
+            "ORDER BY r.expiresAt, r.id")
+    List<Reservation> findByStatusAfter(@Param("status") ReservationStatus status,
+                                        @Param("afterExpiry") LocalDateTime afterExpiry,
+                                        @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Find reservations in the given status whose expiry passed before the given time
+     */
+    @Query("SELECT r.id FROM Reservation r WHERE r.status = :status AND r.expiresAt < :before ORDER BY r.expiresAt")
+    List<Long> findIdsByStatusExpiredBefore(@Param("status") ReservationStatus status, @Param("before") LocalDateTime before, Pageable pageable);
+}
@@ -0,0 +1,47 @@
+package com.inventory.inventoryservice.repository;
+
+import com.inventory.inventoryservice.model.StockBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockBucketRepository extends JpaRepository<StockBucket, Long> {
+
+    List<StockBucket> findByItemIdOrderByBucketIndex(Long itemId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM StockBucket b WHERE b.itemId = :itemId ORDER BY b.bucketIndex")
+    List<StockBucket> findByItemIdWithLock(@Param("itemId") Long itemId);
+
+    @Query("SELECT COALESCE(SUM(b.quantity), 0) FROM StockBucket b WHERE b.itemId = :itemId")
+    int sumQuantity(@Param("itemId") Long itemId);
+
+    /**
+     * Sum the buckets of several items at once
+     * @return Pairs of item ID and the sum of its buckets, for the items that have buckets
+     */
+    @Query("SELECT b.itemId, COALESCE(SUM(b.quantity), 0) FROM StockBucket b WHERE b.itemId IN :itemIds GROUP BY b.itemId")
+    List<Object[]> sumQuantities(@Param("itemIds") Collection<Long> itemIds);
+
+    /**
+     * Apply a quantity change to one bucket, only if its quantity stays non-negative
+     * @return 1 if the bucket was updated, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE StockBucket b SET b.quantity = b.quantity + :quantityChange " +
+            "WHERE b.itemId = :itemId AND b.bucketIndex = :bucketIndex AND b.quantity + :quantityChange >= 0")
+    int adjustQuantity(@Param("itemId") Long itemId, @Param("bucketIndex") int bucketIndex,
+                       @Param("quantityChange") int quantityChange);
+
+    @Modifying
+    @Query("DELETE FROM StockBucket b WHERE b.itemId = :itemId")
+    int deleteByItemId(@Param("itemId") Long itemId);
+}
@@ -0,0 +1,203 @@
+package com.inventory.inventoryservice.reservation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: schedules and cancels timeouts in constant time, however many are pending.
+ *
+ * <p>Level 0 has one slot per tick. Each higher level has as many slots, each spanning a whole
+ * rotation of the level below, and levels are added as far-off deadlines need them. A timeout is
+ * placed on the lowest level whose rotation reaches its deadline. When the wheel reaches the start
+ * of a higher-level slot, that slot's timeouts are cascaded down, so each timeout is touched once
+ * per level at most and only slots whose time has come are ever visited.</p>
+ *
+ * <p>Deadlines are rounded up to the next tick. Not thread-safe; callers synchronize.</p>
+ *
+ * @param <T> The value carried by a timeout
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int wheelSize;
+    private final int bits;
+    private final List<Slot<T>[]> levels = new ArrayList<>();
+
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis The duration of one tick
+     * @param wheelSize The number of slots per level, a power of two
+     * @param startMillis The time of tick 0; deadlines before it expire at the next tick
+     */
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Tick must be positive and wheel size a power of two, got "
+                    + tickMillis + " ms and " + wheelSize);
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.wheelSize = wheelSize;
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        addLevel();
+    }
+
+    /**
+     * Schedule a timeout
+     * @param deadlineMillis The time at which the timeout expires
+     * @param value The value handed back when it expires
+     * @return The timeout, to cancel it
+     */
+    public Timeout<T> schedule(long deadlineMillis, T value) {
+        long tick = Math.max(-Math.floorDiv(startMillis - deadlineMillis, tickMillis), currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(value, tick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancel a timeout
+     * @return False if it had already expired or been cancelled
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout.slot == null) {
+            return false;
+        }
+        timeout.slot.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advance the wheel to the given time, handing over every timeout whose deadline has passed
+     * @param nowMillis The current time
+     * @param expired Receives the values of expired timeouts, earliest deadline first
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                // Nothing to cascade or expire on the way
+                currentTick = targetTick;
+                return;
+            }
+            currentTick++;
+            for (int level = levels.size() - 1; level > 0; level--) {
+                int shift = level * bits;
+                if ((currentTick & ((1L << shift) - 1)) == 0) {
+                    Timeout<T> timeout = slotOf(level, currentTick).drain();
+                    while (timeout != null) {
+                        Timeout<T> next = timeout.next;
+                        timeout.next = null;
+                        place(timeout);
+                        timeout = next;
+                    }
+                }
+            }
+            Timeout<T> timeout = slotOf(0, currentTick).drain();
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.next = null;
+                size--;
+                expired.accept(timeout.value);
+                timeout = next;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void place(Timeout<T> timeout) {
+        for (int level = 0; ; level++) {
+            if (level == levels.size()) {
+                addLevel();
+            }
+            int shift = level * bits;
+            if ((timeout.tick >>> shift) - (currentTick >>> shift) < wheelSize) {
+                slotOf(level, timeout.tick).add(timeout);
+                return;
+            }
+        }
+    }
+
+    private Slot<T> slotOf(int level, long tick) {
+        return levels.get(level)[(int) ((tick >>> (level * bits)) & (wheelSize - 1))];
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addLevel() {
+        Slot<T>[] slots = new Slot[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new Slot<>();
+        }
+        levels.add(slots);
+    }
+
+    /**
+     * A scheduled timeout, linked into the slot it waits in
+     */
+    public static final class Timeout<T> {
+        private final T value;
+        private final long tick;
+        private Slot<T> slot;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        private Timeout(T value, long tick) {
+            this.value = value;
+            this.tick = tick;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+
+    private static final class Slot<T> {
+        private Timeout<T> first;
+
+        void add(Timeout<T> timeout) {
+            timeout.slot = this;
+            timeout.previous = null;
+            timeout.next = first;
+            if (first != null) {
+                first.previous = timeout;
+            }
+            first = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                first = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.slot = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        /**
+         * Unlink all timeouts of the slot
+         * @return The first of them, still chained through {@code next}
+         */
+        Timeout<T> drain() {
+            Timeout<T> head = first;
+            first = null;
+            for (Timeout<T> timeout = head; timeout != null; timeout = timeout.next) {
+                timeout.slot = null;
+                timeout.previous = null;
+            }
+            return head;
+        }
+    }
+}
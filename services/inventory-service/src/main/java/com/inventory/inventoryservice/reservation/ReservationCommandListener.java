@@ -0,0 +1,95 @@
+package com.inventory.inventoryservice.reservation;
+
+import com.inventory.inventoryservice.event.ReservationCommand;
+import com.inventory.inventoryservice.event.ReservationResult;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumes the {@code reservation-commands} topic in batches.
+ *
+ * <p>Each polled batch is split by partition and every partition's commands are processed together,
+ * in the order they were produced; see {@link ReservationCommandProcessor}. Results are sent to the
+ * command's reply topic, keyed by request ID and carrying it as the correlation ID header. Offsets
+ * are committed only after the batch has been processed and its results sent, so a producer that
+ * outpaces the service builds consumer lag rather than waiting threads. A command redelivered after
+ * a crash is reserved again.</p>
+ */
+@Component
+public class ReservationCommandListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationCommandListener.class);
+
+    private final ReservationCommandProcessor reservationCommandProcessor;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${app.kafka.topics.reservation-results:reservation-results}")
+    private String resultsTopic;
+
+    @Value("${app.inventory.reservation-commands.reply-timeout-ms:30000}")
+    private long replyTimeoutMs;
+
+    public ReservationCommandListener(ReservationCommandProcessor reservationCommandProcessor,
+                                      KafkaTemplate<String, Object> kafkaTemplate) {
+        this.reservationCommandProcessor = reservationCommandProcessor;
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    @KafkaListener(topics = "${app.kafka.topics.reservation-commands:reservation-commands}",
+            groupId = "${app.inventory.reservation-commands.consumer-group:inventory-reservations}",
+            containerFactory = "reservationCommandContainerFactory",
+            autoStartup = "${app.inventory.reservation-commands.enabled:false}")
+    public void onCommands(List<ConsumerRecord<String, ReservationCommand>> records) {
+        Map<Integer, List<ReservationCommand>> byPartition = new LinkedHashMap<>();
+        for (ConsumerRecord<String, ReservationCommand> record : records) {
+            if (record.value() == null) {
+                // Not a readable command, and without a request ID there is nobody to answer
+                logger.warn("Skipping unreadable reservation command at {}-{}@{}", record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            byPartition.computeIfAbsent(record.partition(), partition -> new ArrayList<>()).add(record.value());
+        }
+
+        List<CompletableFuture<?>> replies = new ArrayList<>(records.size());
+        byPartition.forEach((partition, commands) -> {
+            List<ReservationResult> results = reservationCommandProcessor.process(commands);
+            for (int i = 0; i < commands.size(); i++) {
+                replies.add(reply(commands.get(i), results.get(i)));
+            }
+        });
+
+        try {
+            CompletableFuture.allOf(replies.toArray(CompletableFuture[]::new)).get(replyTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // The reservations stand; processing the commands again would reserve twice
+            logger.error("Not all of {} reservation results could be sent: {}", replies.size(), e.getMessage());
+        }
+    }
+
+    private CompletableFuture<?> reply(ReservationCommand command, ReservationResult result) {
+        String topic = command.getReplyTopic() != null && !command.getReplyTopic().isBlank() ? command.getReplyTopic() : resultsTopic;
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, command.getRequestId(), result);
+        if (command.getRequestId() != null) {
+            record.headers().add(KafkaHeaders.CORRELATION_ID, command.getRequestId().getBytes(StandardCharsets.UTF_8));
+        }
+        return kafkaTemplate.send(record).exceptionally(ex -> {
+            logger.error("Failed to send reservation result for request {}: {}", command.getRequestId(), ex.getMessage());
+            return null;
+        });
+    }
+}
@@ -0,0 +1,200 @@
+package com.inventory.inventoryservice.reservation;
+
+import com.inventory.inventoryservice.concurrency.QuantityChangeApplied;
+import com.inventory.inventoryservice.concurrency.StockBuckets;
+import com.inventory.inventoryservice.concurrency.StockMutationResult;
+import com.inventory.inventoryservice.event.ReservationCommand;
+import com.inventory.inventoryservice.event.ReservationResult;
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import com.inventory.inventoryservice.model.InventoryItem;
+import com.inventory.inventoryservice.repository.InventoryItemRepository;
+import com.inventory.inventoryservice.service.CollectionVersionService;
+import com.inventory.inventoryservice.service.InventoryItemService;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import com.inventory.inventoryservice.stock.RedisStockService;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a batch of reservation commands with one transaction per shard instead of one per command.
+ *
+ * <p>The rows of all SKUs in a shard's commands are locked in SKU order, so concurrent batches cannot
+ * deadlock. Commands are then decided in arrival order against the locked quantities, and every
+ * changed row is written back in one flush. Stock split into buckets is reserved through
+ * {@link StockBuckets} within the same transaction. SKUs held in Redis are reserved there, one
+ * command at a time, as their requests would be.</p>
+ *
+ * <p>Applied reservations are announced as {@link QuantityChangeApplied} events once their shard has
+ * committed. If a shard fails, its commands are answered with {@link ReservationResult#FAILED}, and
+ * so is a Redis-held command that fails, without affecting the rest of the batch.</p>
+ */
+@Component
+public class ReservationCommandProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationCommandProcessor.class);
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final InventoryItemService inventoryItemService;
+    private final CollectionVersionService collectionVersionService;
+    private final RedisStockService redisStockService;
+    private final StockBuckets stockBuckets;
+    private final ShardRouter shardRouter;
+    private final InventoryMetrics inventoryMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReservationCommandProcessor(InventoryItemRepository inventoryItemRepository,
+                                       InventoryItemService inventoryItemService,
+                                       CollectionVersionService collectionVersionService,
+                                       RedisStockService redisStockService,
+                                       StockBuckets stockBuckets,
+                                       ShardRouter shardRouter,
+                                       InventoryMetrics inventoryMetrics,
+                                       ApplicationEventPublisher eventPublisher,
+                                       PlatformTransactionManager transactionManager) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.inventoryItemService = inventoryItemService;
+        this.collectionVersionService = collectionVersionService;
+        this.redisStockService = redisStockService;
+        this.stockBuckets = stockBuckets;
+        this.shardRouter = shardRouter;
+        this.inventoryMetrics = inventoryMetrics;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Reserve stock for a batch of commands
+     * @param commands The commands in arrival order
+     * @return One result per command, in the same order
+     */
+    public List<ReservationResult> process(List<ReservationCommand> commands) {
+        ReservationResult[] results = new ReservationResult[commands.size()];
+        Map<Integer, List<Integer>> byShard = new TreeMap<>();
+
+        for (int i = 0; i < commands.size(); i++) {
+            ReservationCommand command = commands.get(i);
+            if (command.getSku() == null || command.getQuantity() == null || command.getQuantity() <= 0) {
+                results[i] = result(command, ReservationResult.INVALID, null);
+            } else if (redisStockService.isEnabledFor(command.getSku())) {
+                results[i] = reserveInRedis(command);
+            } else {
+                byShard.computeIfAbsent(shardRouter.shardForSku(command.getSku()), shard -> new ArrayList<>()).add(i);
+            }
+        }
+
+        byShard.forEach((shard, indexes) -> {
+            List<StockMutationResult> applied = new ArrayList<>();
+            try {
+                shardRouter.runOnShard(shard, () -> transactionTemplate.executeWithoutResult(status ->
+                        reserveOnShard(commands, indexes, results, applied)));
+            } catch (Exception e) {
+                logger.error("Reserving {} commands on shard {} failed", indexes.size(), shard, e);
+                indexes.forEach(i -> results[i] = result(commands.get(i), ReservationResult.FAILED, null));
+                return;
+            }
+            applied.forEach(change -> eventPublisher.publishEvent(new QuantityChangeApplied(change, "RESERVATION")));
+            indexes.forEach(i -> countOutcome(results[i].getStatus()));
+        });
+        return List.of(results);
+    }
+
+    /**
+     * Reserve a Redis-held SKU on its own; a failure is answered instead of failing the whole batch,
+     * which would be redelivered and reserve the commands before this one a second time
+     */
+    private ReservationResult reserveInRedis(ReservationCommand command) {
+        try {
+            boolean reserved = inventoryItemService.reserveInventory(command.getSku(), command.getQuantity());
+            return result(command, reserved ? ReservationResult.RESERVED : ReservationResult.INSUFFICIENT_STOCK, null);
+        } catch (EntityNotFoundException e) {
+            return result(command, ReservationResult.NOT_FOUND, null);
+        } catch (Exception e) {
+            logger.error("Reserving {} units of SKU {} in Redis failed", command.getQuantity(), command.getSku(), e);
+            return result(command, ReservationResult.FAILED, null);
+        }
+    }
+
+    private void reserveOnShard(List<ReservationCommand> commands, List<Integer> indexes, ReservationResult[] results,
+                                List<StockMutationResult> applied) {
+        applied.clear();
+        TreeSet<String> skus = indexes.stream().map(i -> commands.get(i).getSku()).collect(Collectors.toCollection(TreeSet::new));
+        Map<String, InventoryItem> items = inventoryItemRepository.findAllBySkuWithLock(skus).stream()
+                .collect(Collectors.toMap(InventoryItem::getSku, Function.identity()));
+        Map<String, Integer> quantities = new HashMap<>();
+        Map<String, Boolean> wasLowStock = new HashMap<>();
+
+        for (int i : indexes) {
+            ReservationCommand command = commands.get(i);
+            InventoryItem item = items.get(command.getSku());
+            if (item == null) {
+                results[i] = result(command, ReservationResult.NOT_FOUND, null);
+                continue;
+            }
+            wasLowStock.putIfAbsent(item.getSku(), item.isLowStock());
+
+            if (item.isBucketed()) {
+                StockMutationResult bucketResult = stockBuckets.apply(item, -command.getQuantity());
+                if (bucketResult.isApplied()) {
+                    // The item instance carries the running bucket total, so later commands would change it
+                    applied.add(new StockMutationResult(item.withQuantity(item.getQuantity()), bucketResult.getOldQuantity(), true));
+                    collectionVersionService.itemChanged(item, wasLowStock.get(item.getSku()) || bucketResult.getItem().isLowStock());
+                }
+                results[i] = result(command, bucketResult.isApplied() ? ReservationResult.RESERVED : ReservationResult.INSUFFICIENT_STOCK,
+                        bucketResult.getItem().getQuantity());
+                continue;
+            }
+
+            int oldQuantity = quantities.getOrDefault(item.getSku(), item.getQuantity());
+            int newQuantity = oldQuantity - command.getQuantity();
+            if (newQuantity < 0) {
+                results[i] = result(command, ReservationResult.INSUFFICIENT_STOCK, oldQuantity);
+                continue;
+            }
+            quantities.put(item.getSku(), newQuantity);
+            applied.add(new StockMutationResult(item.withQuantity(newQuantity), oldQuantity, true));
+            results[i] = result(command, ReservationResult.RESERVED, newQuantity);
+        }
+
+        List<InventoryItem> changed = new ArrayList<>(quantities.size());
+        quantities.forEach((sku, quantity) -> {
+            InventoryItem item = items.get(sku);
+            item.setQuantity(quantity);
+            item.setUpdatedAt(LocalDateTime.now());
+            changed.add(item);
+        });
+        // One flush writes every changed row in a single JDBC batch and bumps the versions
+        inventoryItemRepository.saveAllAndFlush(changed);
+        changed.forEach(item -> collectionVersionService.itemChanged(item, wasLowStock.get(item.getSku()) || item.isLowStock()));
+    }
+
+    private void countOutcome(String status) {
+        switch (status) {
+            case ReservationResult.RESERVED -> inventoryMetrics.reservationSucceeded();
+            case ReservationResult.INSUFFICIENT_STOCK -> inventoryMetrics.reservationInsufficientStock();
+            case ReservationResult.NOT_FOUND -> inventoryMetrics.reservationNotFound();
+            default -> {
+                // Invalid and failed commands are not reservation attempts
+            }
+        }
+    }
+
+    private static ReservationResult result(ReservationCommand command, String status, Integer remainingQuantity) {
+        return new ReservationResult(command.getRequestId(), command.getSku(), command.getQuantity(), status, remainingQuantity);
+    }
+}
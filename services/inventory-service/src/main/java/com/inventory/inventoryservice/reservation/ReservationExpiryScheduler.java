@@ -0,0 +1,223 @@
+package com.inventory.inventoryservice.reservation;
+
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import com.inventory.inventoryservice.model.Reservation;
+import com.inventory.inventoryservice.model.ReservationStatus;
+import com.inventory.inventoryservice.repository.ReservationRepository;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Expires reservation holds at their deadline from an in-memory {@link HierarchicalTimingWheel}.
+ *
+ * <p>Holds are scheduled when they are taken and cancelled when they are confirmed or released, so
+ * expiry costs constant time per hold and nothing ever scans the reservations table on a timer. The
+ * table stays the source of truth: at start-up every pending hold is loaded into the wheel, and
+ * ending a hold is a conditional update of held rows, so an instance that expires a hold another
+ * instance also scheduled does no harm. Holds taken by an instance that has gone away are picked up
+ * by a periodic query for holds overdue by more than a grace period, which only reads the index of
+ * pending holds.</p>
+ */
+@Component
+public class ReservationExpiryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationExpiryScheduler.class);
+
+    private final ReservationRepository reservationRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final HierarchicalTimingWheel<Long> wheel;
+    private final Map<Long, HierarchicalTimingWheel.Timeout<Long>> timeouts = new HashMap<>();
+    private final long tickMs;
+
+    @Value("${app.inventory.reservations.expiry-batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.inventory.reservations.expiry-retry-backoff-ms:5000}")
+    private long retryBackoffMs;
+
+    @Value("${app.inventory.reservations.orphan-grace-ms:60000}")
+    private long orphanGraceMs;
+
+    private volatile Consumer<List<Long>> expiryHandler;
+    private volatile boolean running;
+    private volatile Thread worker;
+
+    public ReservationExpiryScheduler(ReservationRepository reservationRepository,
+                                      ShardRouter shardRouter,
+                                      InventoryMetrics inventoryMetrics,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.inventory.reservations.expiry-tick-ms:1000}") long tickMs,
+                                      @Value("${app.inventory.reservations.expiry-wheel-size:64}") int wheelSize) {
+        this.reservationRepository = reservationRepository;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.tickMs = tickMs;
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        inventoryMetrics.registerScheduledHolds(this::scheduledCount);
+    }
+
+    /**
+     * Set what ends expired holds; called once by the reservation service
+     * @param expiryHandler Expires the holds with the given IDs and throws if that failed
+     */
+    public void setExpiryHandler(Consumer<List<Long>> expiryHandler) {
+        this.expiryHandler = expiryHandler;
+    }
+
+    /**
+     * Schedule the expiry of a hold
+     * @param id The ID of the reservation
+     * @param expiresAt When the hold expires
+     */
+    public synchronized void schedule(Long id, LocalDateTime expiresAt) {
+        HierarchicalTimingWheel.Timeout<Long> previous = timeouts.put(id, wheel.schedule(toMillis(expiresAt), id));
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+    }
+
+    /**
+     * Cancel the expiry of a hold that has ended
+     * @param id The ID of the reservation
+     */
+    public synchronized void cancel(Long id) {
+        HierarchicalTimingWheel.Timeout<Long> timeout = timeouts.remove(id);
+        if (timeout != null) {
+            wheel.cancel(timeout);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("inventory-reservation-expiry").start(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    /**
+     * Expire holds that are overdue but were not scheduled here, typically because the instance that
+     * took them has stopped
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.reservations.orphan-check-interval-ms:60000}",
+            initialDelayString = "${app.inventory.reservations.orphan-check-interval-ms:60000}")
+    public void expireOrphans() {
+        Consumer<List<Long>> handler = expiryHandler;
+        if (handler == null) {
+            return;
+        }
+        LocalDateTime overdue = LocalDateTime.now().minusNanos(orphanGraceMs * 1_000_000);
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            try {
+                List<Long> ids = shardRouter.onShard(shard, () -> readOnlyTransactionTemplate.execute(status ->
+                        reservationRepository.findIdsByStatusExpiredBefore(ReservationStatus.HELD, overdue, PageRequest.of(0, batchSize))));
+                if (!ids.isEmpty()) {
+                    logger.info("Expiring {} overdue reservation holds on shard {}", ids.size(), shard);
+                    handler.accept(ids);
+                }
+            } catch (Exception e) {
+                logger.warn("Could not expire overdue reservation holds on shard {}: {}", shard, e.getMessage());
+            }
+        }
+    }
+
+    private void run() {
+        loadHeld();
+        while (running) {
+            try {
+                Thread.sleep(tickMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<Long> expired = new ArrayList<>();
+            synchronized (this) {
+                wheel.advance(System.currentTimeMillis(), id -> {
+                    timeouts.remove(id);
+                    expired.add(id);
+                });
+            }
+            for (int from = 0; from < expired.size(); from += batchSize) {
+                expire(expired.subList(from, Math.min(from + batchSize, expired.size())));
+            }
+        }
+    }
+
+    private void expire(List<Long> ids) {
+        try {
+            expiryHandler.accept(ids);
+        } catch (Exception e) {
+            logger.error("Could not expire {} reservation holds, retrying in {} ms: {}", ids.size(), retryBackoffMs, e.getMessage());
+            LocalDateTime retryAt = LocalDateTime.now().plusNanos(retryBackoffMs * 1_000_000);
+            ids.forEach(id -> schedule(id, retryAt));
+        }
+    }
+
+    private void loadHeld() {
+        long started = System.currentTimeMillis();
+        int count = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            LocalDateTime afterExpiry = LocalDateTime.of(1970, 1, 1, 0, 0);
+            long afterId = 0;
+            while (running) {
+                LocalDateTime pageAfterExpiry = afterExpiry;
+                long pageAfterId = afterId;
+                List<Reservation> page;
+                try {
+                    page = shardRouter.onShard(shard, () -> readOnlyTransactionTemplate.execute(status ->
+                            reservationRepository.findByStatusAfter(ReservationStatus.HELD, pageAfterExpiry, pageAfterId,
+                                    PageRequest.of(0, batchSize))));
+                } catch (Exception e) {
+                    // The periodic check for overdue holds covers whatever could not be loaded
+                    logger.error("Could not load reservation holds of shard {}: {}", shard, e.getMessage());
+                    break;
+                }
+                for (Reservation reservation : page) {
+                    schedule(reservation.getId(), reservation.getExpiresAt());
+                }
+                count += page.size();
+                if (page.size() < batchSize) {
+                    break;
+                }
+                Reservation last = page.get(page.size() - 1);
+                afterExpiry = last.getExpiresAt();
+                afterId = last.getId();
+            }
+        }
+        logger.info("Scheduled the expiry of {} reservation holds in {} ms", count, System.currentTimeMillis() - started);
+    }
+
+    private synchronized int scheduledCount() {
+        return wheel.size();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
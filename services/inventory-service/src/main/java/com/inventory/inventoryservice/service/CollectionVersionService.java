@@ -0,0 +1,40 @@
+package com.inventory.inventoryservice.service;
+
+import com.inventory.inventoryservice.model.InventoryItem;
+
+import java.util.Optional;
+
+/**
+ * Tracks a version per inventory list so list endpoints can answer conditional GETs
+ * without querying or serializing the list.
+ */
+public interface CollectionVersionService {
+
+    String ALL_ITEMS = "items";
+
+    String LOW_STOCK = "low-stock";
+
+    static String category(Long categoryId) {
+        return "category:" + categoryId;
+    }
+
+    static String location(Long locationId) {
+        return "location:" + locationId;
+    }
+
+    /**
+     * Get the weak ETag for the current version of a collection. Weak, because the body it stands for
+     * may be sent compressed or not, and a strong ETag would keep the server from compressing it
+     * @param collection The collection name
+     * @return The ETag, or empty if the version store is unavailable
+     */
+    Optional<String> getETag(String collection);
+
+    /**
+     * Bump the versions of every collection containing the item once the current transaction commits,
+     * evict the cached lists for those collections, and republish the item's state
+     * @param item The changed inventory item
+     * @param lowStockAffected Whether the item was or is now low on stock
+     */
+    void itemChanged(InventoryItem item, boolean lowStockAffected);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 public interface InventoryItemService {
     
@@ -40,6 +41,14 @@ public interface InventoryItemService {
      * @return The updated inventory item
      */
     InventoryItem updateQuantity(Long id, int quantityChange);
+
+    /**
+     * Journal a quantity change locally instead of applying it, if the change can be deferred
+     * @param id The ID of the inventory item
+     * @param quantityChange The change in quantity
+     * @return The journal sequence once the change is durable, or empty if it must be applied with updateQuantity
+     */
+    OptionalLong journalQuantity(Long id, int quantityChange);
     
     /**
      * Update the quantity of an inventory item by SKU
@@ -76,4 +85,12 @@ public interface InventoryItemService {
      * @return True if reservation was successful, false otherwise
      */
     boolean reserveInventory(String sku, int quantity);
-}
\ No newline at end of file
+    
+    /**
+     * Split the stock of an inventory item across buckets so concurrent reservations update different rows
+     * @param id The ID of the inventory item
+     * @param bucketCount The number of buckets; 1 or less merges the stock back into the item row
+     * @return The updated inventory item
+     */
+    InventoryItem splitStock(Long id, int bucketCount);
+}
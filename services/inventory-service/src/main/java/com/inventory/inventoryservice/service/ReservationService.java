@@ -0,0 +1,48 @@
+package com.inventory.inventoryservice.service;
+
+import com.inventory.inventoryservice.model.Reservation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReservationService {
+
+    /**
+     * Hold stock of a SKU for a limited time, moving it from the available to the reserved quantity
+     * @param sku The SKU of the inventory item
+     * @param quantity The quantity to hold
+     * @param ttl How long the hold lasts unless confirmed or released; the configured default if null
+     * @return The held reservation, or empty if too little stock is available
+     * @throws jakarta.persistence.EntityNotFoundException if no item has the given SKU
+     * @throws IllegalArgumentException if the quantity or TTL is out of range, or the SKU's stock is held in Redis
+     */
+    Optional<Reservation> hold(String sku, int quantity, Duration ttl);
+
+    /**
+     * Confirm a hold: its stock leaves the inventory
+     * @param id The ID of the reservation
+     * @return The confirmed reservation
+     * @throws jakarta.persistence.EntityNotFoundException if there is no such reservation
+     * @throws IllegalStateException if the reservation is no longer held
+     */
+    Reservation confirm(Long id);
+
+    /**
+     * Release a hold: its stock becomes available again
+     * @param id The ID of the reservation
+     * @return The released reservation
+     * @throws jakarta.persistence.EntityNotFoundException if there is no such reservation
+     * @throws IllegalStateException if the reservation is no longer held
+     */
+    Reservation release(Long id);
+
+    Optional<Reservation> getReservation(Long id);
+
+    /**
+     * Return the stock of expired holds; holds that have already ended or are not yet due are skipped
+     * @param ids The IDs of the reservations
+     * @return The number of holds expired
+     */
+    int expire(List<Long> ids);
+}
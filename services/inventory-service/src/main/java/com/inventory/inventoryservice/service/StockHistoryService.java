@@ -0,0 +1,29 @@
+package com.inventory.inventoryservice.service;
+
+import com.inventory.inventoryservice.history.StockMovement;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockHistoryService {
+
+    /**
+     * Get the quantity changes of a SKU within a time range, newest first
+     * @param sku The SKU of the inventory item
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, exclusive
+     * @param limit The maximum number of movements to return
+     * @return The movements in the range
+     */
+    List<StockMovement> getMovements(String sku, LocalDateTime from, LocalDateTime to, int limit);
+
+    /**
+     * Reconstruct the quantity of a SKU at a point in time from the latest snapshot before it plus the movements since
+     * @param sku The SKU of the inventory item
+     * @param at The point in time
+     * @return The quantity, or empty if the SKU has no history up to that time
+     * @throws IllegalArgumentException if the point in time is older than the retained history
+     */
+    Optional<Integer> getQuantityAt(String sku, LocalDateTime at);
+}
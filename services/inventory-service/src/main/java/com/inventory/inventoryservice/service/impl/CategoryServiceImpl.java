@@ -3,6 +3,7 @@ package com.inventory.inventoryservice.service.impl;
 import com.inventory.inventoryservice.model.Category;
 import com.inventory.inventoryservice.repository.CategoryRepository;
 import com.inventory.inventoryservice.service.CategoryService;
+import com.inventory.inventoryservice.shard.ReferenceDataReplicator;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,9 +23,11 @@ public class CategoryServiceImpl implements CategoryService {
     private static final Logger logger = LoggerFactory.getLogger(CategoryServiceImpl.class);
     
     private final CategoryRepository categoryRepository;
+    private final ReferenceDataReplicator referenceDataReplicator;
 
-    public CategoryServiceImpl(CategoryRepository categoryRepository) {
+    public CategoryServiceImpl(CategoryRepository categoryRepository, ReferenceDataReplicator referenceDataReplicator) {
         this.categoryRepository = categoryRepository;
+        this.referenceDataReplicator = referenceDataReplicator;
     }
     
     @Override
@@ -55,7 +58,9 @@ public class CategoryServiceImpl implements CategoryService {
         if (categoryRepository.existsByName(category.getName())) {
             throw new IllegalArgumentException("Category with name " + category.getName() + " already exists");
         }
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        referenceDataReplicator.replicateAfterCommit();
+        return savedCategory;
     }
     
     @Override
@@ -75,7 +80,9 @@ public class CategoryServiceImpl implements CategoryService {
         existingCategory.setName(category.getName());
         existingCategory.setDescription(category.getDescription());
         
-        return categoryRepository.save(existingCategory);
+        Category savedCategory = categoryRepository.save(existingCategory);
+        referenceDataReplicator.replicateAfterCommit();
+        return savedCategory;
     }
     
     @Override
@@ -87,6 +94,7 @@ public class CategoryServiceImpl implements CategoryService {
             throw new EntityNotFoundException("Category not found with id: " + id);
         }
         categoryRepository.deleteById(id);
+        referenceDataReplicator.replicateAfterCommit();
     }
     
     @Override
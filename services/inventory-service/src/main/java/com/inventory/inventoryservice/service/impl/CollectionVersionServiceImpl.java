@@ -0,0 +1,123 @@
+package com.inventory.inventoryservice.service.impl;
+
+import com.inventory.inventoryservice.model.InventoryItem;
+import com.inventory.inventoryservice.service.CollectionVersionService;
+import com.inventory.inventoryservice.state.InventoryStatePublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+@Service
+public class CollectionVersionServiceImpl implements CollectionVersionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollectionVersionServiceImpl.class);
+
+    private static final String KEY_PREFIX = "inventory:version:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+    private final InventoryStatePublisher inventoryStatePublisher;
+
+    public CollectionVersionServiceImpl(StringRedisTemplate redisTemplate, CacheManager cacheManager,
+                                        InventoryStatePublisher inventoryStatePublisher) {
+        this.redisTemplate = redisTemplate;
+        this.cacheManager = cacheManager;
+        this.inventoryStatePublisher = inventoryStatePublisher;
+    }
+
+    @Override
+    public Optional<String> getETag(String collection) {
+        try {
+            String key = KEY_PREFIX + collection;
+            String version = redisTemplate.opsForValue().get(key);
+            if (version == null) {
+                // Seed with the clock so a reset of Redis never hands out a version a client has already seen
+                redisTemplate.opsForValue().setIfAbsent(key, Long.toString(System.currentTimeMillis()));
+                version = redisTemplate.opsForValue().get(key);
+            }
+            return Optional.ofNullable(version).map(v -> "W/\"" + collection + "-" + v + "\"");
+        } catch (Exception e) {
+            logger.warn("Could not read version of collection {}: {}", collection, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void itemChanged(InventoryItem item, boolean lowStockAffected) {
+        Long categoryId = item.getCategory() != null ? item.getCategory().getId() : null;
+        Long locationId = item.getLocation() != null ? item.getLocation().getId() : null;
+        inventoryStatePublisher.itemChanged(item);
+
+        // Evict before bumping: a reader that sees the new version must not find the old list still cached
+        Runnable bump = () -> {
+            evict("inventoryItems", SimpleKey.EMPTY);
+            bump(ALL_ITEMS);
+            if (categoryId != null) {
+                evict("inventoryItemsByCategory", categoryId);
+                bump(CollectionVersionService.category(categoryId));
+            }
+            if (locationId != null) {
+                evict("inventoryItemsByLocation", locationId);
+                bump(CollectionVersionService.location(locationId));
+            }
+            if (lowStockAffected) {
+                clear("lowStockItems");
+                clear("lowStockItemsByCategory");
+                clear("lowStockItemsByLocation");
+                bump(LOW_STOCK);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+
+    private void bump(String collection) {
+        try {
+            String key = KEY_PREFIX + collection;
+            redisTemplate.opsForValue().setIfAbsent(key, Long.toString(System.currentTimeMillis()));
+            redisTemplate.opsForValue().increment(key);
+        } catch (Exception e) {
+            logger.warn("Could not bump version of collection {}: {}", collection, e.getMessage());
+        }
+    }
+
+    // Runs after the commit, so a failure must not reach the caller of a write that did happen
+    private void evict(String cacheName, Object key) {
+        try {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.evict(key);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not evict {} from cache {}: {}", key, cacheName, e.getMessage());
+        }
+    }
+
+    private void clear(String cacheName) {
+        try {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        } catch (Exception e) {
+            logger.warn("Could not clear cache {}: {}", cacheName, e.getMessage());
+        }
+    }
+}
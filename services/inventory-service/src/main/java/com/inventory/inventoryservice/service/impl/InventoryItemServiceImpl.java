@@ -1,98 +1,148 @@
 package com.inventory.inventoryservice.service.impl;
 
+import com.inventory.inventoryservice.concurrency.GroupCommitExecutor;
+import com.inventory.inventoryservice.concurrency.QuantityChangeApplied;
+import com.inventory.inventoryservice.concurrency.StockBuckets;
+import com.inventory.inventoryservice.concurrency.StockMutationExecutor;
+import com.inventory.inventoryservice.concurrency.StockMutationResult;
 import com.inventory.inventoryservice.event.InventoryChangeEvent;
 import com.inventory.inventoryservice.event.KafkaProducerService;
 import com.inventory.inventoryservice.event.LowStockAlertEvent;
+import com.inventory.inventoryservice.history.StockMovementRecorder;
+import com.inventory.inventoryservice.journal.QuantityJournal;
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
 import com.inventory.inventoryservice.model.Category;
 import com.inventory.inventoryservice.model.InventoryItem;
 import com.inventory.inventoryservice.model.Location;
 import com.inventory.inventoryservice.repository.InventoryItemRepository;
+import com.inventory.inventoryservice.service.CollectionVersionService;
 import com.inventory.inventoryservice.service.InventoryItemService;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import com.inventory.inventoryservice.stock.RedisStockResult;
+import com.inventory.inventoryservice.stock.RedisStockService;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityNotFoundException;
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 @Service
+@Timed(value = "inventory.service", description = "Latency of inventory service methods")
 public class InventoryItemServiceImpl implements InventoryItemService {
 
     private static final Logger logger = LoggerFactory.getLogger(InventoryItemServiceImpl.class);
 
     private final InventoryItemRepository inventoryItemRepository;
     private final KafkaProducerService kafkaProducerService;
+    private final CollectionVersionService collectionVersionService;
+    private final InventoryMetrics inventoryMetrics;
+    private final StockMutationExecutor stockMutationExecutor;
+    private final RedisStockService redisStockService;
+    private final StockBuckets stockBuckets;
+    private final GroupCommitExecutor groupCommitExecutor;
+    private final ShardRouter shardRouter;
+    private final StockMovementRecorder stockMovementRecorder;
+    private final QuantityJournal quantityJournal;
 
     public InventoryItemServiceImpl(InventoryItemRepository inventoryItemRepository, 
-                                   KafkaProducerService kafkaProducerService) {
+                                   KafkaProducerService kafkaProducerService,
+                                   CollectionVersionService collectionVersionService,
+                                   InventoryMetrics inventoryMetrics,
+                                   StockMutationExecutor stockMutationExecutor,
+                                   RedisStockService redisStockService,
+                                   StockBuckets stockBuckets,
+                                   GroupCommitExecutor groupCommitExecutor,
+                                   ShardRouter shardRouter,
+                                   StockMovementRecorder stockMovementRecorder,
+                                   QuantityJournal quantityJournal) {
         this.inventoryItemRepository = inventoryItemRepository;
         this.kafkaProducerService = kafkaProducerService;
+        this.collectionVersionService = collectionVersionService;
+        this.inventoryMetrics = inventoryMetrics;
+        this.stockMutationExecutor = stockMutationExecutor;
+        this.redisStockService = redisStockService;
+        this.stockBuckets = stockBuckets;
+        this.groupCommitExecutor = groupCommitExecutor;
+        this.shardRouter = shardRouter;
+        this.stockMovementRecorder = stockMovementRecorder;
+        this.quantityJournal = quantityJournal;
     }
 
     @Override
-    @Cacheable(value = "inventoryItems")
+    @Cacheable(value = "inventoryItems", sync = true)
     public List<InventoryItem> getAllItems() {
         logger.info("Fetching all inventory items");
-        return inventoryItemRepository.findAll();
+        return shardRouter.gather(inventoryItemRepository::findAll);
     }
 
     @Override
     public Page<InventoryItem> getAllItemsPaged(Pageable pageable) {
         logger.info("Fetching inventory items with pagination");
-        return inventoryItemRepository.findAll(pageable);
+        return shardRouter.gatherPage(inventoryItemRepository::findAll, pageable);
     }
 
     @Override
-    @Cacheable(value = "inventoryItems", key = "#id")
+    @Transactional(readOnly = true)
+    @Cacheable(value = "inventoryItems", key = "#id", sync = true)
     public Optional<InventoryItem> getItemById(Long id) {
         logger.info("Fetching inventory item with id: {}", id);
-        return inventoryItemRepository.findById(id);
+        return shardRouter.forItem(id, () -> inventoryItemRepository.findById(id));
     }
 
     @Override
-    @Cacheable(value = "inventoryItems", key = "#sku")
+    @Transactional(readOnly = true)
+    @Cacheable(value = "inventoryItems", key = "#sku", sync = true)
     public Optional<InventoryItem> getItemBySku(String sku) {
         logger.info("Fetching inventory item with SKU: {}", sku);
-        return inventoryItemRepository.findBySku(sku);
+        return shardRouter.forSku(sku, () -> inventoryItemRepository.findBySku(sku));
     }
 
     @Override
-    @Cacheable(value = "inventoryItemsByCategory", key = "#category.id")
+    @Cacheable(value = "inventoryItemsByCategory", key = "#category.id", sync = true)
     public List<InventoryItem> getItemsByCategory(Category category) {
         logger.info("Fetching inventory items by category: {}", category.getName());
-        return inventoryItemRepository.findByCategory(category);
+        return shardRouter.gather(() -> inventoryItemRepository.findByCategory(category));
     }
 
     @Override
-    @Cacheable(value = "inventoryItemsByLocation", key = "#location.id")
+    @Cacheable(value = "inventoryItemsByLocation", key = "#location.id", sync = true)
     public List<InventoryItem> getItemsByLocation(Location location) {
         logger.info("Fetching inventory items by location: {}", location.getName());
-        return inventoryItemRepository.findByLocation(location);
+        return shardRouter.gather(() -> inventoryItemRepository.findByLocation(location));
     }
 
     @Override
     public Page<InventoryItem> searchItems(String keyword, Pageable pageable) {
         logger.info("Searching inventory items with keyword: {}", keyword);
-        return inventoryItemRepository.findByNameContaining(keyword, pageable);
+        return shardRouter.gatherPage(page -> inventoryItemRepository.findByNameContaining(keyword, page), pageable);
     }
 
     @Override
     @Transactional
     public InventoryItem createItem(InventoryItem item) {
         logger.info("Creating new inventory item with SKU: {}", item.getSku());
-        if (inventoryItemRepository.existsBySku(item.getSku())) {
-            throw new IllegalArgumentException("Inventory item with SKU " + item.getSku() + " already exists");
-        }
-        return inventoryItemRepository.save(item);
+        return shardRouter.forSku(item.getSku(), () -> {
+            if (inventoryItemRepository.existsBySku(item.getSku())) {
+                throw new IllegalArgumentException("Inventory item with SKU " + item.getSku() + " already exists");
+            }
+            InventoryItem savedItem = inventoryItemRepository.save(item);
+            collectionVersionService.itemChanged(savedItem, savedItem.isLowStock());
+            stockMovementRecorder.record(savedItem, savedItem.getQuantity(), "CREATE");
+            return savedItem;
+        });
     }
 
     @Override
@@ -100,6 +150,14 @@ public class InventoryItemServiceImpl implements InventoryItemService {
     @CachePut(value = "inventoryItems", key = "#id")
     public InventoryItem updateItem(Long id, InventoryItem item) {
         logger.info("Updating inventory item with id: {}", id);
+        // Items live on the shard of their SKU and are not moved between shards
+        if (shardRouter.shardForSku(item.getSku()) != shardRouter.shardForItem(id)) {
+            throw new IllegalArgumentException("SKU " + item.getSku() + " belongs to another shard than inventory item " + id);
+        }
+        return shardRouter.forItem(id, () -> updateItemOnShard(id, item));
+    }
+
+    private InventoryItem updateItemOnShard(Long id, InventoryItem item) {
         InventoryItem existingItem = inventoryItemRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Inventory item not found with id: " + id));
 
@@ -109,6 +167,19 @@ public class InventoryItemServiceImpl implements InventoryItemService {
             throw new IllegalArgumentException("Inventory item with SKU " + item.getSku() + " already exists");
         }
 
+        // The stock of a hot SKU is held in Redis and only changes through updateQuantity, so an
+        // absolute quantity written here would be overwritten by the next Redis reconcile
+        boolean hot = redisStockService.isEnabledFor(existingItem.getSku()) || redisStockService.isEnabledFor(item.getSku());
+        if (hot && (!existingItem.getSku().equals(item.getSku()) || !Objects.equals(existingItem.getQuantity(), item.getQuantity()))) {
+            throw new IllegalArgumentException("Quantity and SKU of hot SKU " + existingItem.getSku()
+                    + " cannot be updated directly, use quantity changes instead");
+        }
+
+        // The item leaves its old category/location lists if those change
+        collectionVersionService.itemChanged(existingItem, existingItem.isLowStock());
+        InventoryItem previous = existingItem.withQuantity(existingItem.isBucketed()
+                ? stockBuckets.lockAndSum(id) : existingItem.getQuantity());
+
         existingItem.setName(item.getName());
         existingItem.setDescription(item.getDescription());
         existingItem.setSku(item.getSku());
@@ -117,8 +188,20 @@ public class InventoryItemServiceImpl implements InventoryItemService {
         existingItem.setPrice(item.getPrice());
         existingItem.setCategory(item.getCategory());
         existingItem.setLocation(item.getLocation());
+        if (existingItem.isBucketed()) {
+            stockBuckets.distribute(id, existingItem.getBucketCount(), item.getQuantity());
+        }
 
-        return inventoryItemRepository.save(existingItem);
+        InventoryItem savedItem = inventoryItemRepository.save(existingItem);
+        collectionVersionService.itemChanged(savedItem, savedItem.isLowStock());
+        if (previous.getSku().equals(savedItem.getSku())) {
+            stockMovementRecorder.record(savedItem, savedItem.getQuantity() - previous.getQuantity(), "UPDATE");
+        } else {
+            // History is kept per SKU: the old SKU is emptied and the new one starts from the new quantity
+            stockMovementRecorder.record(previous, -previous.getQuantity(), "UPDATE");
+            stockMovementRecorder.record(savedItem, savedItem.getQuantity(), "UPDATE");
+        }
+        return savedItem;
     }
 
     @Override
@@ -126,130 +209,244 @@ public class InventoryItemServiceImpl implements InventoryItemService {
     @CacheEvict(value = "inventoryItems", key = "#id")
     public void deleteItem(Long id) {
         logger.info("Deleting inventory item with id: {}", id);
-        if (!inventoryItemRepository.existsById(id)) {
-            throw new EntityNotFoundException("Inventory item not found with id: " + id);
-        }
-        inventoryItemRepository.deleteById(id);
+        shardRouter.runOnShard(shardRouter.shardForItem(id), () -> {
+            InventoryItem item = inventoryItemRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("Inventory item not found with id: " + id));
+            int quantity = item.getQuantity();
+            if (item.isBucketed()) {
+                quantity = stockBuckets.lockAndSum(id);
+                stockBuckets.remove(id);
+            }
+            inventoryItemRepository.delete(item);
+            collectionVersionService.itemChanged(item, item.isLowStock());
+            stockMovementRecorder.record(item, -quantity, "DELETE");
+        });
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean existsBySku(String sku) {
-        return inventoryItemRepository.existsBySku(sku);
+        return shardRouter.forSku(sku, () -> inventoryItemRepository.existsBySku(sku));
     }
 
     @Override
-    @Transactional
     @CachePut(value = "inventoryItems", key = "#id")
     public InventoryItem updateQuantity(Long id, int quantityChange) {
         logger.info("Updating quantity for inventory item with id: {}, change: {}", id, quantityChange);
-        InventoryItem item = inventoryItemRepository.findByIdWithLock(id)
-                .orElseThrow(() -> new EntityNotFoundException("Inventory item not found with id: " + id));
+        Optional<String> hotSku = redisStockService.hotSkuForItem(id);
+        if (hotSku.isPresent()) {
+            return updateHotSkuQuantity(hotSku.get(), quantityChange);
+        }
 
-        int newQuantity = item.getQuantity() + quantityChange;
-        if (newQuantity < 0) {
+        StockMutationResult result = groupCommitExecutor.isEnabled() ? groupCommitExecutor.apply(id, quantityChange) : null;
+        if (result == null) {
+            result = stockMutationExecutor.applyById(id, quantityChange);
+        }
+        if (!result.isApplied()) {
             throw new IllegalArgumentException("Cannot reduce quantity below zero");
         }
 
-        item.setQuantity(newQuantity);
-        item.setUpdatedAt(LocalDateTime.now());
-
-        InventoryItem updatedItem = inventoryItemRepository.save(item);
-
-        // Check if the item is now low on stock
-        if (updatedItem.isLowStock()) {
-            logger.warn("Inventory item {} is low on stock. Current quantity: {}, Threshold: {}", 
-                    updatedItem.getSku(), updatedItem.getQuantity(), updatedItem.getThreshold());
-
-            // Publish inventory change event
-            InventoryChangeEvent changeEvent = createInventoryChangeEvent(updatedItem, item.getQuantity(), "UPDATE");
-            kafkaProducerService.publishInventoryChangeEvent(changeEvent);
+        // Events are published after the quantity change has committed, so no row lock is held meanwhile
+        publishQuantityChange(result.getItem(), result.getOldQuantity(), "UPDATE");
+        return result.getItem();
+    }
 
-            // Publish low stock alert event
-            LowStockAlertEvent alertEvent = createLowStockAlertEvent(updatedItem, "NEW", "UPDATE");
-            kafkaProducerService.publishLowStockAlertEvent(alertEvent);
-        } else {
-            // Publish inventory change event only
-            InventoryChangeEvent changeEvent = createInventoryChangeEvent(updatedItem, item.getQuantity(), "UPDATE");
-            kafkaProducerService.publishInventoryChangeEvent(changeEvent);
+    @Override
+    public OptionalLong journalQuantity(Long id, int quantityChange) {
+        // Only increments are deferred: a decrement has to be checked against the stock before it is acknowledged
+        if (!quantityJournal.isEnabled() || quantityChange <= 0 || quantityJournal.isBacklogged()
+                || redisStockService.hotSkuForItem(id).isPresent()) {
+            return OptionalLong.empty();
         }
+        if (!shardRouter.forItem(id, () -> inventoryItemRepository.existsById(id))) {
+            throw new EntityNotFoundException("Inventory item not found with id: " + id);
+        }
+        logger.info("Journaling quantity change for inventory item with id: {}, change: {}", id, quantityChange);
+        try {
+            return OptionalLong.of(quantityJournal.append(id, quantityChange).getSequence());
+        } catch (IllegalStateException e) {
+            logger.warn("Could not journal quantity change for inventory item {}, applying it directly: {}", id, e.getMessage());
+            return OptionalLong.empty();
+        }
+    }
 
-        return updatedItem;
+    @EventListener
+    @CacheEvict(value = "inventoryItems", key = "#event.result.item.id")
+    public void onQuantityChangeApplied(QuantityChangeApplied event) {
+        StockMutationResult result = event.getResult();
+        publishQuantityChange(result.getItem(), result.getOldQuantity(), event.getChangeType());
     }
 
     @Override
-    @Transactional
     public InventoryItem updateQuantityBySku(String sku, int quantityChange) {
         logger.info("Updating quantity for inventory item with SKU: {}, change: {}", sku, quantityChange);
-        InventoryItem item = inventoryItemRepository.findBySkuWithLock(sku)
-                .orElseThrow(() -> new EntityNotFoundException("Inventory item not found with SKU: " + sku));
+        if (redisStockService.isEnabledFor(sku)) {
+            return updateHotSkuQuantity(sku, quantityChange);
+        }
+
+        StockMutationResult result = stockMutationExecutor.applyBySku(sku, quantityChange);
+        if (!result.isApplied()) {
+            throw new IllegalArgumentException("Cannot reduce quantity below zero");
+        }
 
-        return updateQuantity(item.getId(), quantityChange);
+        publishQuantityChange(result.getItem(), result.getOldQuantity(), "UPDATE");
+        return result.getItem();
     }
 
     @Override
-    @Cacheable(value = "lowStockItems")
+    @Cacheable(value = "lowStockItems", sync = true)
     public List<InventoryItem> findLowStockItems() {
         logger.info("Finding all low stock items");
-        return inventoryItemRepository.findLowStockItems();
+        return shardRouter.gather(inventoryItemRepository::findLowStockItems);
     }
 
     @Override
-    @Cacheable(value = "lowStockItemsByLocation", key = "#locationId")
+    @Cacheable(value = "lowStockItemsByLocation", key = "#locationId", sync = true)
     public List<InventoryItem> findLowStockItemsByLocation(Long locationId) {
         logger.info("Finding low stock items by location id: {}", locationId);
-        return inventoryItemRepository.findLowStockItemsByLocation(locationId);
+        return shardRouter.gather(() -> inventoryItemRepository.findLowStockItemsByLocation(locationId));
     }
 
     @Override
-    @Cacheable(value = "lowStockItemsByCategory", key = "#categoryId")
+    @Cacheable(value = "lowStockItemsByCategory", key = "#categoryId", sync = true)
     public List<InventoryItem> findLowStockItemsByCategory(Long categoryId) {
         logger.info("Finding low stock items by category id: {}", categoryId);
-        return inventoryItemRepository.findLowStockItemsByCategory(categoryId);
+        return shardRouter.gather(() -> inventoryItemRepository.findLowStockItemsByCategory(categoryId));
     }
 
     @Override
-    @Transactional
     public boolean reserveInventory(String sku, int quantity) {
         logger.info("Attempting to reserve {} units of item with SKU: {}", quantity, sku);
+        if (redisStockService.isEnabledFor(sku)) {
+            return reserveHotSku(sku, quantity);
+        }
         try {
-            InventoryItem item = inventoryItemRepository.findBySkuWithLock(sku)
-                    .orElseThrow(() -> new EntityNotFoundException("Inventory item not found with SKU: " + sku));
-
-            if (item.getQuantity() >= quantity) {
-                item.setQuantity(item.getQuantity() - quantity);
-                item.setUpdatedAt(LocalDateTime.now());
-                inventoryItemRepository.save(item);
-
-                // Check if the item is now low on stock
-                if (item.isLowStock()) {
-                    logger.warn("Inventory item {} is low on stock after reservation. Current quantity: {}, Threshold: {}", 
-                            item.getSku(), item.getQuantity(), item.getThreshold());
-
-                    // Publish inventory change event
-                    InventoryChangeEvent changeEvent = createInventoryChangeEvent(item, item.getQuantity() + quantity, "RESERVATION");
-                    kafkaProducerService.publishInventoryChangeEvent(changeEvent);
-
-                    // Publish low stock alert event
-                    LowStockAlertEvent alertEvent = createLowStockAlertEvent(item, "NEW", "RESERVATION");
-                    kafkaProducerService.publishLowStockAlertEvent(alertEvent);
-                } else {
-                    // Publish inventory change event only
-                    InventoryChangeEvent changeEvent = createInventoryChangeEvent(item, item.getQuantity() + quantity, "RESERVATION");
-                    kafkaProducerService.publishInventoryChangeEvent(changeEvent);
-                }
-
-                return true;
-            } else {
+            StockMutationResult result = stockMutationExecutor.applyBySku(sku, -quantity);
+            if (!result.isApplied()) {
                 logger.warn("Cannot reserve {} units of item with SKU: {}. Available quantity: {}", 
-                        quantity, sku, item.getQuantity());
+                        quantity, sku, result.getOldQuantity());
+                inventoryMetrics.reservationInsufficientStock();
                 return false;
             }
+
+            publishQuantityChange(result.getItem(), result.getOldQuantity(), "RESERVATION");
+            inventoryMetrics.reservationSucceeded();
+            return true;
         } catch (EntityNotFoundException e) {
             logger.error("Failed to reserve inventory: {}", e.getMessage());
+            inventoryMetrics.reservationNotFound();
             return false;
         }
     }
 
+    @Override
+    @Transactional
+    @CachePut(value = "inventoryItems", key = "#id")
+    public InventoryItem splitStock(Long id, int bucketCount) {
+        logger.info("Splitting stock of inventory item with id: {} into {} buckets", id, bucketCount);
+        return shardRouter.forItem(id, () -> splitStockOnShard(id, bucketCount));
+    }
+
+    private InventoryItem splitStockOnShard(Long id, int bucketCount) {
+        InventoryItem item = inventoryItemRepository.findByIdWithLock(id)
+                .orElseThrow(() -> new EntityNotFoundException("Inventory item not found with id: " + id));
+        if (redisStockService.isEnabledFor(item.getSku())) {
+            throw new IllegalArgumentException("Stock of SKU " + item.getSku() + " is held in Redis and cannot be split");
+        }
+
+        int quantity = item.isBucketed() ? stockBuckets.lockAndSum(id) : item.getQuantity();
+        if (bucketCount > 1) {
+            stockBuckets.distribute(id, bucketCount, quantity);
+            item.setBucketCount(bucketCount);
+        } else if (item.isBucketed()) {
+            stockBuckets.remove(id);
+            item.setBucketCount(null);
+        }
+        item.setQuantity(quantity);
+
+        InventoryItem savedItem = inventoryItemRepository.save(item);
+        collectionVersionService.itemChanged(savedItem, false);
+        return savedItem;
+    }
+
+    /**
+     * Applies a quantity change to a SKU whose stock is held in Redis. The database row follows asynchronously,
+     * so the returned item is a copy of the stored one carrying the quantity from Redis.
+     */
+    private InventoryItem updateHotSkuQuantity(String sku, int quantityChange) {
+        RedisStockResult result = redisStockService.adjust(sku, quantityChange);
+        if (result.getStatus() == RedisStockResult.Status.NOT_FOUND) {
+            throw new EntityNotFoundException("Inventory item not found with SKU: " + sku);
+        }
+        if (!result.isApplied()) {
+            throw new IllegalArgumentException("Cannot reduce quantity below zero");
+        }
+
+        publishHotSkuChange(result, "UPDATE");
+        InventoryItem stored = shardRouter.forSku(sku, () -> inventoryItemRepository.findBySku(sku))
+                .orElseThrow(() -> new EntityNotFoundException("Inventory item not found with SKU: " + sku));
+        return stored.withQuantity(result.getNewQuantity());
+    }
+
+    private boolean reserveHotSku(String sku, int quantity) {
+        RedisStockResult result = redisStockService.adjust(sku, -quantity);
+        switch (result.getStatus()) {
+            case NOT_FOUND -> {
+                logger.error("Failed to reserve inventory: Inventory item not found with SKU: {}", sku);
+                inventoryMetrics.reservationNotFound();
+                return false;
+            }
+            case INSUFFICIENT_STOCK -> {
+                logger.warn("Cannot reserve {} units of item with SKU: {}. Available quantity: {}", 
+                        quantity, sku, result.getOldQuantity());
+                inventoryMetrics.reservationInsufficientStock();
+                return false;
+            }
+            default -> {
+                publishHotSkuChange(result, "RESERVATION");
+                inventoryMetrics.reservationSucceeded();
+                return true;
+            }
+        }
+    }
+
+    private void publishHotSkuChange(RedisStockResult result, String changeType) {
+        InventoryItem snapshot = result.getSnapshot();
+        stockMovementRecorder.record(snapshot, result.getNewQuantity() - result.getOldQuantity(), changeType);
+        // Redis-held stock only reaches the row with the next write-back, so change capture cannot publish it
+        kafkaProducerService.publishInventoryChangeEvent(
+                createInventoryChangeEvent(snapshot, result.getOldQuantity(), changeType), false);
+
+        if (snapshot.isLowStock()) {
+            String alertType = result.isThresholdCrossed() ? "NEW" : "CONTINUED";
+            kafkaProducerService.publishLowStockAlertEvent(createLowStockAlertEvent(snapshot, alertType, changeType), false);
+        }
+    }
+
+    /**
+     * Records and publishes the change event for a quantity mutation, plus a low stock alert if the item is now low on stock.
+     *
+     * @param item The inventory item after the change
+     * @param oldQuantity The quantity before the change
+     * @param changeType The type of change (UPDATE, RESERVATION)
+     */
+    private void publishQuantityChange(InventoryItem item, int oldQuantity, String changeType) {
+        stockMovementRecorder.record(item, item.getQuantity() - oldQuantity, changeType);
+        InventoryChangeEvent changeEvent = createInventoryChangeEvent(item, oldQuantity, changeType);
+        // Stock of bucketed items changes in stock_buckets, which change capture does not see
+        boolean rowChange = !item.isBucketed();
+        kafkaProducerService.publishInventoryChangeEvent(changeEvent, rowChange);
+
+        // Check if the item is now low on stock
+        if (item.isLowStock()) {
+            logger.warn("Inventory item {} is low on stock after {}. Current quantity: {}, Threshold: {}", 
+                    item.getSku(), changeType.toLowerCase(), item.getQuantity(), item.getThreshold());
+
+            LowStockAlertEvent alertEvent = createLowStockAlertEvent(item, "NEW", changeType);
+            kafkaProducerService.publishLowStockAlertEvent(alertEvent, rowChange);
+        }
+    }
+
     /**
      * Creates an InventoryChangeEvent from an InventoryItem.
      *
@@ -1,8 +1,10 @@
 package com.inventory.inventoryservice.service.impl;
 
 import com.inventory.inventoryservice.model.Location;
+import com.inventory.inventoryservice.partition.InventoryPartitionManager;
 import com.inventory.inventoryservice.repository.LocationRepository;
 import com.inventory.inventoryservice.service.LocationService;
+import com.inventory.inventoryservice.shard.ReferenceDataReplicator;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,10 +24,16 @@ public class LocationServiceImpl implements LocationService {
     private static final Logger logger = LoggerFactory.getLogger(LocationServiceImpl.class);
     
     private final LocationRepository locationRepository;
+    private final InventoryPartitionManager inventoryPartitionManager;
+    private final ReferenceDataReplicator referenceDataReplicator;
     
     @Autowired
-    public LocationServiceImpl(LocationRepository locationRepository) {
+    public LocationServiceImpl(LocationRepository locationRepository,
+                               InventoryPartitionManager inventoryPartitionManager,
+                               ReferenceDataReplicator referenceDataReplicator) {
         this.locationRepository = locationRepository;
+        this.inventoryPartitionManager = inventoryPartitionManager;
+        this.referenceDataReplicator = referenceDataReplicator;
     }
     
     @Override
@@ -70,7 +78,10 @@ public class LocationServiceImpl implements LocationService {
         if (locationRepository.existsByName(location.getName())) {
             throw new IllegalArgumentException("Location with name " + location.getName() + " already exists");
         }
-        return locationRepository.save(location);
+        Location savedLocation = locationRepository.save(location);
+        referenceDataReplicator.replicateAfterCommit();
+        inventoryPartitionManager.createPartition(savedLocation.getId());
+        return savedLocation;
     }
     
     @Override
@@ -94,7 +105,9 @@ public class LocationServiceImpl implements LocationService {
         existingLocation.setZipCode(location.getZipCode());
         existingLocation.setCountry(location.getCountry());
         
-        return locationRepository.save(existingLocation);
+        Location savedLocation = locationRepository.save(existingLocation);
+        referenceDataReplicator.replicateAfterCommit();
+        return savedLocation;
     }
     
     @Override
@@ -106,6 +119,7 @@ public class LocationServiceImpl implements LocationService {
             throw new EntityNotFoundException("Location not found with id: " + id);
         }
         locationRepository.deleteById(id);
+        referenceDataReplicator.replicateAfterCommit();
     }
     
     @Override
@@ -0,0 +1,229 @@
+package com.inventory.inventoryservice.service.impl;
+
+import com.inventory.inventoryservice.concurrency.QuantityChangeApplied;
+import com.inventory.inventoryservice.concurrency.StockMutationExecutor;
+import com.inventory.inventoryservice.concurrency.StockMutationResult;
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import com.inventory.inventoryservice.model.Reservation;
+import com.inventory.inventoryservice.model.ReservationStatus;
+import com.inventory.inventoryservice.repository.InventoryItemRepository;
+import com.inventory.inventoryservice.repository.ReservationRepository;
+import com.inventory.inventoryservice.reservation.ReservationExpiryScheduler;
+import com.inventory.inventoryservice.service.CollectionVersionService;
+import com.inventory.inventoryservice.service.ReservationService;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import com.inventory.inventoryservice.stock.RedisStockService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@Service
+@Timed(value = "inventory.service", description = "Latency of inventory service methods")
+public class ReservationServiceImpl implements ReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationServiceImpl.class);
+
+    private final ReservationRepository reservationRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final StockMutationExecutor stockMutationExecutor;
+    private final RedisStockService redisStockService;
+    private final ReservationExpiryScheduler reservationExpiryScheduler;
+    private final CollectionVersionService collectionVersionService;
+    private final ShardRouter shardRouter;
+    private final InventoryMetrics inventoryMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.inventory.reservations.default-ttl-seconds:900}")
+    private long defaultTtlSeconds;
+
+    @Value("${app.inventory.reservations.max-ttl-seconds:86400}")
+    private long maxTtlSeconds;
+
+    public ReservationServiceImpl(ReservationRepository reservationRepository,
+                                  InventoryItemRepository inventoryItemRepository,
+                                  StockMutationExecutor stockMutationExecutor,
+                                  RedisStockService redisStockService,
+                                  ReservationExpiryScheduler reservationExpiryScheduler,
+                                  CollectionVersionService collectionVersionService,
+                                  ShardRouter shardRouter,
+                                  InventoryMetrics inventoryMetrics,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager) {
+        this.reservationRepository = reservationRepository;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.stockMutationExecutor = stockMutationExecutor;
+        this.redisStockService = redisStockService;
+        this.reservationExpiryScheduler = reservationExpiryScheduler;
+        this.collectionVersionService = collectionVersionService;
+        this.shardRouter = shardRouter;
+        this.inventoryMetrics = inventoryMetrics;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void registerExpiryHandler() {
+        reservationExpiryScheduler.setExpiryHandler(this::expire);
+    }
+
+    @Override
+    public Optional<Reservation> hold(String sku, int quantity, Duration ttl) {
+        Duration holdFor = ttl != null ? ttl : Duration.ofSeconds(defaultTtlSeconds);
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity to hold must be positive, got " + quantity);
+        }
+        if (holdFor.isNegative() || holdFor.isZero() || holdFor.getSeconds() > maxTtlSeconds) {
+            throw new IllegalArgumentException("Hold TTL must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+        if (redisStockService.isEnabledFor(sku)) {
+            throw new IllegalArgumentException("Stock of SKU " + sku + " is held in Redis and cannot be put on hold");
+        }
+        logger.info("Holding {} units of item with SKU: {} for {}", quantity, sku, holdFor);
+
+        HoldChange held;
+        try {
+            held = shardRouter.forSku(sku, () -> transactionTemplate.execute(status -> holdOnShard(sku, quantity, holdFor)));
+        } catch (EntityNotFoundException e) {
+            inventoryMetrics.reservationNotFound();
+            throw e;
+        }
+        if (held == null) {
+            logger.warn("Cannot hold {} units of item with SKU: {}", quantity, sku);
+            inventoryMetrics.reservationInsufficientStock();
+            return Optional.empty();
+        }
+
+        reservationExpiryScheduler.schedule(held.reservation().getId(), held.reservation().getExpiresAt());
+        eventPublisher.publishEvent(new QuantityChangeApplied(held.stockChanges().get(0), "HOLD"));
+        inventoryMetrics.reservationSucceeded();
+        return Optional.of(held.reservation());
+    }
+
+    private HoldChange holdOnShard(String sku, int quantity, Duration holdFor) {
+        StockMutationResult result = stockMutationExecutor.applyBySku(sku, -quantity);
+        if (!result.isApplied()) {
+            return null;
+        }
+        Long itemId = result.getItem().getId();
+        inventoryItemRepository.adjustReservedQuantity(itemId, quantity);
+        Reservation reservation = reservationRepository.save(
+                new Reservation(itemId, sku, quantity, LocalDateTime.now().plus(holdFor)));
+        return new HoldChange(reservation, List.of(result));
+    }
+
+    @Override
+    @CacheEvict(value = "inventoryItems", key = "#result.itemId")
+    public Reservation confirm(Long id) {
+        logger.info("Confirming reservation with id: {}", id);
+        return end(id, ReservationStatus.CONFIRMED);
+    }
+
+    @Override
+    @CacheEvict(value = "inventoryItems", key = "#result.itemId")
+    public Reservation release(Long id) {
+        logger.info("Releasing reservation with id: {}", id);
+        return end(id, ReservationStatus.RELEASED);
+    }
+
+    private Reservation end(Long id, ReservationStatus outcome) {
+        HoldChange ended = shardRouter.forReservation(id, () -> transactionTemplate.execute(status -> {
+            Reservation reservation = reservationRepository.findByIdWithLock(id)
+                    .orElseThrow(() -> new EntityNotFoundException("Reservation not found with id: " + id));
+            if (reservation.getStatus() != ReservationStatus.HELD) {
+                throw new IllegalStateException("Reservation " + id + " is already " + reservation.getStatus());
+            }
+            return new HoldChange(reservation, endHolds(List.of(reservation), outcome));
+        }));
+        reservationExpiryScheduler.cancel(id);
+        publish(ended.stockChanges(), outcome);
+        inventoryMetrics.holdsEnded(outcome.name().toLowerCase(), 1);
+        return ended.reservation();
+    }
+
+    @Override
+    public Optional<Reservation> getReservation(Long id) {
+        return shardRouter.forReservation(id, () -> reservationRepository.findById(id));
+    }
+
+    @Override
+    public int expire(List<Long> ids) {
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        ids.forEach(id -> byShard.computeIfAbsent(shardRouter.shardForItem(id), shard -> new ArrayList<>()).add(id));
+
+        int expired = 0;
+        for (List<Long> shardIds : byShard.values()) {
+            List<Reservation> notDue = new ArrayList<>();
+            List<StockMutationResult> stockChanges = shardRouter.forReservation(shardIds.get(0), () -> transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<Reservation> due = new ArrayList<>();
+                for (Reservation reservation : reservationRepository.findAllByIdAndStatusWithLock(shardIds, ReservationStatus.HELD)) {
+                    (reservation.getExpiresAt().isAfter(now) ? notDue : due).add(reservation);
+                }
+                return endHolds(due, ReservationStatus.EXPIRED);
+            }));
+            // Clocks of other instances may run ahead; such holds get another turn at their own deadline
+            notDue.forEach(reservation -> reservationExpiryScheduler.schedule(reservation.getId(), reservation.getExpiresAt()));
+            publish(stockChanges, ReservationStatus.EXPIRED);
+            expired += shardIds.size() - notDue.size();
+        }
+        if (expired > 0) {
+            logger.info("Expired {} reservation holds", expired);
+            inventoryMetrics.holdsEnded(ReservationStatus.EXPIRED.name().toLowerCase(), expired);
+        }
+        return expired;
+    }
+
+    /**
+     * End holds within the current transaction, with one stock update per item however many of its holds end
+     * @return The changes of available stock, one per item; none for confirmed holds
+     */
+    private List<StockMutationResult> endHolds(List<Reservation> reservations, ReservationStatus outcome) {
+        Map<Long, Integer> quantityByItem = new TreeMap<>();
+        for (Reservation reservation : reservations) {
+            reservation.setStatus(outcome);
+            quantityByItem.merge(reservation.getItemId(), reservation.getQuantity(), Integer::sum);
+        }
+        reservationRepository.saveAll(reservations);
+
+        List<StockMutationResult> stockChanges = new ArrayList<>();
+        quantityByItem.forEach((itemId, quantity) -> {
+            if (!inventoryItemRepository.adjustReservedQuantity(itemId, -quantity)) {
+                // The item was deleted while its stock was held; there is nothing to return the stock to
+                logger.warn("Inventory item {} no longer holds {} reserved units, ending its holds anyway", itemId, quantity);
+                return;
+            }
+            if (outcome != ReservationStatus.CONFIRMED) {
+                stockChanges.add(stockMutationExecutor.applyById(itemId, quantity));
+            } else {
+                // Available stock stays as it is, so nothing else announces the change of the reserved quantity
+                inventoryItemRepository.findById(itemId).ifPresent(item -> collectionVersionService.itemChanged(item, false));
+            }
+        });
+        return stockChanges;
+    }
+
+    private void publish(List<StockMutationResult> stockChanges, ReservationStatus outcome) {
+        String changeType = outcome == ReservationStatus.EXPIRED ? "EXPIRY" : "RELEASE";
+        stockChanges.forEach(change -> eventPublisher.publishEvent(new QuantityChangeApplied(change, changeType)));
+    }
+
+    private record HoldChange(Reservation reservation, List<StockMutationResult> stockChanges) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.inventory.inventoryservice.service.impl;
+
+import com.inventory.inventoryservice.history.StockHistoryMaintenance;
+import com.inventory.inventoryservice.history.StockMovement;
+import com.inventory.inventoryservice.service.StockHistoryService;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class StockHistoryServiceImpl implements StockHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockHistoryServiceImpl.class);
+
+    private static final String MOVEMENTS_SQL = """
+            SELECT item_id, sku, location_id, quantity_change, change_type, occurred_at
+            FROM stock_movements
+            WHERE sku = :sku AND occurred_at >= :from AND occurred_at < :to
+            ORDER BY occurred_at DESC
+            LIMIT :limit
+            """;
+
+    private static final String QUANTITY_AT_SQL = """
+            WITH base AS (
+                SELECT quantity, snapshot_at FROM stock_snapshots
+                WHERE sku = :sku AND snapshot_at <= :at
+                ORDER BY snapshot_at DESC
+                LIMIT 1
+            )
+            SELECT (SELECT quantity FROM base) AS base_quantity,
+                   COALESCE(SUM(m.quantity_change), 0) AS quantity_change,
+                   COUNT(*) AS movements
+            FROM stock_movements m
+            WHERE m.sku = :sku AND m.occurred_at <= :at
+              AND m.occurred_at > COALESCE((SELECT snapshot_at FROM base), '-infinity'::timestamp)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final StockHistoryMaintenance stockHistoryMaintenance;
+
+    public StockHistoryServiceImpl(DataSource dataSource, ShardRouter shardRouter,
+                                   StockHistoryMaintenance stockHistoryMaintenance) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.shardRouter = shardRouter;
+        this.stockHistoryMaintenance = stockHistoryMaintenance;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StockMovement> getMovements(String sku, LocalDateTime from, LocalDateTime to, int limit) {
+        logger.info("Fetching stock movements of SKU: {} from {} to {}", sku, from, to);
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("sku", sku)
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to))
+                .addValue("limit", limit);
+        return shardRouter.forSku(sku, () -> jdbcTemplate.query(MOVEMENTS_SQL, parameters, (rs, rowNum) -> new StockMovement(
+                rs.getLong("item_id"),
+                rs.getString("sku"),
+                rs.getLong("location_id"),
+                rs.getInt("quantity_change"),
+                rs.getString("change_type"),
+                rs.getTimestamp("occurred_at").toLocalDateTime())));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Integer> getQuantityAt(String sku, LocalDateTime at) {
+        logger.info("Reconstructing stock of SKU: {} at {}", sku, at);
+        LocalDateTime horizon = stockHistoryMaintenance.getRetentionHorizon();
+        if (at.isBefore(horizon)) {
+            throw new IllegalArgumentException("Stock history before " + horizon + " is no longer retained");
+        }
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("sku", sku)
+                .addValue("at", Timestamp.valueOf(at));
+        return shardRouter.forSku(sku, () -> jdbcTemplate.queryForObject(QUANTITY_AT_SQL, parameters, (rs, rowNum) -> {
+            int baseQuantity = rs.getInt("base_quantity");
+            boolean hasSnapshot = !rs.wasNull();
+            if (!hasSnapshot && rs.getLong("movements") == 0) {
+                return Optional.<Integer>empty();
+            }
+            return Optional.of(baseQuantity + rs.getInt("quantity_change"));
+        }));
+    }
+}
@@ -0,0 +1,116 @@
+package com.inventory.inventoryservice.shard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies categories and locations from shard 0, where they are written, to every other shard so
+ * items there can reference and join them.
+ *
+ * <p>Rows are upserted by ID and rows gone from shard 0 are deleted. A row still referenced by items
+ * on a shard cannot be deleted there; that shard is reported and retried on the next replication.</p>
+ */
+@Component
+public class ReferenceDataReplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataReplicator.class);
+
+    private static final List<Table> TABLES = List.of(
+            new Table("categories", List.of("name", "description")),
+            new Table("locations", List.of("name", "address", "city", "state", "zipcode", "country")));
+
+    private final ShardRoutingDataSource shardRoutingDataSource;
+
+    public ReferenceDataReplicator(ShardRoutingDataSource shardRoutingDataSource) {
+        this.shardRoutingDataSource = shardRoutingDataSource;
+    }
+
+    /**
+     * Replicate once the current transaction commits, or right away if there is none
+     */
+    public void replicateAfterCommit() {
+        if (shardRoutingDataSource.getShardCount() == 1) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    replicate();
+                }
+            });
+        } else {
+            replicate();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replicate() {
+        for (int shard = 1; shard < shardRoutingDataSource.getShardCount(); shard++) {
+            try (Connection source = shardRoutingDataSource.getShard(0).getConnection();
+                 Connection target = shardRoutingDataSource.getShard(shard).getConnection()) {
+                target.setAutoCommit(false);
+                try {
+                    for (Table table : TABLES) {
+                        copy(table, source, target);
+                    }
+                    target.commit();
+                } catch (SQLException e) {
+                    target.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                logger.warn("Could not replicate categories and locations to shard {}: {}", shard, e.getMessage());
+            }
+        }
+    }
+
+    private void copy(Table table, Connection source, Connection target) throws SQLException {
+        String columns = String.join(", ", table.columns());
+        List<Long> ids = new ArrayList<>();
+
+        try (PreparedStatement select = source.prepareStatement("SELECT id, " + columns + " FROM " + table.name());
+             PreparedStatement upsert = target.prepareStatement(table.upsertSql());
+             ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                long id = rows.getLong(1);
+                ids.add(id);
+                upsert.setLong(1, id);
+                for (int i = 0; i < table.columns().size(); i++) {
+                    upsert.setString(i + 2, rows.getString(i + 2));
+                }
+                upsert.addBatch();
+            }
+            upsert.executeBatch();
+        }
+
+        try (PreparedStatement delete = target.prepareStatement("DELETE FROM " + table.name() + " WHERE NOT (id = ANY (?))")) {
+            Array idArray = target.createArrayOf("bigint", ids.toArray());
+            delete.setArray(1, idArray);
+            delete.executeUpdate();
+        }
+    }
+
+    private record Table(String name, List<String> columns) {
+
+        String upsertSql() {
+            List<String> updates = columns.stream().map(column -> column + " = EXCLUDED." + column).toList();
+            return "INSERT INTO " + name + " (id, " + String.join(", ", columns) + ") VALUES (?"
+                    + ", ?".repeat(columns.size()) + ") ON CONFLICT (id) DO UPDATE SET " + String.join(", ", updates);
+        }
+    }
+}
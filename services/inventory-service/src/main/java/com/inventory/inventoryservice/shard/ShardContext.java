@@ -0,0 +1,30 @@
+package com.inventory.inventoryservice.shard;
+
+/**
+ * The shard the current thread's next database connection is taken from, consulted by
+ * {@link ShardRoutingDataSource}. Threads that never choose one use shard 0.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> currentShard = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = currentShard.get();
+        return shard != null ? shard : 0;
+    }
+
+    static Integer get() {
+        return currentShard.get();
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            currentShard.remove();
+        } else {
+            currentShard.set(shard);
+        }
+    }
+}
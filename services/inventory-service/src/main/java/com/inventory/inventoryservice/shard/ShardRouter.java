@@ -0,0 +1,242 @@
+package com.inventory.inventoryservice.shard;
+
+import com.inventory.inventoryservice.datasource.ReadConsistency;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard holds an inventory item and runs repository calls against it.
+ *
+ * <p>Items are placed by a jump consistent hash of their SKU, so SKU lookups and reservations touch
+ * one shard. Each shard hands out item IDs from its own range of {@value #ITEM_IDS_PER_SHARD}, so the
+ * shard of an item also follows from its ID. Queries that are not keyed by SKU or ID run on every
+ * shard in parallel and their results are merged.</p>
+ *
+ * <p>The connection of a transaction is only fetched at its first statement, so a shard may be chosen
+ * inside a transactional method as long as nothing has run against the database yet. A transaction
+ * never spans shards.</p>
+ */
+@Component
+public class ShardRouter {
+
+    public static final long ITEM_IDS_PER_SHARD = 1_000_000_000_000L;
+
+    private final int shardCount;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ShardRouter(ShardRoutingDataSource shardRoutingDataSource, PlatformTransactionManager transactionManager) {
+        this.shardCount = shardRoutingDataSource.getShardCount();
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Get the shard an item with the given SKU is stored on
+     * @param sku The SKU of the inventory item
+     * @return The shard index
+     */
+    public int shardForSku(String sku) {
+        // 64-bit FNV-1a: stable across JVMs and spreads short, similar SKUs well
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : sku.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return jumpConsistentHash(hash, shardCount);
+    }
+
+    /**
+     * Get the shard an item with the given ID is stored on
+     * @param id The ID of the inventory item
+     * @return The shard index; shard 0 for IDs outside every shard's range, where the item is simply not found
+     */
+    public int shardForItem(Long id) {
+        long shard = id / ITEM_IDS_PER_SHARD;
+        return shard > 0 && shard < shardCount ? (int) shard : 0;
+    }
+
+    public <T> T onShard(int shard, Supplier<T> action) {
+        Integer previous = ShardContext.get();
+        ShardContext.set(shard);
+        try {
+            return action.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    public void runOnShard(int shard, Runnable action) {
+        onShard(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T forSku(String sku, Supplier<T> action) {
+        return onShard(shardForSku(sku), action);
+    }
+
+    public <T> T forItem(Long id, Supplier<T> action) {
+        return onShard(shardForItem(id), action);
+    }
+
+    /**
+     * Run an action on the shard of a reservation, which takes its ID from the same range as the items of its shard
+     */
+    public <T> T forReservation(Long id, Supplier<T> action) {
+        return onShard(shardForItem(id), action);
+    }
+
+    /**
+     * Run an action on each shard in turn, for maintenance work that must reach every shard
+     * @param action The action, run with the shard selected
+     */
+    public void forEachShard(Runnable action) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            runOnShard(shard, action);
+        }
+    }
+
+    /**
+     * Run a query on every shard in parallel, each in its own read-only transaction
+     * @param query The query, run with the shard selected
+     * @return The results of all shards concatenated, in shard order
+     */
+    public <T> List<T> gather(Supplier<List<T>> query) {
+        if (shardCount == 1) {
+            return readOnlyTransactionTemplate.execute(status -> query.get());
+        }
+        List<T> merged = new ArrayList<>();
+        scatter(query).forEach(merged::addAll);
+        return merged;
+    }
+
+    /**
+     * Run a paged query on every shard in parallel and merge the results into the requested page.
+     * Each shard returns everything up to the end of the page, so deep pages cost more than on a single database.
+     * @param query The query, run with the shard selected
+     * @param pageable The requested page; its sort order is applied again when merging
+     * @return The requested page across all shards
+     */
+    public <T> Page<T> gatherPage(Function<Pageable, Page<T>> query, Pageable pageable) {
+        if (shardCount == 1 || pageable.isUnpaged()) {
+            return shardCount == 1
+                    ? readOnlyTransactionTemplate.execute(status -> query.apply(pageable))
+                    : new PageImpl<>(gather(() -> query.apply(pageable).getContent()));
+        }
+
+        int window = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+        Pageable shardPage = PageRequest.of(0, window, pageable.getSort());
+        List<Page<T>> pages = scatter(() -> query.apply(shardPage));
+
+        long total = 0;
+        List<T> merged = new ArrayList<>();
+        for (Page<T> page : pages) {
+            total += page.getTotalElements();
+            merged.addAll(page.getContent());
+        }
+        List<T> content = merged.stream()
+                .sorted(comparator(pageable.getSort()))
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <R> List<R> scatter(Supplier<R> query) {
+        // Workers read with the caller's consistency requirements
+        Long requiredLsn = ReadConsistency.getRequiredLsn();
+        boolean pinnedToPrimary = ReadConsistency.isPinnedToPrimary();
+
+        List<Future<R>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(executor.submit(() -> {
+                if (requiredLsn != null) {
+                    ReadConsistency.requireLsn(requiredLsn);
+                }
+                if (pinnedToPrimary) {
+                    ReadConsistency.pinToPrimary();
+                }
+                try {
+                    return onShard(target, () -> readOnlyTransactionTemplate.execute(status -> query.get()));
+                } finally {
+                    ReadConsistency.clear();
+                }
+            }));
+        }
+
+        List<R> results = new ArrayList<>(shardCount);
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Comparator<T> comparator(Sort sort) {
+        Comparator<T> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            // Nulls sort last ascending and first descending, as in PostgreSQL
+            Comparator<T> byProperty = Comparator.comparing(
+                    item -> (Comparable<Object>) new BeanWrapperImpl(item).getPropertyValue(order.getProperty()),
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator;
+    }
+
+    /**
+     * Lamping and Veach's jump consistent hash: adding a shard only moves the keys that land on it.
+     */
+    private static int jumpConsistentHash(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
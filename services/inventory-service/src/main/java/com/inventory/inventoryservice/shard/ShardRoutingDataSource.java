@@ -0,0 +1,97 @@
+package com.inventory.inventoryservice.shard;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out connections from the shard selected in {@link ShardContext}.
+ *
+ * <p>Like the replica routing underneath it, this must be wrapped in a
+ * {@code LazyConnectionDataSourceProxy}: the shard is read when a transaction runs its first
+ * statement, not when it begins.</p>
+ *
+ * <p>The connections each thread holds are counted per shard, so a transaction about to reuse a
+ * connection of another shard can be refused; see {@link #holdsConnectionOtherThan(int)}.</p>
+ */
+public class ShardRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final List<DataSource> shards;
+    private final ThreadLocal<Map<Integer, Integer>> heldConnections = ThreadLocal.withInitial(ConcurrentHashMap::new);
+
+    /**
+     * @param shards The shards in order; shard 0 is the primary database and is closed by its owner
+     */
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    /**
+     * Whether the current thread holds an open connection of a shard other than the given one
+     */
+    public boolean holdsConnectionOtherThan(int shard) {
+        for (Map.Entry<Integer, Integer> held : heldConnections.get().entrySet()) {
+            if (held.getKey() != shard && held.getValue() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int shard = ShardContext.current();
+        return track(shard, shards.get(shard).getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        int shard = ShardContext.current();
+        return track(shard, shards.get(shard).getConnection(username, password));
+    }
+
+    private Connection track(int shard, Connection connection) {
+        Map<Integer, Integer> held = heldConnections.get();
+        held.merge(shard, 1, Integer::sum);
+        boolean[] closed = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && !closed[0]) {
+                        closed[0] = true;
+                        held.merge(shard, -1, Integer::sum);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : shards.subList(1, shards.size())) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.inventory.inventoryservice.state;
+
+import com.inventory.inventoryservice.event.InventoryStateEvent;
+import com.inventory.inventoryservice.event.InventoryStateMarker;
+import com.inventory.inventoryservice.model.InventoryItem;
+import com.inventory.inventoryservice.repository.InventoryItemRepository;
+import com.inventory.inventoryservice.repository.StockBucketRepository;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import org.apache.kafka.common.PartitionInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the latest full state of every inventory item on the log-compacted {@code inventory-state}
+ * topic, keyed by SKU.
+ *
+ * <p>Changed items are collected once their transaction commits and published by a scheduled flush,
+ * which reads the committed rows back from the primary. A burst of changes to one item therefore
+ * costs one record, and the record is never older than the commit that triggered it. Items that no
+ * longer exist, or SKUs an item has been renamed from, are published as tombstones.</p>
+ *
+ * <p>A full snapshot of all items is published periodically, by one instance at a time. It is
+ * enclosed in {@link InventoryStateMarker}s sent to every partition, so consumers can tell when
+ * they have read a complete state; see {@link InventoryStateView}.</p>
+ */
+@Component
+public class InventoryStatePublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryStatePublisher.class);
+
+    private static final String SNAPSHOT_LOCK_KEY = "inventory:state-snapshot:lock";
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final StockBucketRepository stockBucketRepository;
+    private final ShardRouter shardRouter;
+    private final StringRedisTemplate redisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, Set<String>> changed = new ConcurrentHashMap<>();
+
+    @Value("${app.inventory.state-topic.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.kafka.topics.inventory-state:inventory-state}")
+    private String topic;
+
+    @Value("${app.inventory.state-topic.snapshot-interval-ms:21600000}")
+    private long snapshotIntervalMs;
+
+    @Value("${app.inventory.state-topic.snapshot-page-size:1000}")
+    private int snapshotPageSize;
+
+    public InventoryStatePublisher(KafkaTemplate<String, Object> kafkaTemplate,
+                                   InventoryItemRepository inventoryItemRepository,
+                                   StockBucketRepository stockBucketRepository,
+                                   ShardRouter shardRouter,
+                                   StringRedisTemplate redisTemplate,
+                                   PlatformTransactionManager transactionManager) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.stockBucketRepository = stockBucketRepository;
+        this.shardRouter = shardRouter;
+        this.redisTemplate = redisTemplate;
+        // Read-write, so the rows are read from the primary and not from a lagging replica
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Publish the state of an item once the current transaction commits, or right away if there is none
+     * @param item The changed inventory item, with the SKU it had at the time of the change
+     */
+    public void itemChanged(InventoryItem item) {
+        if (!enabled || item.getId() == null) {
+            return;
+        }
+        Long id = item.getId();
+        String sku = item.getSku();
+        Runnable mark = () -> changed.computeIfAbsent(id, key -> ConcurrentHashMap.newKeySet()).add(sku);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mark.run();
+                }
+            });
+        } else {
+            mark.run();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.state-topic.flush-interval-ms:200}")
+    public void flush() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        Map<Integer, Map<Long, Set<String>>> byShard = new TreeMap<>();
+        for (Long id : changed.keySet()) {
+            Set<String> skus = changed.remove(id);
+            if (skus != null) {
+                byShard.computeIfAbsent(shardRouter.shardForItem(id), shard -> new HashMap<>()).put(id, skus);
+            }
+        }
+
+        byShard.forEach((shard, skusById) -> {
+            try {
+                List<InventoryStateEvent> states = shardRouter.onShard(shard, () -> transactionTemplate.execute(status ->
+                        toStates(inventoryItemRepository.findAllById(skusById.keySet()))));
+                Set<String> current = new HashSet<>();
+                for (InventoryStateEvent state : states) {
+                    send(state.getSku(), state);
+                    current.add(state.getSku());
+                }
+                skusById.values().stream()
+                        .flatMap(Set::stream)
+                        .filter(sku -> !current.contains(sku))
+                        .distinct()
+                        .forEach(sku -> send(sku, null));
+            } catch (Exception e) {
+                logger.warn("Could not publish the state of {} inventory items on shard {}, retrying: {}",
+                        skusById.size(), shard, e.getMessage());
+                skusById.forEach((id, skus) -> changed.computeIfAbsent(id, key -> ConcurrentHashMap.newKeySet()).addAll(skus));
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.state-topic.snapshot-interval-ms:21600000}",
+            initialDelayString = "${app.inventory.state-topic.snapshot-initial-delay-ms:30000}")
+    public void publishSnapshot() {
+        if (!enabled || !takeSnapshotTurn()) {
+            return;
+        }
+        String snapshotId = UUID.randomUUID().toString();
+        List<PartitionInfo> partitions = kafkaTemplate.partitionsFor(topic);
+        AtomicLong failures = new AtomicLong();
+        long started = System.currentTimeMillis();
+
+        sendMarker(partitions, InventoryStateMarker.START_KEY, new InventoryStateMarker(snapshotId, "START", null));
+        long itemCount = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            itemCount += shardRouter.onShard(shard, () -> publishShardSnapshot(failures));
+        }
+        kafkaTemplate.flush();
+
+        // Without every item on the topic the END marker would promise a complete state it does not have
+        if (failures.get() > 0) {
+            logger.error("Inventory state snapshot {} incomplete: {} of {} items could not be published",
+                    snapshotId, failures.get(), itemCount);
+            return;
+        }
+        sendMarker(partitions, InventoryStateMarker.END_KEY, new InventoryStateMarker(snapshotId, "END", itemCount));
+        kafkaTemplate.flush();
+        logger.info("Published inventory state snapshot {} of {} items in {} ms",
+                snapshotId, itemCount, System.currentTimeMillis() - started);
+    }
+
+    private long publishShardSnapshot(AtomicLong failures) {
+        long count = 0;
+        long afterId = 0;
+        PageRequest pageRequest = PageRequest.of(0, snapshotPageSize);
+        while (true) {
+            long after = afterId;
+            List<InventoryStateEvent> states = transactionTemplate.execute(status ->
+                    toStates(inventoryItemRepository.findByIdAfter(after, pageRequest)));
+            for (InventoryStateEvent state : states) {
+                kafkaTemplate.send(topic, state.getSku(), state).whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        failures.incrementAndGet();
+                    }
+                });
+            }
+            count += states.size();
+            if (states.size() < snapshotPageSize) {
+                return count;
+            }
+            afterId = states.get(states.size() - 1).getItemId();
+        }
+    }
+
+    private boolean takeSnapshotTurn() {
+        try {
+            // Held for a whole interval, so the instances of the service publish one snapshot per interval between them
+            String owner = ManagementFactory.getRuntimeMXBean().getName();
+            return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                    .setIfAbsent(SNAPSHOT_LOCK_KEY, owner, Duration.ofMillis(snapshotIntervalMs)));
+        } catch (Exception e) {
+            logger.warn("Could not take the inventory state snapshot turn: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void sendMarker(List<PartitionInfo> partitions, String key, InventoryStateMarker marker) {
+        for (PartitionInfo partition : partitions) {
+            kafkaTemplate.send(topic, partition.partition(), key, marker);
+        }
+    }
+
+    private void send(String sku, InventoryStateEvent state) {
+        kafkaTemplate.send(topic, sku, state).exceptionally(ex -> {
+            logger.error("Failed to publish state of SKU {}: {}", sku, ex.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Build the states of the given items; the quantity of a bucketed item is the sum of its buckets,
+     * not the roll-up in its row
+     */
+    private List<InventoryStateEvent> toStates(List<InventoryItem> items) {
+        List<Long> bucketedIds = items.stream().filter(InventoryItem::isBucketed).map(InventoryItem::getId).toList();
+        Map<Long, Integer> bucketTotals = new HashMap<>();
+        if (!bucketedIds.isEmpty()) {
+            for (Object[] row : stockBucketRepository.sumQuantities(bucketedIds)) {
+                bucketTotals.put((Long) row[0], ((Number) row[1]).intValue());
+            }
+        }
+        return items.stream()
+                .map(item -> toState(item, item.isBucketed() ? bucketTotals.getOrDefault(item.getId(), 0) : item.getQuantity()))
+                .toList();
+    }
+
+    private InventoryStateEvent toState(InventoryItem item, Integer quantity) {
+        InventoryStateEvent state = new InventoryStateEvent();
+        state.setItemId(item.getId());
+        state.setSku(item.getSku());
+        state.setName(item.getName());
+        state.setDescription(item.getDescription());
+        state.setCategoryId(item.getCategory().getId());
+        state.setCategoryName(item.getCategory().getName());
+        state.setLocationId(item.getLocation().getId());
+        state.setLocationName(item.getLocation().getName());
+        state.setQuantity(quantity);
+        state.setThreshold(item.getThreshold());
+        state.setPrice(item.getPrice());
+        state.setVersion(item.getVersion());
+        state.setUpdatedAt(item.getUpdatedAt());
+        state.setPublishedAt(LocalDateTime.now());
+        return state;
+    }
+}
@@ -0,0 +1,195 @@
+package com.inventory.inventoryservice.state;
+
+import com.inventory.inventoryservice.event.InventoryStateEvent;
+import com.inventory.inventoryservice.event.InventoryStateMarker;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of all inventory items built from the {@code inventory-state} topic, following the
+ * protocol every consumer of that topic can use to bootstrap:
+ *
+ * <ol>
+ *     <li>Assign all partitions, seek to the beginning and note their end offsets.</li>
+ *     <li>Apply records in order: a state replaces the SKU's entry, a tombstone removes it, and a
+ *     START marker is ignored.</li>
+ *     <li>The view is complete once every partition has been read up to its noted end offset and an
+ *     END marker has been read on every partition. Until the first snapshot has finished, the END
+ *     markers arrive later, so keep consuming.</li>
+ *     <li>Keep consuming to stay current.</li>
+ * </ol>
+ *
+ * <p>No consumer group is used and no offsets are committed: every instance reads the whole topic.
+ * A record that cannot be read is logged and skipped; any other failure rebuilds the view from the
+ * beginning after a pause.</p>
+ */
+@Component
+public class InventoryStateView {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryStateView.class);
+
+    private final ConsumerFactory<String, Object> consumerFactory;
+    private final Map<String, InventoryStateEvent> items = new ConcurrentHashMap<>();
+
+    @Value("${app.inventory.state-topic.view-enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.kafka.topics.inventory-state:inventory-state}")
+    private String topic;
+
+    @Value("${app.inventory.state-topic.view-restart-backoff-ms:5000}")
+    private long restartBackoffMs;
+
+    private volatile boolean ready;
+    private volatile boolean running;
+    private volatile Consumer<String, Object> consumer;
+
+    public InventoryStateView(ConsumerFactory<String, Object> consumerFactory) {
+        this.consumerFactory = consumerFactory;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the view holds a complete state
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Collection<InventoryStateEvent> getItems() {
+        return items.values();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        Thread.ofPlatform().daemon().name("inventory-state-view").start(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        Consumer<String, Object> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                consume();
+            } catch (WakeupException e) {
+                return; // Shutting down
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                logger.error("Inventory state view stopped, rebuilding in {} ms: {}", restartBackoffMs, e.getMessage(), e);
+                try {
+                    Thread.sleep(restartBackoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void consume() {
+        long started = System.currentTimeMillis();
+
+        try (Consumer<String, Object> stateConsumer = createConsumer()) {
+            consumer = stateConsumer;
+            List<TopicPartition> partitions = new ArrayList<>();
+            stateConsumer.partitionsFor(topic).forEach(partition -> partitions.add(new TopicPartition(topic, partition.partition())));
+            stateConsumer.assign(partitions);
+            stateConsumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = stateConsumer.endOffsets(partitions);
+            Set<TopicPartition> behind = new HashSet<>(partitions);
+            Set<TopicPartition> withoutSnapshot = new HashSet<>(partitions);
+
+            while (running) {
+                for (ConsumerRecord<String, Object> record : stateConsumer.poll(Duration.ofMillis(500))) {
+                    apply(record, withoutSnapshot);
+                }
+                if (!ready) {
+                    behind.removeIf(partition -> stateConsumer.position(partition) >= endOffsets.get(partition));
+                    if (behind.isEmpty() && withoutSnapshot.isEmpty()) {
+                        ready = true;
+                        logger.info("Built inventory state view of {} SKUs in {} ms", items.size(), System.currentTimeMillis() - started);
+                    }
+                }
+            }
+        } finally {
+            consumer = null;
+        }
+    }
+
+    /**
+     * A consumer without a group, whatever group the shared consumer configuration names, that hands
+     * over unreadable values as null with the error in a header instead of failing the poll
+     */
+    private Consumer<String, Object> createConsumer() {
+        Map<String, Object> properties = new HashMap<>(consumerFactory.getConfigurationProperties());
+        properties.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        JsonDeserializer<Object> valueDeserializer = new JsonDeserializer<>();
+        valueDeserializer.addTrustedPackages(InventoryStateEvent.class.getPackageName());
+        properties.remove(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG);
+        properties.remove(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG);
+        properties.remove(JsonDeserializer.TRUSTED_PACKAGES);
+
+        return new DefaultKafkaConsumerFactory<>(properties, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(valueDeserializer)).createConsumer();
+    }
+
+    private void apply(ConsumerRecord<String, Object> record, Set<TopicPartition> withoutSnapshot) {
+        if (record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER) != null) {
+            // Not a tombstone: the value was there but could not be read, so the entry is left as it is
+            logger.warn("Skipping unreadable inventory state record for key {} at {}-{}@{}",
+                    record.key(), record.topic(), record.partition(), record.offset());
+        } else if (InventoryStateMarker.END_KEY.equals(record.key())) {
+            withoutSnapshot.remove(new TopicPartition(record.topic(), record.partition()));
+        } else if (InventoryStateMarker.START_KEY.equals(record.key())) {
+            return;
+        } else if (record.value() == null) {
+            items.remove(record.key());
+        } else if (record.value() instanceof InventoryStateEvent state) {
+            items.put(record.key(), state);
+        }
+    }
+}
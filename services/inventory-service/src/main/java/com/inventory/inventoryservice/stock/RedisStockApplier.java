@@ -0,0 +1,205 @@
+package com.inventory.inventoryservice.stock;
+
+import com.inventory.inventoryservice.model.Category;
+import com.inventory.inventoryservice.model.InventoryItem;
+import com.inventory.inventoryservice.model.Location;
+import com.inventory.inventoryservice.repository.InventoryItemRepository;
+import com.inventory.inventoryservice.service.CollectionVersionService;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes Redis-held stock levels back to Postgres by consuming the stock stream as a consumer group.
+ *
+ * <p>Stream entries carry the absolute quantity and sequence after each change, so only the latest
+ * entry per SKU in a batch is written, and the write is conditional on the row's stock sequence being
+ * older. Redelivered or out-of-order entries are therefore harmless, and entries left pending by a
+ * crashed instance are claimed and applied after a while.</p>
+ */
+@Component
+public class RedisStockApplier {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisStockApplier.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final CollectionVersionService collectionVersionService;
+    private final RedisStockService redisStockService;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final String consumerName = ManagementFactory.getRuntimeMXBean().getName();
+
+    private volatile boolean groupCreated;
+
+    @Value("${app.inventory.redis-stock.consumer-group:inventory-stock-applier}")
+    private String consumerGroup;
+
+    @Value("${app.inventory.redis-stock.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.inventory.redis-stock.claim-idle-ms:30000}")
+    private long claimIdleMs;
+
+    public RedisStockApplier(StringRedisTemplate redisTemplate,
+                             InventoryItemRepository inventoryItemRepository,
+                             CollectionVersionService collectionVersionService,
+                             RedisStockService redisStockService,
+                             ShardRouter shardRouter,
+                             PlatformTransactionManager transactionManager) {
+        this.redisTemplate = redisTemplate;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.collectionVersionService = collectionVersionService;
+        this.redisStockService = redisStockService;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.redis-stock.apply-interval-ms:100}")
+    public void applyPending() {
+        if (!redisStockService.isEnabled()) {
+            return;
+        }
+        try {
+            ensureGroup();
+            StreamOperations<String, Object, Object> stream = redisTemplate.opsForStream();
+            Consumer consumer = Consumer.from(consumerGroup, consumerName);
+            StreamReadOptions options = StreamReadOptions.empty().count(batchSize);
+
+            // Entries delivered to this consumer but not acknowledged, e.g. because the previous write failed
+            List<MapRecord<String, Object, Object>> records = new ArrayList<>(
+                    stream.read(consumer, options, StreamOffset.create(RedisStockService.STREAM_KEY, ReadOffset.from("0"))));
+            records.addAll(claimAbandoned(stream));
+            if (records.isEmpty()) {
+                records.addAll(stream.read(consumer, options,
+                        StreamOffset.create(RedisStockService.STREAM_KEY, ReadOffset.lastConsumed())));
+            }
+            if (!records.isEmpty()) {
+                apply(records);
+            }
+        } catch (Exception e) {
+            // Re-create the group on the next run in case Redis lost it
+            groupCreated = false;
+            logger.warn("Could not apply Redis stock changes to the database: {}", e.getMessage());
+        }
+    }
+
+    private void apply(List<MapRecord<String, Object, Object>> records) {
+        Map<String, Map<Object, Object>> latestBySku = new LinkedHashMap<>();
+        Map<String, Boolean> lowStockAffected = new LinkedHashMap<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            Map<Object, Object> entry = record.getValue();
+            String sku = (String) entry.get("sku");
+            latestBySku.merge(sku, entry, (current, candidate) -> sequence(candidate) > sequence(current) ? candidate : current);
+            lowStockAffected.merge(sku, touchesThreshold(entry), Boolean::logicalOr);
+        }
+
+        // One transaction per shard; if a later shard fails, re-applying the earlier ones is skipped by the sequence check
+        Map<Integer, Map<String, Map<Object, Object>>> byShard = new TreeMap<>();
+        latestBySku.forEach((sku, entry) ->
+                byShard.computeIfAbsent(shardRouter.shardForSku(sku), shard -> new LinkedHashMap<>()).put(sku, entry));
+
+        List<InventoryItem> changed = new ArrayList<>();
+        byShard.forEach((shard, entries) -> shardRouter.runOnShard(shard, () ->
+                transactionTemplate.executeWithoutResult(status -> entries.forEach((sku, entry) -> {
+                    int quantity = Integer.parseInt((String) entry.get("quantity"));
+                    if (inventoryItemRepository.applyStockSnapshot(sku, quantity, sequence(entry)) > 0) {
+                        changed.add(item(sku, entry));
+                    }
+                }))));
+
+        // The rows are committed, so the entries can go; acknowledging only after the write makes a failure redeliver them
+        RecordId[] ids = records.stream().map(MapRecord::getId).toArray(RecordId[]::new);
+        redisTemplate.opsForStream().acknowledge(RedisStockService.STREAM_KEY, consumerGroup, ids);
+        redisTemplate.opsForStream().delete(RedisStockService.STREAM_KEY, ids);
+
+        for (InventoryItem item : changed) {
+            collectionVersionService.itemChanged(item, lowStockAffected.get(item.getSku()));
+        }
+        logger.debug("Applied {} Redis stock changes covering {} SKUs", records.size(), latestBySku.size());
+    }
+
+    private List<MapRecord<String, Object, Object>> claimAbandoned(StreamOperations<String, Object, Object> stream) {
+        PendingMessages pending = stream.pending(RedisStockService.STREAM_KEY, consumerGroup, Range.unbounded(), batchSize);
+        List<RecordId> abandoned = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (!consumerName.equals(message.getConsumerName())
+                    && message.getElapsedTimeSinceLastDelivery().toMillis() >= claimIdleMs) {
+                abandoned.add(message.getId());
+            }
+        }
+        if (abandoned.isEmpty()) {
+            return List.of();
+        }
+        return stream.claim(RedisStockService.STREAM_KEY, consumerGroup, consumerName,
+                Duration.ofMillis(claimIdleMs), abandoned.toArray(RecordId[]::new));
+    }
+
+    private void ensureGroup() {
+        if (groupCreated) {
+            return;
+        }
+        try {
+            redisTemplate.opsForStream().createGroup(RedisStockService.STREAM_KEY, ReadOffset.from("0"), consumerGroup);
+        } catch (RedisSystemException e) {
+            // BUSYGROUP: another instance created it first
+            logger.debug("Stock stream consumer group {} already exists", consumerGroup);
+        }
+        groupCreated = true;
+    }
+
+    private InventoryItem item(String sku, Map<Object, Object> entry) {
+        Category category = new Category();
+        category.setId(Long.valueOf((String) entry.get("categoryId")));
+        Location location = new Location();
+        location.setId(Long.valueOf((String) entry.get("locationId")));
+
+        InventoryItem item = new InventoryItem();
+        item.setId(Long.valueOf((String) entry.get("itemId")));
+        item.setSku(sku);
+        item.setQuantity(Integer.parseInt((String) entry.get("quantity")));
+        item.setCategory(category);
+        item.setLocation(location);
+        return item;
+    }
+
+    private static boolean touchesThreshold(Map<Object, Object> entry) {
+        String threshold = (String) entry.get("threshold");
+        if (threshold == null || threshold.isEmpty()) {
+            return false;
+        }
+        int limit = Integer.parseInt(threshold);
+        int quantity = Integer.parseInt((String) entry.get("quantity"));
+        int change = Integer.parseInt((String) entry.get("change"));
+        return quantity <= limit || quantity - change <= limit;
+    }
+
+    private static long sequence(Map<Object, Object> entry) {
+        return Long.parseLong((String) entry.get("seq"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.inventory.inventoryservice.stock;
+
+import com.inventory.inventoryservice.model.InventoryItem;
+
+/**
+ * Outcome of a quantity change applied to a Redis-held stock counter.
+ */
+public class RedisStockResult {
+
+    public enum Status {
+        APPLIED,
+        INSUFFICIENT_STOCK,
+        NOT_FOUND
+    }
+
+    private final Status status;
+    private final int oldQuantity;
+    private final int newQuantity;
+    private final boolean thresholdCrossed;
+    private final InventoryItem snapshot;
+
+    RedisStockResult(Status status, int oldQuantity, int newQuantity, boolean thresholdCrossed, InventoryItem snapshot) {
+        this.status = status;
+        this.oldQuantity = oldQuantity;
+        this.newQuantity = newQuantity;
+        this.thresholdCrossed = thresholdCrossed;
+        this.snapshot = snapshot;
+    }
+
+    static RedisStockResult notFound() {
+        return new RedisStockResult(Status.NOT_FOUND, 0, 0, false, null);
+    }
+
+    static RedisStockResult insufficientStock(int quantity) {
+        return new RedisStockResult(Status.INSUFFICIENT_STOCK, quantity, quantity, false, null);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isApplied() {
+        return status == Status.APPLIED;
+    }
+
+    public int getOldQuantity() {
+        return oldQuantity;
+    }
+
+    public int getNewQuantity() {
+        return newQuantity;
+    }
+
+    /**
+     * @return True if this change took the quantity from above the threshold to at or below it
+     */
+    public boolean isThresholdCrossed() {
+        return thresholdCrossed;
+    }
+
+    /**
+     * @return A detached item carrying the identifiers, names and new quantity held in Redis, for building events;
+     * null unless the change was applied
+     */
+    public InventoryItem getSnapshot() {
+        return snapshot;
+    }
+}
@@ -0,0 +1,238 @@
+package com.inventory.inventoryservice.stock;
+
+import com.inventory.inventoryservice.model.Category;
+import com.inventory.inventoryservice.model.InventoryItem;
+import com.inventory.inventoryservice.model.Location;
+import com.inventory.inventoryservice.repository.InventoryItemRepository;
+import com.inventory.inventoryservice.shard.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the stock level of hot SKUs in Redis so a reservation is a single Lua script call
+ * instead of a contended row update.
+ *
+ * <p>Once a SKU is loaded, Redis is authoritative for its quantity. Every change bumps a per-SKU
+ * sequence and appends the resulting absolute quantity to a stream, from which
+ * {@link RedisStockApplier} writes it back to Postgres. All keys share the {@code {stock}} hash tag
+ * so the scripts also work against Redis Cluster; Redis should run with AOF enabled so acknowledged
+ * changes survive a restart.</p>
+ */
+@Service
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class RedisStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisStockService.class);
+
+    static final String KEY_PREFIX = "inventory:{stock}:";
+    static final String STREAM_KEY = KEY_PREFIX + "stream";
+
+    private static final long NOT_LOADED = -2;
+    private static final long INSUFFICIENT = -1;
+
+    private final StringRedisTemplate redisTemplate;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final ShardRouter shardRouter;
+    private final RedisScript<List> adjustScript;
+    private final RedisScript<Long> loadScript;
+    private final RedisScript<Long> reconcileScript;
+    private final Map<Long, String> hotSkusById = new ConcurrentHashMap<>();
+
+    @Value("${app.inventory.redis-stock.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.inventory.redis-stock.hot-skus:}")
+    private Set<String> hotSkus;
+
+    public RedisStockService(StringRedisTemplate redisTemplate, InventoryItemRepository inventoryItemRepository,
+                             ShardRouter shardRouter) {
+        this.redisTemplate = redisTemplate;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.shardRouter = shardRouter;
+        this.adjustScript = RedisScript.of(new ClassPathResource("scripts/stock_adjust.lua"), List.class);
+        this.loadScript = RedisScript.of(new ClassPathResource("scripts/stock_load.lua"), Long.class);
+        this.reconcileScript = RedisScript.of(new ClassPathResource("scripts/stock_reconcile.lua"), Long.class);
+    }
+
+    public boolean isEnabled() {
+        return enabled && !hotSkus.isEmpty();
+    }
+
+    /**
+     * Check whether the stock of a SKU is held in Redis
+     * @param sku The SKU of the inventory item
+     * @return True if quantity changes for the SKU must go through {@link #adjust(String, int)}
+     */
+    public boolean isEnabledFor(String sku) {
+        return enabled && hotSkus.contains(sku);
+    }
+
+    /**
+     * Look up the hot SKU of an item by its ID
+     * @param id The ID of the inventory item
+     * @return The SKU if the item's stock is held in Redis
+     */
+    public Optional<String> hotSkuForItem(Long id) {
+        return enabled ? Optional.ofNullable(hotSkusById.get(id)) : Optional.empty();
+    }
+
+    /**
+     * Apply a quantity change to a hot SKU, loading it from Postgres first if Redis does not hold it yet
+     * @param sku The SKU of the inventory item
+     * @param quantityChange The change in quantity (positive for increment, negative for decrement)
+     * @return The result; not applied if the quantity would drop below zero or the SKU does not exist
+     */
+    public RedisStockResult adjust(String sku, int quantityChange) {
+        List<String> keys = List.of(stockKey(sku), STREAM_KEY);
+        List<Object> reply = redisTemplate.execute(adjustScript, keys, Integer.toString(quantityChange), sku);
+
+        if (toLong(reply.get(0)) == NOT_LOADED) {
+            if (!load(sku)) {
+                return RedisStockResult.notFound();
+            }
+            reply = redisTemplate.execute(adjustScript, keys, Integer.toString(quantityChange), sku);
+        }
+
+        long status = toLong(reply.get(0));
+        if (status == NOT_LOADED) {
+            return RedisStockResult.notFound();
+        }
+        if (status == INSUFFICIENT) {
+            return RedisStockResult.insufficientStock((int) toLong(reply.get(1)));
+        }
+
+        int oldQuantity = (int) toLong(reply.get(1));
+        int newQuantity = (int) toLong(reply.get(2));
+        boolean crossed = toLong(reply.get(3)) == 1;
+        return new RedisStockResult(RedisStockResult.Status.APPLIED, oldQuantity, newQuantity, crossed,
+                snapshot(sku, newQuantity, reply));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadHotSkus() {
+        if (!isEnabled()) {
+            return;
+        }
+        for (String sku : hotSkus) {
+            try {
+                load(sku);
+            } catch (Exception e) {
+                logger.warn("Could not load stock of SKU {} into Redis: {}", sku, e.getMessage());
+            }
+        }
+        logger.info("Serving stock of {} hot SKUs from Redis", hotSkusById.size());
+    }
+
+    /**
+     * Adopts quantities and thresholds written to Postgres outside the Redis path, e.g. by a full item update.
+     * A row whose stock sequence matches Redis has seen every Redis change, so any difference came from elsewhere;
+     * rows behind Redis are left alone until the applier catches up.
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.redis-stock.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        if (!isEnabled()) {
+            return;
+        }
+        for (String sku : hotSkus) {
+            try {
+                reconcile(sku);
+            } catch (Exception e) {
+                logger.warn("Could not reconcile Redis stock of SKU {}: {}", sku, e.getMessage());
+            }
+        }
+    }
+
+    private void reconcile(String sku) {
+        List<Object> state = redisTemplate.opsForHash().multiGet(stockKey(sku), List.<Object>of("seq", "quantity", "threshold"));
+        if (state.get(0) == null) {
+            load(sku);
+            return;
+        }
+
+        Optional<InventoryItem> item = shardRouter.forSku(sku, () -> inventoryItemRepository.findBySku(sku));
+        if (item.isEmpty()) {
+            return;
+        }
+        long sequence = Long.parseLong((String) state.get(0));
+        InventoryItem current = item.get();
+        String quantity = current.getQuantity().toString();
+        String threshold = current.getThreshold() != null ? current.getThreshold().toString() : "";
+        if (sequenceOf(current) != sequence || (quantity.equals(state.get(1)) && threshold.equals(state.get(2)))) {
+            return;
+        }
+
+        Long adopted = redisTemplate.execute(reconcileScript, List.of(stockKey(sku)),
+                Long.toString(sequence), quantity, threshold);
+        if (adopted != null && adopted == 1) {
+            logger.info("Adopted external stock change for SKU {}: quantity {}", sku, quantity);
+        }
+    }
+
+    private boolean load(String sku) {
+        Optional<InventoryItem> found = shardRouter.forSku(sku, () -> inventoryItemRepository.findBySku(sku));
+        if (found.isEmpty()) {
+            return false;
+        }
+        InventoryItem item = found.get();
+        List<String> args = new ArrayList<>(9);
+        args.add(item.getQuantity().toString());
+        args.add(item.getThreshold() != null ? item.getThreshold().toString() : "");
+        args.add(Long.toString(sequenceOf(item)));
+        args.add(item.getId().toString());
+        args.add(item.getName());
+        args.add(item.getCategory().getId().toString());
+        args.add(item.getCategory().getName());
+        args.add(item.getLocation().getId().toString());
+        args.add(item.getLocation().getName());
+        redisTemplate.execute(loadScript, List.of(stockKey(sku)), args.toArray());
+        hotSkusById.put(item.getId(), sku);
+        return true;
+    }
+
+    private InventoryItem snapshot(String sku, int quantity, List<Object> reply) {
+        Category category = new Category();
+        category.setId(Long.valueOf((String) reply.get(7)));
+        category.setName((String) reply.get(8));
+        Location location = new Location();
+        location.setId(Long.valueOf((String) reply.get(9)));
+        location.setName((String) reply.get(10));
+
+        InventoryItem item = new InventoryItem();
+        item.setId(Long.valueOf((String) reply.get(5)));
+        item.setSku(sku);
+        item.setName((String) reply.get(6));
+        item.setQuantity(quantity);
+        String threshold = (String) reply.get(4);
+        item.setThreshold(threshold.isEmpty() ? null : Integer.valueOf(threshold));
+        item.setCategory(category);
+        item.setLocation(location);
+        return item;
+    }
+
+    static String stockKey(String sku) {
+        return KEY_PREFIX + "sku:" + sku;
+    }
+
+    private static long sequenceOf(InventoryItem item) {
+        return item.getStockSequence() != null ? item.getStockSequence() : 0L;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+    }
+}
@@ -0,0 +1,65 @@
+-- Full replica identity makes every update and delete log the whole previous row, which only change
+-- capture needs. Partitions go back to the default identity; the service switches them to FULL on
+-- startup while app.inventory.cdc.enabled is set, and back to DEFAULT once it is not.
+CREATE OR REPLACE FUNCTION set_inventory_replica_identity(p_full BOOLEAN) RETURNS INTEGER AS $$
+DECLARE
+    wanted          "char" := CASE WHEN p_full THEN 'f' ELSE 'd' END;
+    partition_table REGCLASS;
+    altered         INTEGER := 0;
+BEGIN
+    FOR partition_table IN
+        SELECT i.inhrelid::regclass
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'inventory_items'::regclass AND c.relreplident <> wanted
+    LOOP
+        EXECUTE format('ALTER TABLE %s REPLICA IDENTITY %s', partition_table, CASE WHEN p_full THEN 'FULL' ELSE 'DEFAULT' END);
+        altered := altered + 1;
+    END LOOP;
+    RETURN altered;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT set_inventory_replica_identity(FALSE);
+
+-- A new partition takes the replica identity the default partition currently has
+CREATE OR REPLACE FUNCTION create_inventory_partition(p_location_id BIGINT) RETURNS BOOLEAN AS $$
+DECLARE
+    partition_name TEXT := 'inventory_items_loc_' || p_location_id;
+    full_identity  BOOLEAN;
+    stranded       BOOLEAN;
+    moved          BIGINT;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE inventory_items INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (location_id = %s)',
+                   partition_name, partition_name || '_location_check', p_location_id);
+    SELECT relreplident = 'f' FROM pg_class WHERE oid = 'inventory_items_default'::regclass INTO full_identity;
+    IF full_identity THEN
+        EXECUTE format('ALTER TABLE %I REPLICA IDENTITY FULL', partition_name);
+    END IF;
+
+    SELECT EXISTS (SELECT 1 FROM inventory_items_default WHERE location_id = p_location_id) INTO stranded;
+    IF NOT stranded THEN
+        EXECUTE format('ALTER TABLE inventory_items ATTACH PARTITION %I FOR VALUES IN (%s)', partition_name, p_location_id);
+        RETURN TRUE;
+    END IF;
+
+    ALTER TABLE inventory_items DETACH PARTITION inventory_items_default;
+    CREATE TEMPORARY TABLE stranded_inventory_items (LIKE inventory_items) ON COMMIT DROP;
+    WITH taken AS (DELETE FROM inventory_items_default WHERE location_id = p_location_id RETURNING *)
+    INSERT INTO stranded_inventory_items SELECT * FROM taken;
+    GET DIAGNOSTICS moved = ROW_COUNT;
+
+    EXECUTE format('ALTER TABLE inventory_items ATTACH PARTITION %I FOR VALUES IN (%s)', partition_name, p_location_id);
+    ALTER TABLE inventory_items ATTACH PARTITION inventory_items_default DEFAULT;
+
+    -- The registry triggers re-register the SKUs on insert
+    DELETE FROM inventory_item_skus WHERE item_id IN (SELECT id FROM stranded_inventory_items);
+    INSERT INTO inventory_items SELECT * FROM stranded_inventory_items;
+    RAISE NOTICE 'Moved % items of location % out of the default partition', moved, p_location_id;
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,33 @@
+-- Schema as previously generated by Hibernate (ddl-auto: update).
+-- IF NOT EXISTS lets this run against databases created before migrations were introduced.
+
+CREATE TABLE IF NOT EXISTS categories (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(100) NOT NULL UNIQUE,
+    description VARCHAR(500)
+);
+
+CREATE TABLE IF NOT EXISTS locations (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name    VARCHAR(100) NOT NULL UNIQUE,
+    address VARCHAR(200),
+    city    VARCHAR(50),
+    state   VARCHAR(50),
+    zipcode VARCHAR(20),
+    country VARCHAR(50)
+);
+
+CREATE TABLE IF NOT EXISTS inventory_items (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(100) NOT NULL,
+    description VARCHAR(500),
+    sku         VARCHAR(50)    NOT NULL UNIQUE,
+    quantity    INTEGER        NOT NULL CHECK (quantity >= 0),
+    threshold   INTEGER CHECK (threshold >= 0),
+    price       NUMERIC(10, 2) NOT NULL,
+    category_id BIGINT         NOT NULL REFERENCES categories (id),
+    location_id BIGINT         NOT NULL REFERENCES locations (id),
+    created_at  TIMESTAMP(6),
+    updated_at  TIMESTAMP(6),
+    version     BIGINT
+);
@@ -0,0 +1,13 @@
+-- Sequence of the last Redis stock mutation written back to the row (hot SKUs held in Redis)
+ALTER TABLE inventory_items ADD COLUMN IF NOT EXISTS stock_sequence BIGINT;
+
+-- Number of stock buckets the quantity is split across, NULL when it lives on the row alone
+ALTER TABLE inventory_items ADD COLUMN IF NOT EXISTS bucket_count INTEGER;
+
+CREATE TABLE IF NOT EXISTS stock_buckets (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    item_id      BIGINT  NOT NULL REFERENCES inventory_items (id) ON DELETE CASCADE,
+    bucket_index INTEGER NOT NULL,
+    quantity     INTEGER NOT NULL CHECK (quantity >= 0),
+    CONSTRAINT uk_stock_buckets_item_bucket UNIQUE (item_id, bucket_index)
+);
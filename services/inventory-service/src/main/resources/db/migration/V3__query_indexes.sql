@@ -0,0 +1,29 @@
+-- Secondary indexes for the repository queries. The sku, category name and location name
+-- lookups are already served by their unique constraints, and stock bucket lookups by
+-- uk_stock_buckets_item_bucket.
+
+-- findByCategory / findByLocation, and the foreign keys checked when categories or locations are deleted
+CREATE INDEX IF NOT EXISTS idx_inventory_items_category ON inventory_items (category_id);
+CREATE INDEX IF NOT EXISTS idx_inventory_items_location ON inventory_items (location_id);
+
+-- Low stock queries: only the small set of rows at or below threshold is indexed.
+-- The predicate matches the plain-item branch of InventoryItemRepository.LOW_STOCK.
+CREATE INDEX IF NOT EXISTS idx_inventory_items_low_stock_location
+    ON inventory_items (location_id, quantity, threshold)
+    WHERE bucket_count IS NULL AND quantity <= threshold;
+CREATE INDEX IF NOT EXISTS idx_inventory_items_low_stock_category
+    ON inventory_items (category_id, quantity, threshold)
+    WHERE bucket_count IS NULL AND quantity <= threshold;
+
+-- Bucketed items: the bucket branch of the low stock queries and the bucket rebalancer
+CREATE INDEX IF NOT EXISTS idx_inventory_items_bucketed
+    ON inventory_items (id)
+    WHERE bucket_count IS NOT NULL;
+
+-- findByNameContaining compiles to LIKE '%keyword%', which only a trigram index can serve
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_inventory_items_name_trgm ON inventory_items USING gin (name gin_trgm_ops);
+
+-- findByCity / findByCountry
+CREATE INDEX IF NOT EXISTS idx_locations_city ON locations (city);
+CREATE INDEX IF NOT EXISTS idx_locations_country ON locations (country);
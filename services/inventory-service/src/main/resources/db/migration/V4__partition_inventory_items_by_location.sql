@@ -0,0 +1,107 @@
+-- Partition inventory_items by location_id, one list partition per location, so location-scoped
+-- queries and vacuum only touch that location's rows. Rows for a location without a partition
+-- land in inventory_items_default, which should stay empty.
+--
+-- A partitioned table can only enforce uniqueness on keys that include location_id, so:
+--   * the primary key becomes (id, location_id); ids still come from one shared sequence
+--   * global SKU uniqueness is enforced through the inventory_item_skus registry kept by a trigger
+--   * stock_buckets.item_id can no longer be a foreign key; buckets are removed with their item
+
+CREATE TABLE inventory_items_partitioned (
+    id             BIGINT         NOT NULL,
+    name           VARCHAR(100)   NOT NULL,
+    description    VARCHAR(500),
+    sku            VARCHAR(50)    NOT NULL,
+    quantity       INTEGER        NOT NULL CHECK (quantity >= 0),
+    threshold      INTEGER CHECK (threshold >= 0),
+    price          NUMERIC(10, 2) NOT NULL,
+    category_id    BIGINT         NOT NULL REFERENCES categories (id),
+    location_id    BIGINT         NOT NULL REFERENCES locations (id),
+    created_at     TIMESTAMP(6),
+    updated_at     TIMESTAMP(6),
+    version        BIGINT,
+    stock_sequence BIGINT,
+    bucket_count   INTEGER,
+    PRIMARY KEY (id, location_id)
+) PARTITION BY LIST (location_id);
+
+ALTER TABLE inventory_items RENAME TO inventory_items_unpartitioned;
+ALTER TABLE inventory_items_partitioned RENAME TO inventory_items;
+
+-- Creates and attaches the partition of a location if it does not exist yet. The partition is
+-- built standalone with a matching CHECK constraint and then attached, which only takes a
+-- SHARE UPDATE EXCLUSIVE lock on inventory_items and needs no validation scan of the new table.
+CREATE OR REPLACE FUNCTION create_inventory_partition(p_location_id BIGINT) RETURNS BOOLEAN AS $$
+DECLARE
+    partition_name TEXT := 'inventory_items_loc_' || p_location_id;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE inventory_items INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (location_id = %s)',
+                   partition_name, partition_name || '_location_check', p_location_id);
+    EXECUTE format('ALTER TABLE inventory_items ATTACH PARTITION %I FOR VALUES IN (%s)', partition_name, p_location_id);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TABLE inventory_items_default PARTITION OF inventory_items DEFAULT;
+SELECT create_inventory_partition(id) FROM locations;
+
+INSERT INTO inventory_items (id, name, description, sku, quantity, threshold, price, category_id,
+                             location_id, created_at, updated_at, version, stock_sequence, bucket_count)
+SELECT id, name, description, sku, quantity, threshold, price, category_id,
+       location_id, created_at, updated_at, version, stock_sequence, bucket_count
+FROM inventory_items_unpartitioned;
+
+DROP TABLE inventory_items_unpartitioned CASCADE;
+ALTER TABLE inventory_items RENAME CONSTRAINT inventory_items_partitioned_pkey TO inventory_items_pkey;
+
+CREATE SEQUENCE inventory_items_id_seq OWNED BY inventory_items.id;
+SELECT setval('inventory_items_id_seq', COALESCE((SELECT MAX(id) FROM inventory_items), 0) + 1, false);
+ALTER TABLE inventory_items ALTER COLUMN id SET DEFAULT nextval('inventory_items_id_seq');
+
+-- Indexes are declared on the parent and created on every partition, including ones attached later.
+-- The location_id index from V3 is gone: the partition key already narrows scans to one location.
+CREATE INDEX idx_inventory_items_sku ON inventory_items (sku);
+CREATE INDEX idx_inventory_items_category ON inventory_items (category_id);
+CREATE INDEX idx_inventory_items_low_stock_location
+    ON inventory_items (location_id, quantity, threshold)
+    WHERE bucket_count IS NULL AND quantity <= threshold;
+CREATE INDEX idx_inventory_items_low_stock_category
+    ON inventory_items (category_id, quantity, threshold)
+    WHERE bucket_count IS NULL AND quantity <= threshold;
+CREATE INDEX idx_inventory_items_bucketed
+    ON inventory_items (id)
+    WHERE bucket_count IS NOT NULL;
+CREATE INDEX idx_inventory_items_name_trgm ON inventory_items USING gin (name gin_trgm_ops);
+
+-- Global SKU uniqueness
+CREATE TABLE inventory_item_skus (
+    sku     VARCHAR(50) PRIMARY KEY,
+    item_id BIGINT      NOT NULL
+);
+INSERT INTO inventory_item_skus (sku, item_id) SELECT sku, id FROM inventory_items;
+
+CREATE OR REPLACE FUNCTION inventory_items_register_sku() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM inventory_item_skus WHERE sku = OLD.sku;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO inventory_item_skus (sku, item_id) VALUES (NEW.sku, NEW.id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Moving an item to another location runs as a delete plus an insert, which keeps the registry in step
+CREATE TRIGGER inventory_items_sku_insert_delete
+    AFTER INSERT OR DELETE ON inventory_items
+    FOR EACH ROW EXECUTE FUNCTION inventory_items_register_sku();
+
+CREATE TRIGGER inventory_items_sku_update
+    AFTER UPDATE OF sku ON inventory_items
+    FOR EACH ROW WHEN (OLD.sku IS DISTINCT FROM NEW.sku)
+    EXECUTE FUNCTION inventory_items_register_sku();
@@ -0,0 +1,77 @@
+-- Append-only history of quantity changes, one row per applied change, range-partitioned by day so
+-- expired history is dropped a partition at a time instead of deleted row by row.
+-- Rows arrive in time order, so BRIN indexes summarise a whole day in a few pages; per-SKU history
+-- and point-in-time lookups use the (sku, occurred_at) btree.
+CREATE TABLE stock_movements (
+    item_id         BIGINT       NOT NULL,
+    sku             VARCHAR(50)  NOT NULL,
+    location_id     BIGINT       NOT NULL,
+    quantity_change INTEGER      NOT NULL,
+    change_type     VARCHAR(20)  NOT NULL,
+    occurred_at     TIMESTAMP(6) NOT NULL
+) PARTITION BY RANGE (occurred_at);
+
+CREATE INDEX idx_stock_movements_occurred_at ON stock_movements USING BRIN (occurred_at);
+CREATE INDEX idx_stock_movements_sku ON stock_movements (sku, occurred_at);
+
+-- Catches rows outside every daily partition; partitions are created days ahead so it stays empty
+CREATE TABLE stock_movements_default PARTITION OF stock_movements DEFAULT;
+
+-- Creates the partition holding the movements of one day if it does not exist yet
+CREATE OR REPLACE FUNCTION create_stock_movement_partition(p_day DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    partition_name TEXT := 'stock_movements_' || to_char(p_day, 'YYYYMMDD');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF stock_movements FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, p_day, p_day + 1);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Drops the daily partitions holding movements from before the given day, returning how many were dropped
+CREATE OR REPLACE FUNCTION drop_stock_movement_partitions(p_before DATE) RETURNS INTEGER AS $$
+DECLARE
+    partition_name TEXT;
+    dropped        INTEGER := 0;
+BEGIN
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'stock_movements'::regclass
+          AND c.relname ~ '^stock_movements_[0-9]{8}$'
+          AND to_date(right(c.relname, 8), 'YYYYMMDD') < p_before
+    LOOP
+        EXECUTE format('DROP TABLE %I', partition_name);
+        dropped := dropped + 1;
+    END LOOP;
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_stock_movement_partition(current_date + d) FROM generate_series(0, 2) AS d;
+
+-- Checkpoints of the movement log: the quantity of a SKU as of snapshot_at. A point-in-time quantity
+-- is the latest snapshot before it plus the movements after that snapshot.
+CREATE TABLE stock_snapshots (
+    sku         VARCHAR(50)  NOT NULL,
+    item_id     BIGINT       NOT NULL,
+    quantity    INTEGER      NOT NULL,
+    snapshot_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (sku, snapshot_at)
+);
+
+-- A btree rather than BRIN: checkpointing reads the latest snapshot_at, which BRIN cannot answer
+CREATE INDEX idx_stock_snapshots_snapshot_at ON stock_snapshots (snapshot_at);
+
+-- Existing items have no movements yet, so their history starts from their current quantity
+INSERT INTO stock_snapshots (sku, item_id, quantity, snapshot_at)
+SELECT i.sku, i.id,
+       CASE WHEN i.bucket_count IS NULL THEN i.quantity
+            ELSE (SELECT COALESCE(SUM(b.quantity), 0) FROM stock_buckets b WHERE b.item_id = i.id)
+       END,
+       LOCALTIMESTAMP
+FROM inventory_items i;
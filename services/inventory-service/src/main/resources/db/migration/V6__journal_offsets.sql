@@ -0,0 +1,6 @@
+-- Highest local journal sequence applied to this database, per journaling instance
+CREATE TABLE IF NOT EXISTS journal_offsets (
+    journal_id  VARCHAR(255) PRIMARY KEY,
+    applied_seq BIGINT    NOT NULL DEFAULT 0,
+    updated_at  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
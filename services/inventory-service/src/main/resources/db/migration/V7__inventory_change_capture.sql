@@ -0,0 +1,37 @@
+-- Logical replication of inventory_items for the change-data-capture publisher. Changes of every
+-- partition are published as changes of inventory_items itself.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_publication WHERE pubname = 'inventory_items_cdc') THEN
+        CREATE PUBLICATION inventory_items_cdc FOR TABLE inventory_items WITH (publish_via_partition_root = true);
+    END IF;
+END;
+$$;
+
+-- Updates and deletes carry the whole previous row, so change events can report the old quantity.
+-- Replica identity is a property of each partition, including ones attached later.
+DO $$
+DECLARE
+    partition_table REGCLASS;
+BEGIN
+    FOR partition_table IN SELECT inhrelid::regclass FROM pg_inherits WHERE inhparent = 'inventory_items'::regclass LOOP
+        EXECUTE format('ALTER TABLE %s REPLICA IDENTITY FULL', partition_table);
+    END LOOP;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION create_inventory_partition(p_location_id BIGINT) RETURNS BOOLEAN AS $$
+DECLARE
+    partition_name TEXT := 'inventory_items_loc_' || p_location_id;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE inventory_items INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (location_id = %s)',
+                   partition_name, partition_name || '_location_check', p_location_id);
+    EXECUTE format('ALTER TABLE %I REPLICA IDENTITY FULL', partition_name);
+    EXECUTE format('ALTER TABLE inventory_items ATTACH PARTITION %I FOR VALUES IN (%s)', partition_name, p_location_id);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,24 @@
+-- Stock held by pending reservations. quantity stays the stock available to new reservations;
+-- on-hand stock is quantity + reserved_quantity.
+ALTER TABLE inventory_items ADD COLUMN IF NOT EXISTS reserved_quantity INTEGER NOT NULL DEFAULT 0
+    CHECK (reserved_quantity >= 0);
+
+-- Reservation holds. A hold moves stock from quantity to reserved_quantity; confirming it removes the
+-- stock from reserved_quantity, releasing or expiring it moves the stock back. Holds live on the shard
+-- of their item and, like items, take IDs from that shard's range.
+-- item_id cannot reference the partitioned inventory_items, whose key includes location_id.
+CREATE TABLE IF NOT EXISTS reservations (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    item_id    BIGINT       NOT NULL,
+    sku        VARCHAR(50)  NOT NULL,
+    quantity   INTEGER      NOT NULL CHECK (quantity > 0),
+    status     VARCHAR(20)  NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL
+);
+
+-- Expiry is scheduled in memory; this index only serves loading pending holds at start-up and
+-- finding holds whose instance went away, and stays as small as the set of pending holds
+CREATE INDEX IF NOT EXISTS idx_reservations_held_expires_at ON reservations (expires_at, id) WHERE status = 'HELD';
+CREATE INDEX IF NOT EXISTS idx_reservations_item_id ON reservations (item_id);
@@ -0,0 +1,43 @@
+-- A location whose partition could not be created right away has its items in inventory_items_default,
+-- and a partition cannot be attached for a value the default partition holds rows of. In that case
+-- partition creation detaches the default partition, takes the location's rows out of it, attaches
+-- the new partition and the default one again, and re-inserts the rows through inventory_items, all
+-- in one transaction. Going through the parent keeps the SKU registry triggers and change capture
+-- in step: the rows show up again as inserts, while their removal from the detached table is not
+-- published. The detach locks inventory_items exclusively, but only for this repair.
+CREATE OR REPLACE FUNCTION create_inventory_partition(p_location_id BIGINT) RETURNS BOOLEAN AS $$
+DECLARE
+    partition_name TEXT := 'inventory_items_loc_' || p_location_id;
+    stranded       BOOLEAN;
+    moved          BIGINT;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE inventory_items INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (location_id = %s)',
+                   partition_name, partition_name || '_location_check', p_location_id);
+    EXECUTE format('ALTER TABLE %I REPLICA IDENTITY FULL', partition_name);
+
+    SELECT EXISTS (SELECT 1 FROM inventory_items_default WHERE location_id = p_location_id) INTO stranded;
+    IF NOT stranded THEN
+        EXECUTE format('ALTER TABLE inventory_items ATTACH PARTITION %I FOR VALUES IN (%s)', partition_name, p_location_id);
+        RETURN TRUE;
+    END IF;
+
+    ALTER TABLE inventory_items DETACH PARTITION inventory_items_default;
+    CREATE TEMPORARY TABLE stranded_inventory_items (LIKE inventory_items) ON COMMIT DROP;
+    WITH taken AS (DELETE FROM inventory_items_default WHERE location_id = p_location_id RETURNING *)
+    INSERT INTO stranded_inventory_items SELECT * FROM taken;
+    GET DIAGNOSTICS moved = ROW_COUNT;
+
+    EXECUTE format('ALTER TABLE inventory_items ATTACH PARTITION %I FOR VALUES IN (%s)', partition_name, p_location_id);
+    ALTER TABLE inventory_items ATTACH PARTITION inventory_items_default DEFAULT;
+
+    -- The registry triggers re-register the SKUs on insert
+    DELETE FROM inventory_item_skus WHERE item_id IN (SELECT id FROM stranded_inventory_items);
+    INSERT INTO inventory_items SELECT * FROM stranded_inventory_items;
+    RAISE NOTICE 'Moved % items of location % out of the default partition', moved, p_location_id;
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,9 @@
+-- Claims an idempotency key for a request unless a record already exists, in which case that record is returned.
+-- KEYS[1] = idempotency key
+-- ARGV = pending record, claim TTL in milliseconds
+local existing = redis.call('GET', KEYS[1])
+if existing then
+    return existing
+end
+redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+return false
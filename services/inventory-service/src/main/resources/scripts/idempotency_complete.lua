@@ -0,0 +1,9 @@
+-- Replaces the claim on an idempotency key with the response, but only the claim of the given request,
+-- so a request whose claim expired and was taken over cannot overwrite the other request's record.
+-- KEYS[1] = idempotency key
+-- ARGV = pending record written when the key was claimed, response record, record TTL in milliseconds
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+    return 1
+end
+return 0
@@ -0,0 +1,7 @@
+-- Drops the claim on an idempotency key, but only the claim of the given request, so a retry may execute.
+-- KEYS[1] = idempotency key
+-- ARGV = pending record written when the key was claimed
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,7 @@
+-- Extends the claim on an idempotency key while its request is still executing, but only the claim of the given request.
+-- KEYS[1] = idempotency key
+-- ARGV = pending record written when the key was claimed, claim TTL in milliseconds
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
@@ -0,0 +1,29 @@
+-- Applies a quantity change to a Redis-held stock level and records it on the stock stream.
+-- KEYS[1] = stock hash, KEYS[2] = stock stream
+-- ARGV[1] = quantity change, ARGV[2] = sku
+-- Returns {-2} if the SKU is not loaded, {-1, quantity} if stock is insufficient, otherwise
+-- {1, oldQuantity, newQuantity, crossedThreshold, threshold, itemId, name, categoryId, categoryName, locationId, locationName}
+local state = redis.call('HMGET', KEYS[1], 'quantity', 'threshold', 'itemId', 'name',
+        'categoryId', 'categoryName', 'locationId', 'locationName')
+if not state[1] then
+    return {-2}
+end
+
+local old = tonumber(state[1])
+local change = tonumber(ARGV[1])
+local new = old + change
+if new < 0 then
+    return {-1, old}
+end
+
+redis.call('HSET', KEYS[1], 'quantity', new)
+local seq = redis.call('HINCRBY', KEYS[1], 'seq', 1)
+redis.call('XADD', KEYS[2], '*', 'sku', ARGV[2], 'quantity', new, 'seq', seq, 'change', change,
+        'threshold', state[2] or '', 'itemId', state[3], 'categoryId', state[5], 'locationId', state[7])
+
+local threshold = tonumber(state[2])
+local crossed = 0
+if threshold and old > threshold and new <= threshold then
+    crossed = 1
+end
+return {1, old, new, crossed, state[2] or '', state[3], state[4], state[5], state[6], state[7], state[8]}
@@ -0,0 +1,10 @@
+-- Seeds a stock hash from Postgres unless Redis already holds it, since Redis is authoritative once loaded.
+-- KEYS[1] = stock hash
+-- ARGV = quantity, threshold, seq, itemId, name, categoryId, categoryName, locationId, locationName
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'quantity', ARGV[1], 'threshold', ARGV[2], 'seq', ARGV[3],
+        'itemId', ARGV[4], 'name', ARGV[5], 'categoryId', ARGV[6], 'categoryName', ARGV[7],
+        'locationId', ARGV[8], 'locationName', ARGV[9])
+return 1
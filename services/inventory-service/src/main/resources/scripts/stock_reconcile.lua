@@ -0,0 +1,9 @@
+-- Adopts a quantity written to Postgres outside the Redis path, but only if no mutation
+-- happened since the caller observed the sequence.
+-- KEYS[1] = stock hash
+-- ARGV[1] = expected seq, ARGV[2] = quantity, ARGV[3] = threshold
+if redis.call('HGET', KEYS[1], 'seq') ~= ARGV[1] then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'quantity', ARGV[2], 'threshold', ARGV[3])
+return 1
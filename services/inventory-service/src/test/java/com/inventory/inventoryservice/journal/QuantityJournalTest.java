@@ -0,0 +1,131 @@
+package com.inventory.inventoryservice.journal;
+
+import com.inventory.inventoryservice.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuantityJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<QuantityJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        opened.stream().filter(QuantityJournal::isEnabled).forEach(QuantityJournal::close);
+    }
+
+    @Test
+    void replaysAppendedEntriesAfterRestart() throws Exception {
+        QuantityJournal journal = open();
+        journal.append(7, 5);
+        journal.append(8, -2);
+        journal.append(7, 1);
+        journal.close();
+
+        QuantityJournal reopened = open();
+        List<JournalEntry> recovered = reopened.takeUnapplied(10);
+
+        assertEquals(List.of(1L, 2L, 3L), sequences(recovered));
+        assertEquals(8, recovered.get(1).getItemId());
+        assertEquals(-2, recovered.get(1).getQuantityChange());
+        assertEquals(4, reopened.append(9, 1).getSequence());
+    }
+
+    @Test
+    void ignoresATornWriteAtTheEndOfASegment() throws Exception {
+        QuantityJournal journal = open();
+        journal.append(7, 5);
+        journal.append(8, 2);
+        journal.append(9, 3);
+        journal.close();
+
+        // The last entry made it to disk only partly: its change is written, its CRC is not
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4), 2L * QuantityJournal.ENTRY_SIZE + 20);
+        }
+
+        QuantityJournal reopened = open();
+        assertEquals(List.of(1L, 2L), sequences(reopened.takeUnapplied(10)));
+        assertEquals(3, reopened.append(10, 4).getSequence());
+        reopened.close();
+
+        // The torn entry stays ignored and its sequence belongs to the entry written after it
+        QuantityJournal again = open();
+        List<JournalEntry> recovered = again.takeUnapplied(10);
+        assertEquals(List.of(1L, 2L, 3L), sequences(recovered));
+        assertEquals(10, recovered.get(2).getItemId());
+    }
+
+    @Test
+    void keepsTheSequenceWhenOnlyAnEmptySegmentIsLeft() throws Exception {
+        QuantityJournal journal = open();
+        journal.append(7, 5);
+        journal.append(8, 2);
+        journal.close();
+
+        // Every entry is applied after the restart, so only the new, empty segment survives
+        QuantityJournal reopened = open();
+        assertEquals(List.of(1L, 2L), sequences(reopened.takeUnapplied(10)));
+        reopened.release(2);
+        reopened.close();
+        assertEquals(1, segments().size());
+
+        QuantityJournal again = open();
+        assertEquals(3, again.append(9, 1).getSequence());
+        assertEquals(List.of(3L), sequences(again.takeUnapplied(10)));
+        assertEquals(1, segments().size());
+    }
+
+    @Test
+    void startsANewSegmentWhenTheCurrentOneIsFull() throws Exception {
+        // Without fsync, so filling a segment does not wait for a disk flush per entry
+        QuantityJournal journal = open(false);
+        int perSegment = 1024 * 1024 / QuantityJournal.ENTRY_SIZE;
+        for (int i = 0; i < perSegment + 1; i++) {
+            journal.append(i, 1);
+        }
+        assertEquals(2, segments().size());
+
+        journal.takeUnapplied(perSegment + 1);
+        journal.release(perSegment + 1);
+        assertEquals(1, segments().size());
+    }
+
+    private QuantityJournal open() {
+        return open(true);
+    }
+
+    private QuantityJournal open(boolean fsync) {
+        QuantityJournal journal = new QuantityJournal(new InventoryMetrics(new SimpleMeterRegistry()), true,
+                directory.toString(), 1, fsync, 0, 1000);
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<Long> sequences(List<JournalEntry> entries) {
+        return entries.stream().map(JournalEntry::getSequence).toList();
+    }
+}
@@ -0,0 +1,117 @@
+package com.inventory.inventoryservice.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final double TOLERANCE = 1.5;
+    private static final int LONG_WINDOW = 10;
+
+    @Test
+    void growsWhileLatencyStaysFlatAndStopsOnceLittleOfTheLimitIsUsed() {
+        int concurrency = 8;
+        AdaptiveConcurrencyLimit limit = limit(10, 1, 100, concurrency);
+
+        window(limit, concurrency, 10, false);
+        assertEquals(13, limit.getLimit());
+        window(limit, concurrency, 10, false);
+        assertEquals(16, limit.getLimit());
+
+        // Eight in flight is less than half of the limit now, which tells nothing about more concurrency
+        for (int i = 0; i < 10; i++) {
+            window(limit, concurrency, 10, false);
+        }
+        assertEquals(16, limit.getLimit());
+    }
+
+    @Test
+    void neverGrowsBeyondTheMaximum() {
+        int concurrency = 10;
+        AdaptiveConcurrencyLimit limit = limit(10, 1, 12, concurrency);
+
+        for (int i = 0; i < 5; i++) {
+            window(limit, concurrency, 10, false);
+        }
+        assertEquals(12, limit.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesAndGrowsAgainOnceItFalls() {
+        int concurrency = 20;
+        AdaptiveConcurrencyLimit limit = limit(30, 1, 100, concurrency);
+        window(limit, concurrency, 10, false);
+        int grown = limit.getLimit();
+        assertTrue(grown > 30);
+
+        window(limit, concurrency, 100, false);
+        int shrunk = limit.getLimit();
+        assertTrue(shrunk < grown, "limit " + shrunk + " did not shrink from " + grown);
+        assertTrue(shrunk >= grown / 2, "limit " + shrunk + " shrank by more than half from " + grown);
+
+        window(limit, concurrency, 10, false);
+        assertTrue(limit.getLimit() > shrunk, "limit " + limit.getLimit() + " did not grow from " + shrunk);
+    }
+
+    @Test
+    void shrinksWhenRequestsAreDropped() {
+        int concurrency = 10;
+        AdaptiveConcurrencyLimit limit = limit(20, 1, 100, concurrency);
+
+        window(limit, concurrency, 10, true);
+        assertEquals(18, limit.getLimit());
+    }
+
+    @Test
+    void neverShrinksBelowTheMinimum() {
+        int concurrency = 4;
+        AdaptiveConcurrencyLimit limit = limit(5, 4, 100, concurrency);
+
+        for (int i = 0; i < 5; i++) {
+            window(limit, concurrency, 10, true);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void rejectsRequestsBeyondTheLimit() {
+        AdaptiveConcurrencyLimit limit = limit(2, 1, 10, 1);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+    }
+
+    @Test
+    void rejectsAnInitialLimitOutsideTheBounds() {
+        assertThrows(IllegalArgumentException.class, () -> limit(20, 1, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> limit(5, 0, 10, 1));
+    }
+
+    /**
+     * A limit that takes over each window's new limit entirely and closes a window after every
+     * {@code windowSamples} requests, however little time has passed
+     */
+    private static AdaptiveConcurrencyLimit limit(int initial, int min, int max, int windowSamples) {
+        return new AdaptiveConcurrencyLimit(initial, min, max, TOLERANCE, 1.0, 0, windowSamples, LONG_WINDOW);
+    }
+
+    /**
+     * Run one window of {@code concurrency} requests that are all in flight at once
+     */
+    private static void window(AdaptiveConcurrencyLimit limit, int concurrency, long rttMillis, boolean dropped) {
+        for (int i = 0; i < concurrency; i++) {
+            assertTrue(limit.tryAcquire(), "limit " + limit.getLimit() + " rejected request " + (i + 1));
+        }
+        for (int i = 0; i < concurrency; i++) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), dropped && i == 0);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.inventory.inventoryservice.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK_MS = 10;
+    private static final int WHEEL_SIZE = 4;
+
+    private final HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, 0);
+
+    @Test
+    void expiresEachTimeoutAtItsDeadlineAcrossLevels() {
+        // Level 0 covers 4 ticks, level 1 16, level 2 64, so these land on every level up to 3
+        long[] deadlines = {10, 30, 50, 160, 170, 640, 650, 1000, 2550};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        List<long[]> expired = new ArrayList<>();
+        for (long now = 0; now <= 3000; now += TICK_MS) {
+            long at = now;
+            wheel.advance(now, deadline -> expired.add(new long[] {deadline, at}));
+        }
+
+        assertEquals(deadlines.length, expired.size());
+        for (int i = 0; i < deadlines.length; i++) {
+            assertEquals(deadlines[i], expired.get(i)[0]);
+            assertEquals(deadlines[i], expired.get(i)[1], "timeout " + deadlines[i] + " expired late or early");
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void expiresInDeadlineOrderWhenAdvancingFarAtOnce() {
+        long[] deadlines = {2550, 40, 700, 10, 170, 1000};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        List<Long> expired = new ArrayList<>();
+        wheel.advance(5000, expired::add);
+
+        assertEquals(List.of(10L, 40L, 170L, 700L, 1000L, 2550L), expired);
+    }
+
+    @Test
+    void roundsDeadlinesUpToTheNextTick() {
+        wheel.schedule(15, 15L);
+        List<Long> expired = new ArrayList<>();
+
+        wheel.advance(19, expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(20, expired::add);
+        assertEquals(List.of(15L), expired);
+    }
+
+    @Test
+    void pastDeadlinesExpireAtTheNextTick() {
+        wheel.advance(100, deadline -> { });
+        wheel.schedule(50, 50L);
+        List<Long> expired = new ArrayList<>();
+
+        wheel.advance(110, expired::add);
+        assertEquals(List.of(50L), expired);
+    }
+
+    @Test
+    void cancelledTimeoutsNeverExpireOnAnyLevel() {
+        HierarchicalTimingWheel.Timeout<Long> onLevel0 = wheel.schedule(20, 20L);
+        HierarchicalTimingWheel.Timeout<Long> onLevel2 = wheel.schedule(600, 600L);
+        HierarchicalTimingWheel.Timeout<Long> cascaded = wheel.schedule(650, 650L);
+        wheel.schedule(660, 660L);
+        assertEquals(4, wheel.size());
+
+        assertTrue(wheel.cancel(onLevel0));
+        assertTrue(wheel.cancel(onLevel2));
+        assertFalse(wheel.cancel(onLevel2));
+
+        // By now the remaining timeouts have cascaded down from level 2
+        List<Long> expired = new ArrayList<>();
+        wheel.advance(645, expired::add);
+        assertTrue(expired.isEmpty());
+        assertTrue(wheel.cancel(cascaded));
+
+        wheel.advance(1000, expired::add);
+        assertEquals(List.of(660L), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void expiredTimeoutsCannotBeCancelled() {
+        HierarchicalTimingWheel.Timeout<Long> timeout = wheel.schedule(200, 200L);
+        wheel.advance(200, deadline -> { });
+
+        assertFalse(wheel.cancel(timeout));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rejectsWheelSizesThatAreNotPowersOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<Long>(TICK_MS, 6, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<Long>(0, WHEEL_SIZE, 0));
+    }
+}